@@ -25,10 +25,18 @@ package net.bpfurtado.tas;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.LinkedList;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.swing.Icon;
@@ -37,6 +45,12 @@ import javax.swing.ImageIcon;
 import net.bpfurtado.tas.builder.EntityPersistedOnFileOpenAction;
 import net.bpfurtado.tas.model.Adventure;
 import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.persistence.AdventureJournal;
+import net.bpfurtado.tas.model.persistence.AdventureReaderException;
+import net.bpfurtado.tas.model.persistence.AdventureSnapshot;
+import net.bpfurtado.tas.model.persistence.BinaryAdventureReader;
+import net.bpfurtado.tas.model.persistence.BinaryAdventureWriter;
+import net.bpfurtado.tas.model.persistence.SceneSnapshot;
 import net.bpfurtado.tas.model.persistence.XMLAdventureReader;
 import net.bpfurtado.tas.model.persistence.XMLAdventureWriter;
 import net.bpfurtado.tas.view.Util;
@@ -48,6 +62,20 @@ public class Workspace implements EntityPersistedOnFileOpenAction
     private static final Logger logger = Logger.getLogger(Workspace.class);
     private static final String sep = File.separator;
 
+    /**
+     * See {@link #sweepImages(AdventureSnapshot)}.
+     */
+    private static final long SWEEP_GRACE_MILLIS = 60 * 1000;
+
+    static final String ADVENTURE_FILE_NAME = "adventure.adv.xml";
+    static final String JOURNAL_FILE_NAME = "adventure" + AdventureJournal.EXTENSION;
+
+    /**
+     * Each save writes a new adventure.*.adv.bin, see {@link #writeBinary(AdventureSnapshot)}.
+     */
+    private static final String BINARY_PREFIX = "adventure.";
+    private static final String BINARY_EXTENSION = ".adv.bin";
+
     @SuppressWarnings("unused")
     private static final Conf conf = Conf.builder();
 
@@ -56,11 +84,36 @@ public class Workspace implements EntityPersistedOnFileOpenAction
 
     private File workspaceHome;
 
+    /**
+     * Only touched by the thread that changes the adventure.
+     */
+    private AdventureSnapshot lastSnapshot;
+
+    /**
+     * The newest snapshot saved, in full or to the journal, guarded by this. Null until the adventure is
+     * written in full by this workspace, the journal only goes over a base it knows.
+     */
+    private AdventureSnapshot lastSaved;
+
+    /**
+     * The journal is compacted when it grows past this fraction of the .adv.xml.
+     */
+    private static final int COMPACT_RATIO = 2;
+
     public static Workspace loadFrom(String workspaceId)
     {
         return new Workspace(workspaceId);
     }
 
+    /**
+     * For playing only: when the .adv.bin is there the texts and the codes of the scenes are read from it
+     * as they are needed, see {@link BinaryAdventureReader#BinaryAdventureReader(int)}.
+     */
+    public static Workspace loadToPlay(String workspaceId)
+    {
+        return new Workspace(workspaceId, true);
+    }
+
     public static Workspace createWith(Adventure adventure)
     {
         return new Workspace(adventure);
@@ -73,22 +126,194 @@ public class Workspace implements EntityPersistedOnFileOpenAction
     }
 
     public Workspace(String workspaceId)
+    {
+        this(workspaceId, false);
+    }
+
+    private Workspace(String workspaceId, boolean lazyBodies)
     {
         this.id = workspaceId;
-        adventure = new XMLAdventureReader().read(adventureFileFrom(workspaceId));
+        adventure = readAdventure(adventureFileFrom(workspaceId), lazyBodies);
+    }
+
+    /**
+     * The .adv.xml is the reference, the .adv.bin saved with it only makes the load faster and is ignored
+     * when older or unreadable. The changes saved since are replayed from the journal.
+     */
+    private static Adventure readAdventure(File xmlFile, boolean lazyBodies)
+    {
+        Adventure adventure = readBase(xmlFile, lazyBodies);
+        new AdventureJournal(xmlFile).replay(adventure);
+        return adventure;
+    }
+
+    private static Adventure readBase(File xmlFile, boolean lazyBodies)
+    {
+        File binaryFile = newestBinary(xmlFile.getParentFile());
+        if (binaryFile != null && binaryFile.lastModified() >= xmlFile.lastModified()) {
+            try {
+                BinaryAdventureReader reader = lazyBodies ? new BinaryAdventureReader(BinaryAdventureReader.DEFAULT_BODIES_CAPACITY) : new BinaryAdventureReader();
+                return reader.read(binaryFile);
+            } catch (AdventureReaderException e) {
+                logger.warn("Ignoring [" + binaryFile + "], reading the XML one", e);
+            }
+        }
+        return new XMLAdventureReader().read(xmlFile);
+    }
+
+    private static File[] binaries(File workspaceFolder)
+    {
+        File[] binaries = workspaceFolder.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name)
+            {
+                return name.startsWith(BINARY_PREFIX) && name.endsWith(BINARY_EXTENSION);
+            }
+        });
+        return binaries == null ? new File[0] : binaries;
+    }
+
+    private static File newestBinary(File workspaceFolder)
+    {
+        File newest = null;
+        for (File f : binaries(workspaceFolder)) {
+            if (newest == null || f.lastModified() > newest.lastModified()) {
+                newest = f;
+            }
+        }
+        return newest;
     }
 
     public void save()
     {
+        write(snapshot());
+    }
+
+    /**
+     * Cheap, only the scenes changed since the last snapshot are copied. To be called by the thread that
+     * changes the adventure, the EDT at the builder.
+     */
+    public AdventureSnapshot snapshot()
+    {
+        lastSnapshot = AdventureSnapshot.of(adventure, lastSnapshot);
+        return lastSnapshot;
+    }
+
+    /**
+     * Any thread can write a snapshot, one at a time. Each file is replaced atomically, a crash leaves the
+     * old one. A snapshot older than the last one written is skipped, so a background save finishing late
+     * doesn't undo a newer one.
+     * 
+     * @return if the snapshot was written.
+     */
+    public synchronized boolean write(AdventureSnapshot snapshot)
+    {
+        if (isOld(snapshot)) {
+            return false;
+        }
         File f = buildAdventureFile();
-        logger.debug("Saving to [" + f + "]");
-        XMLAdventureWriter writter = new XMLAdventureWriter(adventure, f);
-        writter.write();
+        logger.debug("Saving to [" + f + "], " + snapshot.getReused() + " of " + snapshot.getScenes().size() + " scenes unchanged");
+        File xml;
+        try {
+            xml = new XMLAdventureWriter(snapshot, f).write();
+        } catch (RuntimeException e) {
+            // The .adv.xml may be replaced already, the next save goes in full instead of to the journal.
+            lastSaved = null;
+            throw e;
+        }
+        writeBinary(snapshot);
+        // A crash before this leaves a journal of the old .adv.xml, ignored at the load and started again by
+        // the next append.
+        AdventureJournal journal = new AdventureJournal(xml);
+        journal.delete();
+        lastSaved = snapshot;
+        writeManifest(snapshot, xml, journal);
+        return true;
+    }
+
+    /**
+     * Like {@link #write(AdventureSnapshot)}, but only the scenes changed since the last save are appended
+     * to the journal. Writes in full when there is no base yet or the journal got too big.
+     * 
+     * @return if the snapshot was saved.
+     */
+    public synchronized boolean append(AdventureSnapshot snapshot)
+    {
+        if (isOld(snapshot)) {
+            return false;
+        }
+        if (lastSaved == null) {
+            return write(snapshot);
+        }
+        File xml = adventureXMLFile();
+        AdventureJournal journal = new AdventureJournal(xml);
+        if (journal.length() > xml.length() / COMPACT_RATIO) {
+            logger.debug("Compacting [" + journal.getFile() + "], " + journal.length() + " bytes");
+            return write(snapshot);
+        }
+        int records = journal.append(lastSaved, snapshot);
+        logger.debug("Appended " + records + " records to [" + journal.getFile() + "]");
+        lastSaved = snapshot;
+        writeManifest(snapshot, xml, journal);
+        return true;
+    }
+
+    /**
+     * The .adv.bin goes to a new file instead of replacing the last one: a player reading it lazily keeps it
+     * mapped, and on Windows a mapped file can't be replaced nor deleted. The older ones are deleted when
+     * nobody holds them, at this save or at a later one. Only a cache of the .adv.xml, when it can't be
+     * written the older one is left behind the XML and ignored at the load.
+     */
+    private void writeBinary(AdventureSnapshot snapshot)
+    {
+        File binary = null;
+        try {
+            binary = File.createTempFile(BINARY_PREFIX, BINARY_EXTENSION, getWorkspaceHome());
+            new BinaryAdventureWriter(snapshot, binary).write();
+        } catch (IOException e) {
+            logger.warn("Could not create the binary adventure file at [" + getWorkspaceHome() + "]", e);
+            return;
+        } catch (AdventureException e) {
+            logger.warn("Could not write [" + binary + "]", e);
+            binary.delete();
+            return;
+        }
+        for (File older : binaries(getWorkspaceHome())) {
+            if (!older.equals(binary) && !older.delete()) {
+                logger.debug("[" + older + "] still in use, deleted at a later save");
+            }
+        }
+    }
+
+    private void writeManifest(AdventureSnapshot snapshot, File xml, AdventureJournal journal)
+    {
+        new WorkspaceManifest(id, snapshot.getName(), snapshot.getScenes().size(), xml, journal.getFile()).write(getWorkspaceHome());
+    }
+
+    /**
+     * Writes the last snapshot saved in full, if it went to the journal.
+     */
+    public synchronized void compact()
+    {
+        if (lastSaved != null && new AdventureJournal(adventureXMLFile()).length() > 0) {
+            AdventureSnapshot last = lastSaved;
+            lastSaved = null;
+            write(last);
+        }
+    }
+
+    private boolean isOld(AdventureSnapshot snapshot)
+    {
+        return lastSaved != null && snapshot.getSequence() <= lastSaved.getSequence();
+    }
+
+    private File adventureXMLFile()
+    {
+        return new File(getWorkspaceHome(), ADVENTURE_FILE_NAME);
     }
 
     private File adventureFileFrom(String workspaceId)
     {
-        String path = getWorkspacesHome() + sep + workspaceId + sep + "adventure.adv.xml";
+        String path = getWorkspacesHome() + sep + workspaceId + sep + ADVENTURE_FILE_NAME;
         File f = new File(path);
         if (!f.exists()) {
             throw new AdventureException("There's no adventure file at the workspace [" + workspaceId + "]");
@@ -124,40 +349,114 @@ public class Workspace implements EntityPersistedOnFileOpenAction
     }
 
     /**
-     * @return imageId: a UUID string.
+     * The images are named by the SHA-1 of their content, the same image added again is stored only once.
+     * The bytes go from file to file by the channels, without passing through the heap.
+     * 
+     * @return imageId: the hash and the extension of the file.
      */
     public String copy(File imageFile)
     {
         try {
-            InputStream in = new FileInputStream(imageFile);
             String imageId = generateImageId(imageFile);
-            File copyOfImageFile = new File(getImagesHomePath() + sep + imageId);
-            copyOfImageFile.createNewFile();
-
-            byte[] data = new byte[in.available()];
-            in.read(data);
+            File copyOfImageFile = new File(imagePathFrom(imageId));
+            if (copyOfImageFile.exists()) {
+                // Newer than the snapshots being saved now, so their sweep leaves it.
+                copyOfImageFile.setLastModified(System.currentTimeMillis());
+                logger.debug("Image already at [" + copyOfImageFile + "]");
+                return imageId;
+            }
 
-            OutputStream out = new FileOutputStream(copyOfImageFile);
-            out.write(data);
-            out.flush();
-            out.close();
-            in.close();
+            File temp = new File(copyOfImageFile.getPath() + ".tmp");
+            FileChannel in = new FileInputStream(imageFile).getChannel();
+            try {
+                FileChannel out = new FileOutputStream(temp).getChannel();
+                try {
+                    long size = in.size();
+                    for (long position = 0; position < size;) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+            Files.move(temp.toPath(), copyOfImageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
             logger.debug("Saved image file [" + copyOfImageFile + "]");
 
             return imageId;
-        } catch (Exception e) {
+        } catch (IOException e) {
             throw new AdventureException(e);
         }
     }
 
-    private static String generateImageId(File imageFile)
+    static String generateImageId(File imageFile) throws IOException
     {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AdventureException(e);
+        }
+        FileChannel in = new FileInputStream(imageFile).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                sha1.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            in.close();
+        }
+
+        StringBuilder imageId = new StringBuilder(48);
+        for (byte b : sha1.digest()) {
+            imageId.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
         String name = imageFile.getName();
-        int idx = name.length() - 4;
-        String ext = name.substring(idx);
-        String imageId = name.substring(0, idx) + "_" + UUID.randomUUID().toString() + ext;
+        int dot = name.lastIndexOf('.');
+        if (dot != -1) {
+            imageId.append(name.substring(dot).toLowerCase());
+        }
         logger.debug("imageId = " + imageId);
-        return imageId;
+        return imageId.toString();
+    }
+
+    /**
+     * Deletes the images no scene of the snapshot shows, what is left of the images replaced or of the
+     * scenes removed. An image added while the snapshot was saved is not in it yet, so only the images
+     * older than {@link #SWEEP_GRACE_MILLIS} before the snapshot go.
+     * 
+     * @return the images deleted.
+     */
+    public List<File> sweepImages(AdventureSnapshot snapshot)
+    {
+        Set<String> shown = imageIdsOf(snapshot);
+        long before = snapshot.getTime() - SWEEP_GRACE_MILLIS;
+
+        List<File> deleted = new ArrayList<File>();
+        File[] images = new File(getImagesHomePath()).listFiles();
+        for (File f : images == null ? new File[0] : images) {
+            if (f.isFile() && !shown.contains(f.getName()) && f.lastModified() < before && f.delete()) {
+                deleted.add(f);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            logger.debug("Swept " + deleted.size() + " images no scene shows");
+        }
+        return deleted;
+    }
+
+    public static Set<String> imageIdsOf(AdventureSnapshot snapshot)
+    {
+        Set<String> ids = new HashSet<String>();
+        for (SceneSnapshot s : snapshot.getScenes()) {
+            if (s.getImageId() != null) {
+                ids.add(s.getImageId());
+            }
+        }
+        return ids;
     }
 
     private String getImagesHomePath()
@@ -203,17 +502,14 @@ public class Workspace implements EntityPersistedOnFileOpenAction
         return adventure.getName();
     }
 
-    public static List<Workspace> listAll()
+    /**
+     * Without loading them, see {@link WorkspaceManifest}.
+     * 
+     * @return by name.
+     */
+    public static List<WorkspaceManifest> listAll()
     {
-        List<Workspace> ws = new LinkedList<Workspace>();
-        File workspacesHomeFolder = new File(Workspace.getWorkspacesHome());
-        for (File f : workspacesHomeFolder.listFiles()) {
-            if (f.isDirectory() && !f.getName().startsWith("exported")) {
-                logger.debug("Reading [" + f + "]...");
-                ws.add(Workspace.loadFrom(f.getName()));
-            }
-        }
-        return ws;
+        return WorkspaceManifest.listAll(new File(Workspace.getWorkspacesHome()));
     }
 
     @Override
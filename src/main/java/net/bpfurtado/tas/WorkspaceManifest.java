@@ -0,0 +1,278 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.bpfurtado.tas.model.persistence.AtomicFileOutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * What is shown of a workspace before opening it, written next to its adventure at each save so the
+ * workspaces can be listed without reading their adventures.
+ * 
+ * A manifest older than the adventure (saved by a version without manifests, or changed by hand) is not
+ * trusted, the name is then read from the beginning of the .adv.xml.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class WorkspaceManifest
+{
+    private static final Logger logger = Logger.getLogger(WorkspaceManifest.class);
+
+    static final String FILE_NAME = "manifest.xml";
+
+    private static final int MAX_THREADS = 8;
+
+    public static final int UNKNOWN = -1;
+
+    private final String id;
+    private final String name;
+    private final int numberOfScenes;
+    private final long lastModified;
+
+    /**
+     * Of the adventure files the manifest was written for.
+     */
+    private final long adventureLength;
+    private final long journalLength;
+
+    WorkspaceManifest(String id, String name, int numberOfScenes, File adventureFile, File journalFile)
+    {
+        this(id, name, numberOfScenes, Math.max(adventureFile.lastModified(), journalFile.lastModified()), adventureFile.length(), journalFile.length());
+    }
+
+    private WorkspaceManifest(String id, String name, int numberOfScenes, long lastModified, long adventureLength, long journalLength)
+    {
+        this.id = id;
+        this.name = name;
+        this.numberOfScenes = numberOfScenes;
+        this.lastModified = lastModified;
+        this.adventureLength = adventureLength;
+        this.journalLength = journalLength;
+    }
+
+    void write(File workspaceFolder)
+    {
+        Properties p = new Properties();
+        p.setProperty("id", id);
+        p.setProperty("name", name == null ? "" : name);
+        p.setProperty("numberOfScenes", numberOfScenes + "");
+        p.setProperty("lastModified", lastModified + "");
+        p.setProperty("adventureLength", adventureLength + "");
+        p.setProperty("journalLength", journalLength + "");
+
+        AtomicFileOutputStream out = null;
+        try {
+            out = new AtomicFileOutputStream(new File(workspaceFolder, FILE_NAME));
+            p.storeToXML(out, "Text Adventures Suite workspace");
+            out.commit();
+        } catch (IOException e) {
+            logger.warn("Could not write the manifest of [" + workspaceFolder + "]", e);
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * @return null when there is none or it is not of the adventure there now.
+     */
+    static WorkspaceManifest read(File workspaceFolder)
+    {
+        File f = new File(workspaceFolder, FILE_NAME);
+        if (!f.exists()) {
+            return null;
+        }
+        Properties p = new Properties();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(f);
+            p.loadFromXML(in);
+            WorkspaceManifest m = new WorkspaceManifest(p.getProperty("id"), p.getProperty("name"), Integer.parseInt(p.getProperty("numberOfScenes")), Long.parseLong(p.getProperty("lastModified")), Long.parseLong(p.getProperty("adventureLength")), Long.parseLong(p.getProperty("journalLength")));
+            return m.isOf(workspaceFolder) ? m : null;
+        } catch (IOException e) {
+            logger.warn("Ignoring the manifest of [" + workspaceFolder + "]", e);
+            return null;
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring the manifest of [" + workspaceFolder + "]", e);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    private boolean isOf(File workspaceFolder)
+    {
+        File adventureFile = new File(workspaceFolder, Workspace.ADVENTURE_FILE_NAME);
+        File journalFile = new File(workspaceFolder, Workspace.JOURNAL_FILE_NAME);
+        return id.equals(workspaceFolder.getName()) && adventureFile.length() == adventureLength && journalFile.length() == journalLength && Math.max(adventureFile.lastModified(), journalFile.lastModified()) == lastModified;
+    }
+
+    /**
+     * Without a manifest: only the name, read from the start of the .adv.xml.
+     */
+    static WorkspaceManifest scan(File workspaceFolder)
+    {
+        File adventureFile = new File(workspaceFolder, Workspace.ADVENTURE_FILE_NAME);
+        if (!adventureFile.exists()) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(adventureFile));
+            XMLStreamReader xml = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("name")) {
+                        return new WorkspaceManifest(workspaceFolder.getName(), xml.getElementText(), UNKNOWN, adventureFile.lastModified(), adventureFile.length(), UNKNOWN);
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read [" + adventureFile + "]", e);
+        } catch (XMLStreamException e) {
+            logger.warn("Could not read [" + adventureFile + "]", e);
+        } finally {
+            close(in);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the manifests of all the workspaces in parallel, scanning the adventures of the ones without a
+     * good manifest.
+     * 
+     * @return by name.
+     */
+    static List<WorkspaceManifest> listAll(File workspacesHome)
+    {
+        List<Callable<WorkspaceManifest>> reads = new ArrayList<Callable<WorkspaceManifest>>();
+        File[] folders = workspacesHome.listFiles();
+        for (final File f : folders == null ? new File[0] : folders) {
+            if (f.isDirectory() && !f.getName().startsWith("exported")) {
+                reads.add(new Callable<WorkspaceManifest>() {
+                    public WorkspaceManifest call()
+                    {
+                        WorkspaceManifest m = read(f);
+                        return m != null ? m : scan(f);
+                    }
+                });
+            }
+        }
+
+        List<WorkspaceManifest> manifests = new ArrayList<WorkspaceManifest>(reads.size());
+        if (reads.isEmpty()) {
+            return manifests;
+        }
+        ExecutorService readers = Executors.newFixedThreadPool(Math.min(reads.size(), MAX_THREADS));
+        try {
+            for (Future<WorkspaceManifest> read : readers.invokeAll(reads)) {
+                WorkspaceManifest m = read.get();
+                if (m != null) {
+                    manifests.add(m);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdventureException("Interrupted while listing the workspaces", e);
+        } catch (ExecutionException e) {
+            throw new AdventureException("Error listing the workspaces", e.getCause());
+        } finally {
+            readers.shutdown();
+        }
+
+        Collections.sort(manifests, BY_NAME);
+        return manifests;
+    }
+
+    private static final Comparator<WorkspaceManifest> BY_NAME = new Comparator<WorkspaceManifest>() {
+        public int compare(WorkspaceManifest m1, WorkspaceManifest m2)
+        {
+            return String.CASE_INSENSITIVE_ORDER.compare(m1.toString(), m2.toString());
+        }
+    };
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return {@link #UNKNOWN} when read from the adventure.
+     */
+    public int getNumberOfScenes()
+    {
+        return numberOfScenes;
+    }
+
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name == null ? id : name;
+    }
+
+    private static void close(Closeable c)
+    {
+        if (c == null) {
+            return;
+        }
+        try {
+            c.close();
+        } catch (IOException e) {
+            logger.warn("Error closing the manifest", e);
+        }
+    }
+}
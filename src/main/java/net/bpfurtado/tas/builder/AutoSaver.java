@@ -0,0 +1,206 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.builder;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import net.bpfurtado.tas.Workspace;
+import net.bpfurtado.tas.model.persistence.AdventureSnapshot;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Saves the adventure a moment after the last change, with the snapshot taken at the EDT and the files
+ * written out of it. The changes made in a row are coalesced: each one restarts the timer, and when the
+ * writer is busy only the newest snapshot waiting is written. The changes go to the journal of the workspace,
+ * compacted when the builder is closed. The Save of the menu goes through here too, written in full instead of
+ * to the journal. After each save the images no scene shows anymore are swept.
+ * 
+ * @author Bruno Patini Furtado
+ */
+class AutoSaver
+{
+    private static final Logger logger = Logger.getLogger(AutoSaver.class);
+
+    private static final int DELAY_MILLIS = 2000;
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "Adventure autosave");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final Builder builder;
+    private final Timer timer;
+
+    /**
+     * Only touched by the EDT.
+     */
+    private int changes = 0;
+
+    private final AtomicReference<Pending> pending = new AtomicReference<Pending>();
+
+    AutoSaver(Builder builder)
+    {
+        this.builder = builder;
+        this.timer = new Timer(DELAY_MILLIS, new ActionListener() {
+            public void actionPerformed(ActionEvent e)
+            {
+                saveNow();
+            }
+        });
+        timer.setRepeats(false);
+    }
+
+    void changed()
+    {
+        changes++;
+        timer.restart();
+    }
+
+    /**
+     * For when the adventure was saved or closed by other means.
+     */
+    void cancel()
+    {
+        changes++;
+        timer.stop();
+    }
+
+    void saveNow()
+    {
+        save(false);
+    }
+
+    /**
+     * Like {@link #saveNow()}, but the .adv.xml is written in full, compacting the journal.
+     */
+    void saveInFull()
+    {
+        save(true);
+    }
+
+    private void save(boolean full)
+    {
+        timer.stop();
+        Workspace workspace = builder.getWorkspace();
+        if (workspace == null) {
+            return;
+        }
+        builder.saveActualScene();
+
+        AdventureSnapshot snapshot = workspace.snapshot();
+        Pending old;
+        do {
+            old = pending.get();
+            // A save in full waiting keeps it so when a newer snapshot takes its place.
+        } while (!pending.compareAndSet(old, new Pending(workspace, snapshot, changes, full || (old != null && old.full))));
+        writer.execute(new Runnable() {
+            public void run()
+            {
+                write();
+            }
+        });
+    }
+
+    /**
+     * Waits for the saves already requested to be written, for the exit.
+     */
+    void awaitWriter()
+    {
+        try {
+            writer.submit(new Runnable() {
+                public void run()
+                {
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Error waiting for the adventure to be saved", e);
+        }
+    }
+
+    /**
+     * At the writer thread.
+     */
+    private void write()
+    {
+        final Pending p = pending.getAndSet(null);
+        if (p == null) {
+            return; // Written along with an older request.
+        }
+        try {
+            if (!(p.full ? p.workspace.write(p.snapshot) : p.workspace.append(p.snapshot))) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error saving the adventure", e);
+            return;
+        }
+        try {
+            p.workspace.sweepImages(p.snapshot);
+        } catch (RuntimeException e) {
+            logger.warn("Error sweeping the images", e);
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run()
+            {
+                saved(p);
+            }
+        });
+    }
+
+    private void saved(Pending p)
+    {
+        if (p.changes == changes && p.workspace == builder.getWorkspace()) {
+            builder.markAsClean();
+        }
+    }
+
+    private static class Pending
+    {
+        final Workspace workspace;
+        final AdventureSnapshot snapshot;
+        final int changes;
+        final boolean full;
+
+        Pending(Workspace workspace, AdventureSnapshot snapshot, int changes, boolean full)
+        {
+            this.workspace = workspace;
+            this.snapshot = snapshot;
+            this.changes = changes;
+            this.full = full;
+        }
+    }
+}
@@ -40,6 +40,7 @@ import java.awt.event.WindowEvent;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -55,6 +56,7 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
@@ -72,6 +74,7 @@ import net.bpfurtado.tas.Conf;
 import net.bpfurtado.tas.Workspace;
 import net.bpfurtado.tas.builder.combat.BuilderCombatPanelManager;
 import net.bpfurtado.tas.builder.depth.DepthScenesFrame;
+import net.bpfurtado.tas.builder.depth.DepthScenesViewController;
 import net.bpfurtado.tas.builder.export.WorkspaceExporter;
 import net.bpfurtado.tas.builder.scenespanel.ChooseSceneDialog;
 import net.bpfurtado.tas.builder.scenespanel.ScenesList;
@@ -81,8 +84,9 @@ import net.bpfurtado.tas.builder.scenespanel.ScenesSource;
 import net.bpfurtado.tas.builder.scenetype.SceneTypesWidgets;
 import net.bpfurtado.tas.builder.skilltest.SkillTestPanelManager;
 import net.bpfurtado.tas.model.Adventure;
-import net.bpfurtado.tas.model.DepthManager;
+import net.bpfurtado.tas.model.AdventureAnalysis;
 import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Routes;
 import net.bpfurtado.tas.model.Scene;
 import net.bpfurtado.tas.model.SceneType;
 import net.bpfurtado.tas.model.combat.Fighter;
@@ -134,6 +138,8 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
     private JMenuItem saveAsMnIt;
     private JMenuItem playMnIt;
     private JMenuItem playFromCurrentMnIt;
+    private JMenuItem checkMnIt;
+    private JMenuItem routesMnIt;
     private JMenuItem byDepthMnIt;
 
     private int lastSceneListIndex = -1;
@@ -142,12 +148,15 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
 
     private List<PathView> pathViews = new LinkedList<PathView>();
     private List<EntityPersistedOnFileOpenActionListener> openAdventureListeners;
+    private List<DepthScenesViewController> depthViews = new LinkedList<DepthScenesViewController>();
 
     private ScenesList scenesList = null;
     private RecentFilesMenuController recentMenuController;
 
     boolean isDirty = false;
 
+    private AutoSaver autoSaver = new AutoSaver(this);
+
     private SceneTypesWidgets sceneTypesWidgets;
 
     private ImagePanelBuilder imagePanelBuilder;
@@ -188,6 +197,10 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
         saveMnIt.setEnabled(true);
         saveBt.setEnabled(true);
         isDirty = true;
+        autoSaver.changed();
+        for (DepthScenesViewController depthView : depthViews) {
+            depthView.adventureChanged();
+        }
     }
 
     public void markAsClean()
@@ -998,6 +1011,22 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
         });
         playFromCurrentMnIt.setEnabled(false);
 
+        checkMnIt = Util.menuItem("Check the adventure", 'c', KeyEvent.VK_K, "search.gif", testMenu, new ActionListener() {
+            public void actionPerformed(ActionEvent e)
+            {
+                checkAdventureAction();
+            }
+        });
+        checkMnIt.setEnabled(false);
+
+        routesMnIt = Util.menuItem("Routes to the ends", 'o', KeyEvent.VK_E, "tree.gif", testMenu, new ActionListener() {
+            public void actionPerformed(ActionEvent e)
+            {
+                routesAction();
+            }
+        });
+        routesMnIt.setEnabled(false);
+
         adventureMenu.add(new JSeparator());
 
         saveMnIt = Util.menuItem("Save", 'S', KeyEvent.VK_S, "disk.png", adventureMenu, new ActionListener() {
@@ -1078,6 +1107,11 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
                 saveAdventureMenuAction(false);
         }
 
+        autoSaver.cancel();
+        autoSaver.awaitWriter();
+        if (workspace != null) {
+            workspace.compact();
+        }
         Util.exitApplication(this, Conf.builder());
     }
 
@@ -1092,9 +1126,9 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
         }
 
         OpenWorkspaceDialog dialog = new OpenWorkspaceDialog(this);
-        Workspace chosenWorkspace = dialog.getWorkspace();
-        if (chosenWorkspace != null) {
-            open(chosenWorkspace);
+        String chosenWorkspaceId = dialog.getWorkspaceId();
+        if (chosenWorkspaceId != null) {
+            open(Workspace.loadFrom(chosenWorkspaceId));
         }
     }
 
@@ -1105,7 +1139,16 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
             {
                 try {
                     DepthScenesFrame depthScenesFrame = new DepthScenesFrame(Builder.this, adventure, currentScene);
-                    openAdventureListeners.add(depthScenesFrame.getViewController());
+                    final DepthScenesViewController depthView = depthScenesFrame.getViewController();
+                    openAdventureListeners.add(depthView);
+                    depthViews.add(depthView);
+                    depthScenesFrame.addWindowListener(new WindowAdapter() {
+                        public void windowClosed(WindowEvent e)
+                        {
+                            openAdventureListeners.remove(depthView);
+                            depthViews.remove(depthView);
+                        }
+                    });
                 } catch (AdventureReaderException e) {
                     logger.error("Error", e);
                 }
@@ -1113,6 +1156,52 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
         });
     }
 
+    /**
+     * Shows the scenes the player can't get to or gets stuck at, see {@link AdventureAnalysis}.
+     */
+    private void checkAdventureAction()
+    {
+        saveActualScene();
+        JTextArea report = new JTextArea(AdventureAnalysis.of(adventure).toString(), 25, 60);
+        report.setEditable(false);
+        report.setCaretPosition(0);
+        JOptionPane.showMessageDialog(this, new JScrollPane(report), "Check of " + adventure.getName(), JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * The shortest route from the start to each end scene, and the longest one to any of them.
+     */
+    private void routesAction()
+    {
+        Routes routes = Routes.of(adventure);
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Scene, List<Scene>> e : routes.shortestToEachEnd().entrySet()) {
+            text.append(e.getKey().getName()).append(": ").append(e.getValue().size() - 1).append(" paths\n    ");
+            appendRoute(text, e.getValue());
+        }
+        if (text.length() == 0) {
+            text.append("No end scene can be reached from the start.\n");
+        }
+        List<Scene> longest = routes.longestToEnd();
+        if (longest != null) {
+            text.append("\nLongest: ").append(longest.size() - 1).append(" paths\n    ");
+            appendRoute(text, longest);
+        }
+
+        JTextArea report = new JTextArea(text.toString(), 25, 60);
+        report.setEditable(false);
+        report.setCaretPosition(0);
+        JOptionPane.showMessageDialog(this, new JScrollPane(report), "Routes of " + adventure.getName(), JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private static void appendRoute(StringBuilder text, List<Scene> route)
+    {
+        for (int i = 0; i < route.size(); i++) {
+            text.append(i == 0 ? "" : " > ").append(route.get(i).getName());
+        }
+        text.append('\n');
+    }
+
     private void playAdventureAction()
     {
         SwingUtilities.invokeLater(new Runnable() {
@@ -1151,10 +1240,9 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
 
     public void open(Workspace workspace)
     {
+        autoSaver.cancel();
         this.workspace = workspace;
 
-        DepthManager.getInstance().reset();
-
         adventure = workspace.getAdventure();
 
         fireOpenAdventureEvent(workspace);
@@ -1187,15 +1275,10 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
     {
         logger.debug("Saving..."); // 111
 
-        save(currentScene);
-
-        workspace.save();
+        // Written at the autosave thread, marked as clean when done.
+        autoSaver.saveInFull();
 
         updateConfWithLastAdventureFile();
-
-        updateTitle();
-
-        markAsClean();
     }
 
     private void updateConfWithLastAdventureFile()
@@ -1216,6 +1299,7 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
         adventure = new Adventure();
         adventure.setName("Your new Adventure name");
 
+        autoSaver.cancel();
         workspace = Workspace.createWith(adventure);
         updateTitle();
 
@@ -1232,6 +1316,8 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
         playBt.setEnabled(true);
         playFromCurrentBt.setEnabled(true);
         playFromCurrentMnIt.setEnabled(true);
+        checkMnIt.setEnabled(true);
+        routesMnIt.setEnabled(true);
         byDepthMnIt.setEnabled(true);
     }
 
@@ -1350,6 +1436,9 @@ public class Builder extends JFrame implements EntityPersistedOnFileOpenner, Sce
     private void importWorkspaceAction()
     {
         Workspace importedWorkspace = WorkspaceExporter.importWorkspace(this.mainPanel);
+        if (importedWorkspace == null) {
+            return;
+        }
         if (isDirty) {
             int answer = Util.showSaveDialog(this, "Do you want to save it before openning another adventure?");
             if (answer == Util.SAVE_DIALOG_OPT_CANCEL)
@@ -32,7 +32,6 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
 import java.util.List;
 
 import javax.swing.AbstractListModel;
@@ -49,12 +48,13 @@ import javax.swing.SwingUtilities;
 
 import net.bpfurtado.tas.AdventureException;
 import net.bpfurtado.tas.Workspace;
+import net.bpfurtado.tas.WorkspaceManifest;
 import net.bpfurtado.tas.view.Util;
 
 public class OpenWorkspaceDialog extends JDialog
 {
     private static final long serialVersionUID = -6728322169763109479L;
-    private Workspace workspace;
+    private String workspaceId;
 
     public OpenWorkspaceDialog(JFrame parent)
     {
@@ -152,29 +152,31 @@ public class OpenWorkspaceDialog extends JDialog
 
     private void selectedWorkspaceAction(final JList list)
     {
-        WorkspaceHolder holder = (WorkspaceHolder) list.getSelectedValue();
-        OpenWorkspaceDialog.this.workspace = holder.getWorkspace();
+        WorkspaceManifest manifest = (WorkspaceManifest) list.getSelectedValue();
+        if (manifest == null) {
+            return;
+        }
+        OpenWorkspaceDialog.this.workspaceId = manifest.getId();
         dispose();
     }
 
-    public Workspace getWorkspace()
+    /**
+     * @return null when none was chosen, the workspace is for the caller to load.
+     */
+    public String getWorkspaceId()
     {
-        return workspace;
+        return workspaceId;
     }
 
     private static class WorkspacesListModel extends AbstractListModel
     {
         private static final long serialVersionUID = 1L;
 
-        private List<WorkspaceHolder> all;
+        private List<WorkspaceManifest> all;
 
         public WorkspacesListModel()
         {
-            all = new LinkedList<WorkspaceHolder>();
-            List<Workspace> ws = Workspace.listAll();
-            for (Workspace w : ws) {
-                all.add(new WorkspaceHolder(w));
-            }
+            all = Workspace.listAll();
         }
 
         @Override
@@ -190,27 +192,6 @@ public class OpenWorkspaceDialog extends JDialog
         }
     }
 
-    private static class WorkspaceHolder
-    {
-        private Workspace workspace;
-
-        public WorkspaceHolder(Workspace w)
-        {
-            this.workspace = w;
-        }
-
-        @Override
-        public String toString()
-        {
-            return workspace.getAdventure().getName();
-        }
-
-        public Workspace getWorkspace()
-        {
-            return workspace;
-        }
-    }
-
     public static void main(String[] args)
     {
         SwingUtilities.invokeLater(new Runnable() {
@@ -221,8 +202,7 @@ public class OpenWorkspaceDialog extends JDialog
                 f.setBounds(150, 150, 336, 200);
                 f.setVisible(true);
                 OpenWorkspaceDialog dia = new OpenWorkspaceDialog(f);
-                Workspace w = dia.getWorkspace();
-                System.out.println(w.getAdventure().getName());
+                System.out.println(dia.getWorkspaceId());
             }
         });
     }
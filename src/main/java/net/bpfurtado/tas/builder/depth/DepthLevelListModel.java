@@ -0,0 +1,87 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 12/10/2005 11:59:14                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+
+package net.bpfurtado.tas.builder.depth;
+
+import javax.swing.AbstractListModel;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.DepthLevels;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * One level of the {@link DepthLevels}, the scenes only taken when the list shows them.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class DepthLevelListModel extends AbstractListModel<Scene>
+{
+    private static final long serialVersionUID = 2968523217519398217L;
+
+    private final Adventure adventure;
+    private final int level;
+
+    private DepthLevels levels;
+    private int size;
+
+    public DepthLevelListModel(Adventure adventure, int level)
+    {
+        this.adventure = adventure;
+        this.level = level;
+        this.levels = adventure.getDepthLevels();
+        this.size = sizeOf(levels);
+    }
+
+    /**
+     * Takes the levels again, the adventure builds new ones after a link changes, and tells the list.
+     */
+    public void refresh()
+    {
+        levels = adventure.getDepthLevels();
+        int oldSize = size;
+        size = sizeOf(levels);
+        if (size < oldSize) {
+            fireIntervalRemoved(this, size, oldSize - 1);
+        } else if (size > oldSize) {
+            fireIntervalAdded(this, oldSize, size - 1);
+        }
+        if (Math.min(size, oldSize) > 0) {
+            fireContentsChanged(this, 0, Math.min(size, oldSize) - 1);
+        }
+    }
+
+    private int sizeOf(DepthLevels levels)
+    {
+        return level < levels.getNumberOfLevels() ? levels.getNumberOfScenes(level) : 0;
+    }
+
+    public int getSize()
+    {
+        return size;
+    }
+
+    public Scene getElementAt(int index)
+    {
+        return levels.getScene(level, index);
+    }
+}
@@ -42,6 +42,7 @@ public class DepthScenesFrame extends JFrame
     private static final long serialVersionUID = -6765971296929822669L;
 
     private Scene s;
+    private Adventure adventure;
 
     private DepthScenesViewController viewController;
 
@@ -50,6 +51,7 @@ public class DepthScenesFrame extends JFrame
     public DepthScenesFrame(Builder builder, Adventure a, Scene s)
     {
         this.builder = builder;
+        this.adventure = a;
         this.s = s;
         initView();
     }
@@ -61,7 +63,7 @@ public class DepthScenesFrame extends JFrame
 
         createLegendPanel();
 
-        viewController = new DepthScenesViewController(this, s);
+        viewController = new DepthScenesViewController(this, adventure, s);
         add(viewController.getPanel());
 
         setBounds(53, 215, 656, 260);
@@ -30,17 +30,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.EventObject;
 import java.util.LinkedList;
-import java.util.List;
 
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
-import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JList;
 import javax.swing.JPanel;
@@ -52,7 +48,8 @@ import javax.swing.event.ListSelectionListener;
 
 import net.bpfurtado.tas.builder.EntityPersistedOnFileOpenAction;
 import net.bpfurtado.tas.builder.EntityPersistedOnFileOpenActionListener;
-import net.bpfurtado.tas.model.DepthManager;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.DepthLevels;
 import net.bpfurtado.tas.model.IPath;
 import net.bpfurtado.tas.model.Scene;
 import net.bpfurtado.tas.view.Util;
@@ -66,6 +63,11 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
 {
     private static final Logger logger = Logger.getLogger(DepthScenesViewController.class);
 
+    private static final Scene PROTOTYPE_SCENE = new Scene(-1);
+    static {
+        PROTOTYPE_SCENE.setName("A scene with a long name");
+    }
+
     private JPanel panel;
     private JPanel listsPanel;
     private JButton prev = new JButton("Previous", Util.getImage("nav_backward_002.gif"));
@@ -76,6 +78,7 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
 
     private Scene selectedScene;
     private DepthScenesFrame scenesDepthFrame;
+    private Adventure adventure;
 
     private JScrollPane scrollPane;
 
@@ -92,9 +95,10 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
         return (scene.getScenesFrom().isEmpty() ? " [" : " ") + scene.getName() + sufix;
     }
 
-    public DepthScenesViewController(DepthScenesFrame scenesDepthFrame, Scene actualScene)
+    public DepthScenesViewController(DepthScenesFrame scenesDepthFrame, Adventure adventure, Scene actualScene)
     {
         this.scenesDepthFrame = scenesDepthFrame;
+        this.adventure = adventure;
 
         panel = new JPanel(new BorderLayout());
         mountButtonsPanel();
@@ -116,9 +120,9 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
 
     private void mountDepthLists(Scene currentScene)
     {
-        int numLevels = DepthManager.getInstance().getNumberOfDepths();
+        int numLevels = adventure.getDepthLevels().getNumberOfLevels();
 
-        int idx = DepthManager.getInstance().getFirstDepthOfScene(currentScene);
+        int idx = adventure.getFirstDepthOfScene(currentScene);
         idx = idx == -1 ? 0 : idx;
 
         int first = idx - 3 < 0 ? 0 : idx - 3;
@@ -148,7 +152,7 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
             next.setEnabled(false);
             return;
         }
-        if (depthLists.getLast().level + 1 == DepthManager.getInstance().getNumberOfDepths()) {
+        if (depthLists.getLast().level + 1 == adventure.getDepthLevels().getNumberOfLevels()) {
             next.setEnabled(false);
         }
     }
@@ -271,29 +275,23 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
         bar.setValue(to.equals(ScrollTo.last) ? bar.getMaximum() : bar.getMinimum());
     }
 
-    private Collection<Scene> mountListToStart(int depthNumber)
+    private void mountListToStart(int depthNumber)
     {
-        Collection<Scene> nextDepthScenes = DepthManager.getInstance().getScenesFromDepth(depthNumber);
-
         JList list = createList();
-        list.setModel(createOrderedSceneListModel(nextDepthScenes));
+        list.setModel(new DepthLevelListModel(adventure, depthNumber));
         addListToStart(depthNumber, list);
-        return nextDepthScenes;
     }
 
     private void mountListToEnd(int depthNumber, boolean selectScene, Scene sceneToSelect)
     {
-        Collection<Scene> nextDepthScenes = DepthManager.getInstance().getScenesFromDepth(depthNumber);
-
+        DepthLevels levels = adventure.getDepthLevels();
         JList list = createList();
-        list.setModel(createOrderedSceneListModel(nextDepthScenes));
+        list.setModel(new DepthLevelListModel(adventure, depthNumber));
         if (selectScene) {
-            for (int i = 0; i < list.getModel().getSize(); i++) {
-                Scene s = (Scene) list.getModel().getElementAt(i);
-                if (s.equals(sceneToSelect)) {
-                    list.setSelectedIndex(i);
-                    break;
-                }
+            int i = levels.indexOf(depthNumber, sceneToSelect);
+            if (i != -1) {
+                list.setSelectedIndex(i);
+                list.ensureIndexIsVisible(i);
             }
         }
         addListToEnd(depthNumber, list);
@@ -311,23 +309,12 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
         depthLists.add(new ListLevel(level, depthList));
     }
 
-    @SuppressWarnings("unchecked")
-    private DefaultListModel createOrderedSceneListModel(Collection<Scene> origScenes)
-    {
-        DefaultListModel listModel = new DefaultListModel();
-        List<Scene> scenes = new LinkedList<Scene>(origScenes);
-        Collections.sort(scenes);
-
-        for (Scene s : scenes) {
-            listModel.addElement(s);
-        }
-        return listModel;
-    }
-
     private JList createList()
     {
         JList list = new JList();
         list.setCellRenderer(new SceneDepthListCellRender());
+        // The size of the cells from this one, so the list doesn't render all its scenes to measure them.
+        list.setPrototypeCellValue(PROTOTYPE_SCENE);
         list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         list.setLayoutOrientation(JList.VERTICAL);
         list.setMinimumSize(new Dimension(120, 140));
@@ -355,6 +342,16 @@ public class DepthScenesViewController implements EntityPersistedOnFileOpenActio
         return this.panel;
     }
 
+    /**
+     * The depths change with the links, the lists open take them again.
+     */
+    public void adventureChanged()
+    {
+        for (ListLevel listLevel : depthLists) {
+            ((DepthLevelListModel) listLevel.list.getModel()).refresh();
+        }
+    }
+
     protected void listMouseClicked(EventObject e)
     {
         for (ListLevel listLevelTuple : depthLists) {
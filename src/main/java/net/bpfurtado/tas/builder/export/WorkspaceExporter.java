@@ -23,14 +23,26 @@
 package net.bpfurtado.tas.builder.export;
 
 import java.awt.Desktop;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -43,14 +55,33 @@ import org.apache.log4j.Logger;
 
 import net.bpfurtado.tas.AdventureException;
 import net.bpfurtado.tas.Workspace;
+import net.bpfurtado.tas.WorkspaceManifest;
+import net.bpfurtado.tas.model.persistence.AdventureSnapshot;
+import net.bpfurtado.tas.model.persistence.XMLAdventureWriter;
 
+/**
+ * Exports a workspace to a zip with its adventure and its images, and imports it back as a new workspace.
+ * The files are streamed through a small buffer, never read whole. The images already compressed (jpg, png
+ * and gif) are stored as they are, only the rest is deflated. Only the images the scenes show go.
+ * 
+ * Many workspaces are exported at once by {@link #exportAll(List, File)}, each zip made by its own thread.
+ * 
+ * @author Bruno Patini Furtado
+ */
 public class WorkspaceExporter
 {
     public static final String ADV_ZIP_EXTENSION = ".tas-adv.zip";
 
     private static final Logger logger = Logger.getLogger(WorkspaceExporter.class);
 
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd_hhmmss");
+    private static final String TIMESTAMP_FORMAT = "yyyy-MM-dd_HHmmss";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String[] STORED_EXTENSIONS = { ".jpg", ".jpeg", ".png", ".gif" };
+
+    private static final String ADVENTURE_ENTRY = "adventure.adv.xml";
+    private static final String IMAGES_FOLDER = "images";
 
     public static Workspace importWorkspace(JPanel mainPanel)
     {
@@ -69,92 +100,257 @@ public class WorkspaceExporter
                 return f.isDirectory() || n.endsWith(WorkspaceExporter.ADV_ZIP_EXTENSION);
             }
         });
-        fc.showOpenDialog(mainPanel);
-        File advExportedFile = fc.getSelectedFile();
+        if (fc.showOpenDialog(mainPanel) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        return importFrom(fc.getSelectedFile());
+    }
 
+    /**
+     * @return a new workspace with the adventure and the images of the exported one.
+     */
+    public static Workspace importFrom(File advExportedFile)
+    {
         logger.debug(advExportedFile);
 
+        File workspaceFolder = new File(Workspace.getWorkspacesHome() + File.separator + UUID.randomUUID());
+        new File(workspaceFolder, IMAGES_FOLDER).mkdirs();
         try {
-            File workspaceFolder = new File(Workspace.getWorkspacesHome() + File.separator + UUID.randomUUID());
-            workspaceFolder.mkdirs();
-            new File(workspaceFolder.getAbsolutePath() + File.separator + "images").mkdirs();
-
-            byte[] buffer = new byte[4096];
-            ZipInputStream zip = new ZipInputStream(new FileInputStream(advExportedFile));
-            for (ZipEntry ze = zip.getNextEntry(); ze != null; ze = zip.getNextEntry()) {
-                File file = new File(workspaceFolder.getAbsolutePath() + File.separator + ze.getName());
-                file.createNewFile();
-                FileOutputStream out = new FileOutputStream(file);
-
-                logger.debug("Writing file [" + file + "]");
-                int len;
-                while ((len = zip.read(buffer)) > 0) {
-                    logger.debug("Writing " + buffer.length + " bytes...");
-                    out.write(buffer, 0, len);
+            ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(advExportedFile), BUFFER_SIZE));
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (ZipEntry ze = zip.getNextEntry(); ze != null; ze = zip.getNextEntry()) {
+                    File file = fileOf(workspaceFolder, ze.getName());
+                    OutputStream out = new FileOutputStream(file);
+                    try {
+                        long size = copy(zip, out, buffer);
+                        logger.debug("Wrote [" + file + "], " + size + " bytes");
+                    } finally {
+                        out.close();
+                    }
                 }
-                out.close();
+            } finally {
+                zip.close();
             }
-            zip.close();
+        } catch (IOException e) {
+            throw new AdventureException("Error importing [" + advExportedFile + "]", e);
+        }
+        return Workspace.loadFrom(workspaceFolder.getName());
+    }
 
-            Workspace worskpace = Workspace.loadFrom(workspaceFolder.getName());
-            return worskpace;
-        } catch (Exception e) {
-            throw new AdventureException(e);
+    /**
+     * The older exports named the images with the separator of the system that made them.
+     */
+    private static File fileOf(File workspaceFolder, String entryName) throws IOException
+    {
+        File file = new File(workspaceFolder, entryName.replace('\\', '/'));
+        String folder = workspaceFolder.getCanonicalPath() + File.separator;
+        if (!file.getCanonicalPath().startsWith(folder)) {
+            throw new AdventureException("Entry [" + entryName + "] is out of the workspace");
         }
+        file.getParentFile().mkdirs();
+        return file;
     }
 
+    /**
+     * Exports the workspace open at the builder to the exported adventures folder and shows it. To be
+     * called at the EDT.
+     */
     public static void export(Workspace workspace)
     {
+        File exportedFolder = getExportedFolder();
+        export(workspace.getId(), workspace.snapshot(), exportedFolder);
+        try {
+            Desktop.getDesktop().open(exportedFolder);
+        } catch (IOException e) {
+            throw new AdventureException(e);
+        }
+    }
+
+    /**
+     * Exports the workspaces, as they are saved, in parallel.
+     * 
+     * @return the zips, in the order of the ids.
+     */
+    public static List<File> exportAll(List<String> workspaceIds, final File toFolder)
+    {
+        List<Callable<File>> exports = new ArrayList<Callable<File>>(workspaceIds.size());
+        for (final String id : workspaceIds) {
+            exports.add(new Callable<File>() {
+                public File call()
+                {
+                    return export(id, Workspace.loadFrom(id).snapshot(), toFolder);
+                }
+            });
+        }
+
+        List<File> zips = new ArrayList<File>(exports.size());
+        if (exports.isEmpty()) {
+            return zips;
+        }
+        int threads = Math.min(exports.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService exporters = Executors.newFixedThreadPool(threads);
         try {
-            String adventureOriginalName = workspace.getAdventure().getName();
-            String timestamp = sdf.format(new Date());
-            workspace.getAdventure().setName(adventureOriginalName + " {Exported at " + timestamp + "}");
-            workspace.save();
-
-            File exportedFolder = new File(Workspace.getWorkspacesHome() + File.separator + "exportedAdventures");
-            if (!exportedFolder.exists()) {
-                exportedFolder.mkdirs();
+            for (Future<File> export : exporters.invokeAll(exports)) {
+                zips.add(export.get());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdventureException("Interrupted while exporting", e);
+        } catch (ExecutionException e) {
+            throw new AdventureException("Error exporting the workspaces", e.getCause());
+        } finally {
+            exporters.shutdown();
+        }
+        return zips;
+    }
 
-            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(exportedFolder.getAbsolutePath() + File.separator + adventureOriginalName + "_Exported_" + timestamp + ADV_ZIP_EXTENSION));
+    public static File getExportedFolder()
+    {
+        File exportedFolder = new File(Workspace.getWorkspacesHome() + File.separator + "exportedAdventures");
+        if (!exportedFolder.exists()) {
+            exportedFolder.mkdirs();
+        }
+        return exportedFolder;
+    }
 
-            File root = new File(Workspace.getWorkspacesHome() + File.separator + workspace.getId());
-            logger.debug("Root " + root);
-            addZipsFromFolder(out, root, false);
-            addZipsFromFolder(out, new File(root.getAbsolutePath() + File.separator + "images"), true);
-            out.close();
+    /**
+     * The adventure goes with the time of the export in its name, the one at the workspace is left as it
+     * is.
+     */
+    private static File export(String workspaceId, AdventureSnapshot snapshot, File toFolder)
+    {
+        String timestamp = new SimpleDateFormat(TIMESTAMP_FORMAT).format(new Date());
+        File root = new File(Workspace.getWorkspacesHome() + File.separator + workspaceId);
 
-            workspace.getAdventure().setName(adventureOriginalName);
-            workspace.save();
+        File zipFile = null;
+        File adventure = null;
+        try {
+            zipFile = newZipFile(toFolder, snapshot.getName() + "_Exported_" + timestamp);
+            logger.debug("Exporting [" + root + "] to [" + zipFile + "]");
+            adventure = File.createTempFile("exported", ".adv.xml");
+            new XMLAdventureWriter(snapshot.withName(snapshot.getName() + " {Exported at " + timestamp + "}"), adventure).write();
 
-            Desktop.getDesktop().open(exportedFolder);
-        } catch (Exception e) {
-            throw new AdventureException(e);
+            ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile), BUFFER_SIZE));
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                add(out, ADVENTURE_ENTRY, adventure, buffer);
+                // Only the images some scene shows, the rest are left for the sweep of the workspace.
+                File images = new File(root, IMAGES_FOLDER);
+                for (String imageId : new TreeSet<String>(Workspace.imageIdsOf(snapshot))) {
+                    File f = new File(images, imageId);
+                    if (f.isFile()) {
+                        add(out, IMAGES_FOLDER + "/" + imageId, f, buffer);
+                    } else {
+                        logger.warn("Image [" + imageId + "] not found at [" + images + "]");
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            if (zipFile != null) {
+                zipFile.delete();
+            }
+            throw new AdventureException("Error exporting [" + root + "]", e);
+        } finally {
+            if (adventure != null) {
+                adventure.delete();
+            }
         }
+        return zipFile;
     }
 
-    private static void addZipsFromFolder(ZipOutputStream out, File root, boolean createFolder) throws IOException, FileNotFoundException
+    /**
+     * Created here so two exports at the same second, of adventures with the same name, don't write the same
+     * file: the later ones get a number after the name.
+     */
+    private static File newZipFile(File toFolder, String name) throws IOException
     {
+        File f = new File(toFolder, name + ADV_ZIP_EXTENSION);
+        for (int i = 2; !f.createNewFile(); i++) {
+            f = new File(toFolder, name + "_" + i + ADV_ZIP_EXTENSION);
+        }
+        return f;
+    }
 
-        for (File f : root.listFiles()) {
-            if (!f.isDirectory()) {
-                String zipEntryName = f.getName();
-                if (createFolder) {
-                    zipEntryName = root.getName() + File.separator + f.getName();
-                }
-                ZipEntry zipEntry = new ZipEntry(zipEntryName);
-                out.putNextEntry(zipEntry);
+    private static void add(ZipOutputStream out, String entryName, File f, byte[] buffer) throws IOException
+    {
+        ZipEntry entry = new ZipEntry(entryName);
+        entry.setTime(f.lastModified());
+        if (isCompressed(f)) {
+            // Stored entries need their size and CRC up front.
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(f.length());
+            entry.setCompressedSize(f.length());
+            entry.setCrc(crcOf(f, buffer));
+        }
+        out.putNextEntry(entry);
+        InputStream in = new FileInputStream(f);
+        try {
+            copy(in, out, buffer);
+        } finally {
+            in.close();
+        }
+        out.closeEntry();
+        logger.debug("Added [" + entryName + "], " + f.length() + " bytes");
+    }
 
-                FileInputStream input = new FileInputStream(f);
-                int bytesSize = (int) input.getChannel().size();
-                byte[] data = new byte[bytesSize];
-                input.read(data);
-                input.close();
+    private static boolean isCompressed(File f)
+    {
+        String name = f.getName().toLowerCase();
+        for (String extension : STORED_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                out.write(data, 0, bytesSize);
-                out.closeEntry();
+    private static long crcOf(File f, byte[] buffer) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        InputStream in = new FileInputStream(f);
+        try {
+            for (int len = in.read(buffer); len != -1; len = in.read(buffer)) {
+                crc.update(buffer, 0, len);
             }
-            logger.debug(f.getName());
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    private static long copy(InputStream in, OutputStream out, byte[] buffer) throws IOException
+    {
+        long size = 0;
+        for (int len = in.read(buffer); len != -1; len = in.read(buffer)) {
+            out.write(buffer, 0, len);
+            size += len;
+        }
+        return size;
+    }
+
+    /**
+     * WorkspaceExporter [workspace ids...], all of them when none is given.
+     */
+    public static void main(String[] args)
+    {
+        List<String> ids = new ArrayList<String>();
+        for (String id : args) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            for (WorkspaceManifest m : Workspace.listAll()) {
+                ids.add(m.getId());
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        List<File> zips = exportAll(ids, getExportedFolder());
+        for (File zip : zips) {
+            System.out.println(zip);
         }
+        System.out.println(zips.size() + " workspaces exported in " + (System.currentTimeMillis() - start) + " ms");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,410 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.builder.scenespanel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SymbolTable;
+
+/**
+ * Word index of the scenes for the {@link ScenesFilter}. A scene matches when the filter is inside one of
+ * its fields, ignoring the case, and gets the points of each field it is in: id 11, tags 8, name 5, text
+ * and code 3, and 1 for each path.
+ * 
+ * The filter is looked up in the words of the index first, only the scenes that have one of the matching
+ * words are checked against the filter. A scene is indexed again when {@link Scene#getModifications()}
+ * tells it changed since the last search.
+ * 
+ * The scenes are not thread-safe: {@link #read(Collection)} copies the fields of the changed ones on the
+ * thread that changes them, the EDT at the builder, and the search runs over the copies on any thread.
+ * 
+ * The words of the filter starting with # are tags: only the scenes with all of them are ranked, checked
+ * against the tag sets of the scenes, by the rest of the filter or by the tags points when there is no rest.
+ * 
+ * @author Bruno Patini Furtado
+ */
+class SceneSearchIndex
+{
+    private static final int[] POINTS = { 11, 8, 5, 3, 3 };
+    private static final int PATH_POINTS = 1;
+    private static final int TAGS_POINTS = POINTS[1];
+
+    private Map<Scene, Entry> entries = new IdentityHashMap<Scene, Entry>();
+    private Map<String, Set<Entry>> words = new HashMap<String, Set<Entry>>();
+
+    /**
+     * The last copy of each scene, only touched by the thread that changes the scenes.
+     */
+    private Map<Scene, SceneFields> copies = new IdentityHashMap<Scene, SceneFields>();
+
+    /**
+     * Brings the index up to date with the scenes and returns the best ranked ones, at most max of them.
+     * Scenes with the same rank keep the order of the given collection. To be called by the thread that
+     * changes the scenes.
+     * 
+     * @return null when the thread was interrupted, a newer search took its place.
+     */
+    List<SceneRank> search(Collection<Scene> scenes, String filter, int max)
+    {
+        return search(read(scenes), null, filter, max);
+    }
+
+    List<SceneRank> search(Collection<Scene> scenes, SymbolTable symbols, String filter, int max)
+    {
+        return search(read(scenes), symbols, filter, max);
+    }
+
+    /**
+     * What the search needs of the scenes, copied again only for the ones changed since the last call. To be
+     * called by the thread that changes the scenes.
+     */
+    List<SceneFields> read(Collection<Scene> scenes)
+    {
+        List<SceneFields> read = new ArrayList<SceneFields>(scenes.size());
+        for (Scene s : scenes) {
+            SceneFields copy = copies.get(s);
+            if (copy == null || copy.modifications != s.getModifications()) {
+                copy = new SceneFields(s);
+                copies.put(s, copy);
+            }
+            read.add(copy);
+        }
+        if (copies.size() > read.size()) {
+            copies = new IdentityHashMap<Scene, SceneFields>(read.size());
+            for (SceneFields copy : read) {
+                copies.put(copy.scene, copy);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Any thread, over scenes read by {@link #read(Collection)}.
+     * 
+     * @param symbols of the adventure of the scenes, where the tags of the filter are looked up; null for
+     *            no tags.
+     */
+    synchronized List<SceneRank> search(List<SceneFields> scenes, SymbolTable symbols, String filter, int max)
+    {
+        if (!update(scenes)) {
+            return null;
+        }
+
+        int[] tags = SymbolTable.NO_TAGS;
+        String tagNames = symbols == null ? "" : tagsOf(filter);
+        if (tagNames.length() > 0) {
+            tags = symbols.findTags(tagNames);
+            Arrays.sort(tags);
+            if (tags[0] == -1) {
+                return new ArrayList<SceneRank>(); // A tag no scene ever had.
+            }
+            filter = withoutTags(filter);
+        }
+        boolean onlyTags = tags.length > 0 && filter.length() == 0;
+
+        String lowerFilter = filter.toLowerCase();
+        Collection<Entry> candidates = onlyTags ? entries.values() : candidates(lowerFilter);
+        if (candidates == null) {
+            return null;
+        }
+
+        PriorityQueue<Entry> best = new PriorityQueue<Entry>(Math.min(max, candidates.size()) + 1, WORST_FIRST);
+        int checked = 0;
+        for (Entry e : candidates) {
+            if (++checked % 256 == 0 && Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            if (tags.length > 0 && !SymbolTable.containsAll(e.read.tagSet, tags)) {
+                continue;
+            }
+            e.rank = onlyTags ? TAGS_POINTS : e.rank(lowerFilter);
+            if (e.rank == 0) {
+                continue;
+            }
+            best.add(e);
+            if (best.size() > max) {
+                best.poll();
+            }
+        }
+
+        List<SceneRank> ranked = new ArrayList<SceneRank>(best.size());
+        while (!best.isEmpty()) {
+            Entry e = best.poll();
+            ranked.add(new SceneRank(e.read.scene, e.rank));
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    /**
+     * @return the scenes having a word with a piece of the filter, all of them when the filter has no word
+     *         in it; null if interrupted.
+     */
+    private Collection<Entry> candidates(String lowerFilter)
+    {
+        String piece = longestWord(lowerFilter);
+        if (piece.length() == 0) {
+            return entries.values();
+        }
+
+        Set<Entry> candidates = new HashSet<Entry>();
+        int checked = 0;
+        for (Map.Entry<String, Set<Entry>> word : words.entrySet()) {
+            if (++checked % 1024 == 0 && Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            if (word.getKey().indexOf(piece) != -1) {
+                candidates.addAll(word.getValue());
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return if it was not interrupted.
+     */
+    private boolean update(List<SceneFields> scenes)
+    {
+        Set<Scene> present = Collections.newSetFromMap(new IdentityHashMap<Scene, Boolean>());
+        int position = 0;
+        for (SceneFields read : scenes) {
+            if (position % 256 == 0 && Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            present.add(read.scene);
+            Entry e = entries.get(read.scene);
+            if (e == null) {
+                e = new Entry(read);
+                entries.put(read.scene, e);
+                index(e);
+            } else if (e.read != read) {
+                unindex(e);
+                e.read = read;
+                index(e);
+            }
+            e.position = position++;
+        }
+
+        if (present.size() < entries.size()) {
+            List<Entry> removed = new ArrayList<Entry>();
+            for (Entry e : entries.values()) {
+                if (!present.contains(e.read.scene)) {
+                    removed.add(e);
+                }
+            }
+            for (Entry e : removed) {
+                unindex(e);
+                entries.remove(e.read.scene);
+            }
+        }
+        return true;
+    }
+
+    private void index(Entry e)
+    {
+        for (String word : e.words()) {
+            Set<Entry> withWord = words.get(word);
+            if (withWord == null) {
+                withWord = new HashSet<Entry>();
+                words.put(word, withWord);
+            }
+            withWord.add(e);
+        }
+    }
+
+    private void unindex(Entry e)
+    {
+        for (String word : e.words()) {
+            Set<Entry> withWord = words.get(word);
+            if (withWord != null) {
+                withWord.remove(e);
+                if (withWord.isEmpty()) {
+                    words.remove(word);
+                }
+            }
+        }
+    }
+
+    private static String tagsOf(String filter)
+    {
+        StringBuilder tags = new StringBuilder();
+        for (String word : filter.trim().split("\\s+")) {
+            if (word.length() > 1 && word.charAt(0) == '#') {
+                tags.append(word.substring(1)).append(' ');
+            }
+        }
+        return tags.toString().trim();
+    }
+
+    private static String withoutTags(String filter)
+    {
+        StringBuilder rest = new StringBuilder();
+        for (String word : filter.trim().split("\\s+")) {
+            if (!(word.length() > 1 && word.charAt(0) == '#')) {
+                rest.append(word).append(' ');
+            }
+        }
+        return rest.toString().trim();
+    }
+
+    int getNumberOfWords()
+    {
+        return words.size();
+    }
+
+    /**
+     * A field holding the filter holds its longest word too, so any scene with a word containing it is a
+     * candidate.
+     */
+    static String longestWord(String s)
+    {
+        List<String> words = new ArrayList<String>();
+        addWords(s, words);
+
+        String longest = "";
+        for (String word : words) {
+            if (word.length() > longest.length()) {
+                longest = word;
+            }
+        }
+        return longest;
+    }
+
+    private static void addWords(String s, Collection<String> words)
+    {
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean inWord = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (inWord && start == -1) {
+                start = i;
+            } else if (!inWord && start != -1) {
+                words.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    private static final Comparator<Entry> WORST_FIRST = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2)
+        {
+            if (e1.rank != e2.rank) {
+                return e1.rank < e2.rank ? -1 : 1;
+            }
+            return e1.position > e2.position ? -1 : (e1.position == e2.position ? 0 : 1);
+        }
+    };
+
+    /**
+     * A copy of the fields of a scene, never changed after made.
+     */
+    static final class SceneFields
+    {
+        /**
+         * Only its identity, the rest is copied.
+         */
+        private final Scene scene;
+        private final int modifications;
+        private final int[] tagSet;
+
+        /**
+         * Trimmed and in lower case, in the order of POINTS.
+         */
+        private final String[] fields = new String[POINTS.length];
+        private final String[] paths;
+
+        SceneFields(Scene scene)
+        {
+            this.scene = scene;
+            modifications = scene.getModifications();
+            tagSet = scene.getTagSet();
+            fields[0] = scene.getId() + "";
+            fields[1] = lower(scene.getTags());
+            fields[2] = lower(scene.getName());
+            fields[3] = lower(scene.getText());
+            fields[4] = lower(scene.getCode());
+
+            List<IPath> scenePaths = scene.getPaths();
+            paths = new String[scenePaths.size()];
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = lower(scenePaths.get(i).getText());
+            }
+        }
+
+        private static String lower(String s)
+        {
+            return s == null ? "" : s.trim().toLowerCase();
+        }
+    }
+
+    private static class Entry
+    {
+        private SceneFields read;
+        private int position;
+        private int rank;
+
+        Entry(SceneFields read)
+        {
+            this.read = read;
+        }
+
+        int rank(String lowerFilter)
+        {
+            int points = 0;
+            String[] fields = read.fields;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].indexOf(lowerFilter) != -1) {
+                    points += POINTS[i];
+                }
+            }
+            for (String p : read.paths) {
+                if (p.indexOf(lowerFilter) != -1) {
+                    points += PATH_POINTS;
+                }
+            }
+            return points;
+        }
+
+        Set<String> words()
+        {
+            Set<String> words = new HashSet<String>();
+            for (String f : read.fields) {
+                addWords(f, words);
+            }
+            for (String p : read.paths) {
+                addWords(p, words);
+            }
+            return words;
+        }
+    }
+}
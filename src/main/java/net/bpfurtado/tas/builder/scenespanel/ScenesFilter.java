@@ -24,9 +24,11 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -36,10 +38,11 @@ import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.ListCellRenderer;
+import javax.swing.SwingUtilities;
+import javax.swing.border.TitledBorder;
 
 import net.bpfurtado.tas.builder.scenespanel.ScenesListController.SortBy;
-import net.bpfurtado.tas.model.IPath;
-import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SymbolTable;
 import net.bpfurtado.tas.view.Util;
 
 import org.apache.log4j.Logger;
@@ -48,7 +51,35 @@ public class ScenesFilter extends SceneListBase implements ScenesListControllerL
 {
     private static Logger logger = Logger.getLogger(ScenesFilter.class);
 
+    /**
+     * Shown at most, the title of the list tells when more scenes matched.
+     */
+    private static final int MAX_RESULTS = 100;
+
+    private static final String TITLE = "Filtered scenes";
+
+    /**
+     * The searches run here, out of the EDT, one at a time.
+     */
+    private static final ExecutorService searcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "Scenes search");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private SceneSearchIndex index = new SceneSearchIndex();
+
+    /**
+     * Only touched by the EDT.
+     */
+    private Future<?> lastSearch;
+    private int searches = 0;
+
     private JPanel panel;
+    private TitledBorder border;
 
     private ScenesSource scenesSource;
 
@@ -72,7 +103,8 @@ public class ScenesFilter extends SceneListBase implements ScenesListControllerL
         list.setCellRenderer(new FilteredScenesListCellRenderer());
 
         JScrollPane scrollPane = new JScrollPane(list);
-        scrollPane.setBorder(BorderFactory.createTitledBorder("Filtered scenes"));
+        border = BorderFactory.createTitledBorder(TITLE);
+        scrollPane.setBorder(border);
         scrollPane.setMinimumSize(ScenesListController.INTERNAL_LIST_DIMENSION);
         scrollPane.setPreferredSize(ScenesListController.INTERNAL_LIST_DIMENSION);
         panel.add(scrollPane);
@@ -116,44 +148,62 @@ public class ScenesFilter extends SceneListBase implements ScenesListControllerL
         }
     }
 
-    private void rankScenes(String filter)
+    /**
+     * Searches out of the EDT, a newer keystroke cancels the search still running and the results of an old
+     * search are never shown.
+     */
+    private void rankScenes(final String filter)
     {
-        List<SceneRank> ranked = new LinkedList<SceneRank>();
-        for (Scene scene : scenesSource.getScenes()) {
-            SceneRank sceneRank = new SceneRank();
-            applyFirstRankRules(filter, scene, sceneRank);
-            for (IPath p : scene.getPaths()) {
-                rankRule(filter, sceneRank, p.getText(), 1);
-            }
-            if (sceneRank.getRank() > 0) {
-                sceneRank.setScene(scene);
-                ranked.add(sceneRank);
-            }
+        if (lastSearch != null) {
+            lastSearch.cancel(true);
         }
-        Collections.sort(ranked);
+        final int search = ++searches;
+        // Copied here, the scenes change on the EDT.
+        final List<SceneSearchIndex.SceneFields> scenes = index.read(scenesSource.getScenes());
+        final SymbolTable symbols = scenesSource.getAdventure().getSymbols();
+
+        lastSearch = searcher.submit(new Runnable() {
+            public void run()
+            {
+                final List<SceneRank> ranked;
+                try {
+                    // One more to know if there are others.
+                    ranked = index.search(scenes, symbols, filter, MAX_RESULTS + 1);
+                } catch (RuntimeException e) {
+                    // The future is never asked for its result, it would hide this.
+                    logger.error("Error searching for [" + filter + "]", e);
+                    return;
+                }
+                if (ranked == null) {
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run()
+                    {
+                        if (search == searches) {
+                            show(ranked);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void show(List<SceneRank> ranked)
+    {
         logger.debug(ranked);
 
+        boolean cut = ranked.size() > MAX_RESULTS;
+        if (cut) {
+            ranked = ranked.subList(0, MAX_RESULTS);
+        }
         DefaultListModel model = (DefaultListModel) list.getModel();
         model.clear();
         for (SceneRank sr : ranked) {
             model.addElement(sr);
         }
-    }
-
-    private void applyFirstRankRules(String filter, Scene s, SceneRank sceneRank)
-    {
-        rankRule(filter, sceneRank, s.getId() + "", 11);
-        rankRule(filter, sceneRank, s.getTags(), 8);
-        rankRule(filter, sceneRank, s.getName(), 5);
-        rankRule(filter, sceneRank, s.getText(), 3);
-        rankRule(filter, sceneRank, s.getCode(), 3);
-    }
-
-    private void rankRule(String filter, SceneRank sceneRank, String text, int rankPoints)
-    {
-        if (text.trim().toLowerCase().indexOf(filter.toLowerCase()) != -1) {
-            sceneRank.setRank(sceneRank.getRank() + rankPoints);
-        }
+        border.setTitle(cut ? TITLE + " (the best " + MAX_RESULTS + ", more matched)" : TITLE);
+        panel.repaint();
     }
 
     public void sort(SortBy by)
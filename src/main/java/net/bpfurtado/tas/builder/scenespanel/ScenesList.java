@@ -39,6 +39,7 @@ import javax.swing.JButton;
 import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
 
 import net.bpfurtado.tas.builder.Builder;
 import net.bpfurtado.tas.builder.scenespanel.ScenesListController.SortBy;
@@ -61,6 +62,9 @@ public class ScenesList extends SceneListBase
     private Builder builder;
     private SortBy sortBy = SortBy.Name;
 
+    private SortedScenesModel sortedModel = new SortedScenesModel(sortBy);
+    private Scene renderedStart;
+
     private boolean displayAddNewAndDeleteButtons;
 
     public ScenesList(Builder builder, boolean showButtonsPane)
@@ -70,18 +74,28 @@ public class ScenesList extends SceneListBase
 
         this.displayAddNewAndDeleteButtons = showButtonsPane;
         initView(showButtonsPane);
+        if (showButtonsPane) {
+            // Ctrl and shift select more scenes for the delete button, the chooser picks only one.
+            list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        }
     }
 
     void keepRightSelectionOnSceneList()
     {
-        for (int i = 0; i < list.getModel().getSize(); i++) {
-            Scene s = (Scene) list.getModel().getElementAt(i);
-            if (builder.getCurrentScene().equals(s)) {
-                list.setSelectedIndex(i);
-                list.ensureIndexIsVisible(i);
-                break;
+        int i = displayAddNewAndDeleteButtons ? sortedModel.indexOf(builder.getCurrentScene()) : -1;
+        if (i == -1) {
+            for (int j = 0; j < list.getModel().getSize(); j++) {
+                if (builder.getCurrentScene().equals(list.getModel().getElementAt(j))) {
+                    i = j;
+                    break;
+                }
             }
         }
+        // Left as it is while it holds the current scene, it may be a selection of many to delete.
+        if (i != -1 && !list.isSelectedIndex(i)) {
+            list.setSelectedIndex(i);
+            list.ensureIndexIsVisible(i);
+        }
     }
 
     /**
@@ -92,24 +106,29 @@ public class ScenesList extends SceneListBase
      *
      * So after this instance contruction you have to manually call this method to properly graphical
      * render.
+     *
+     * The sorted scenes are kept between the calls, only the scenes added, removed or renamed since the last
+     * one move in the list.
      */
     @SuppressWarnings("unchecked")
     public void updateView()
     {
-        DefaultListModel listModel = new DefaultListModel();
-
         if (displayAddNewAndDeleteButtons) {
-            List<Scene> scenes = new LinkedList<Scene>(builder.getAdventure().getScenes());
-            Collections.sort(scenes, sortBy.getComparator());
-
-            for (Scene s : scenes) {
-                listModel.addElement(s);
+            sortedModel.update(builder.getAdventure().getScenes());
+            if (list.getModel() != sortedModel) {
+                list.setModel(sortedModel);
+            }
+            if (builder.getAdventure().getStart() != renderedStart) {
+                renderedStart = builder.getAdventure().getStart();
+                list.setCellRenderer(new SceneCellRenderer(renderedStart));
             }
-
-            list.setCellRenderer(new SceneCellRenderer(builder.getAdventure().getStart()));
 
             removeSceneBt.setEnabled(!builder.getCurrentScene().equals(builder.getAdventure().getStart()));
+            keepRightSelectionOnSceneList();
+            // The type and the start of the scenes are painted too, they don't move them in the list.
+            list.repaint();
         } else {
+            DefaultListModel listModel = new DefaultListModel();
             List<Scene> forbiddenScenes = new LinkedList<Scene>();
             for (IPath p : builder.getCurrentScene().getPaths()) {
                 if (p.getTo() != null)
@@ -122,12 +141,7 @@ public class ScenesList extends SceneListBase
                     listModel.addElement(s);
             }
             list.setCellRenderer(new SceneCellRenderer());
-        }
-
-        list.setModel(listModel);
-
-        if (displayAddNewAndDeleteButtons) {
-            keepRightSelectionOnSceneList();
+            list.setModel(listModel);
         }
     }
 
@@ -137,6 +151,7 @@ public class ScenesList extends SceneListBase
      */
     public void prepareView(Scene start)
     {
+        renderedStart = start;
         list.setCellRenderer(new SceneCellRenderer(start));
     }
 
@@ -202,8 +217,13 @@ public class ScenesList extends SceneListBase
 
     private void removeSceneBtAction()
     {
-        Scene toRemove = (Scene) list.getSelectedValue();
-        logger.debug(toRemove.getName());
+        List<Scene> toRemove = new LinkedList<Scene>();
+        for (Object selected : list.getSelectedValuesList()) {
+            if (selected != builder.getAdventure().getStart()) {
+                toRemove.add((Scene) selected);
+            }
+        }
+        logger.debug(toRemove);
         builder.getAdventure().remove(toRemove);
         builder.switchTo(builder.getAdventure().getStart());
         builder.markAsDirty();
@@ -218,7 +238,8 @@ public class ScenesList extends SceneListBase
 
     void scenesListMouseClicked()
     {
-        if (displayAddNewAndDeleteButtons) {
+        // Only a click on a single scene goes to it, not the ones selecting more.
+        if (displayAddNewAndDeleteButtons && list.getMinSelectionIndex() != -1 && list.getMinSelectionIndex() == list.getMaxSelectionIndex()) {
             Scene selectedScene = (Scene) list.getModel().getElementAt(list.getSelectedIndex());
             builder.switchTo(selectedScene, list.getSelectedIndex());
         }
@@ -248,16 +269,21 @@ public class ScenesList extends SceneListBase
     {
         sortBy = criterion;
 
-        List<Scene> sortedScenes = new LinkedList<Scene>();
-        for (int i = 0; i < list.getModel().getSize(); i++) {
-            sortedScenes.add((Scene) list.getModel().getElementAt(i));
-        }
-        Collections.sort((List<Scene>) sortedScenes, sortBy.getComparator());
-        DefaultListModel sortedModel = new DefaultListModel();
-        for (Scene s : sortedScenes) {
-            sortedModel.addElement(s);
+        sortedModel.sort(sortBy);
+        if (displayAddNewAndDeleteButtons) {
+            keepRightSelectionOnSceneList();
+        } else {
+            List<Scene> sortedScenes = new LinkedList<Scene>();
+            for (int i = 0; i < list.getModel().getSize(); i++) {
+                sortedScenes.add((Scene) list.getModel().getElementAt(i));
+            }
+            Collections.sort(sortedScenes, sortBy.getComparator());
+            DefaultListModel filteredModel = new DefaultListModel();
+            for (Scene s : sortedScenes) {
+                filteredModel.addElement(s);
+            }
+            list.setModel(filteredModel);
         }
-        list.setModel(sortedModel);
 
         list.setVisible(true);
     }
@@ -225,7 +225,8 @@ public class ScenesListController implements FilterScenesFieldsHolder
                 return new Comparator<Scene>() {
                     public int compare(Scene o1, Scene o2)
                     {
-                        return o1.getName().compareTo(o2.getName());
+                        // Numbers as numbers, parsed by the scene when named.
+                        return o1.compareTo(o2);
                     }
                 };
             }
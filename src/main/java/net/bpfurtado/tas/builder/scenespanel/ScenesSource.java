@@ -22,10 +22,13 @@ package net.bpfurtado.tas.builder.scenespanel;
 
 import java.util.Collection;
 
+import net.bpfurtado.tas.model.Adventure;
 import net.bpfurtado.tas.model.Scene;
 
 public interface ScenesSource
 {
+    Adventure getAdventure();
+
     Collection<Scene> getScenes();
 
     void switchTo(Scene selectedScene, int selectedSceneIdx);
@@ -0,0 +1,223 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.builder.scenespanel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.AbstractListModel;
+
+import net.bpfurtado.tas.builder.scenespanel.ScenesListController.SortBy;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * The scenes of the {@link ScenesList}, kept sorted between the updates of the view. Each update compares
+ * the scenes of the adventure with the rows: the new scenes are inserted, the removed ones taken out and the
+ * renamed ones moved, each by a binary search and its own list event, instead of sorting all the rows
+ * again. When too many scenes changed at once, like when another adventure is opened, the rows are sorted
+ * from scratch.
+ * 
+ * @author Bruno Patini Furtado
+ */
+@SuppressWarnings("serial")
+class SortedScenesModel extends AbstractListModel<Scene>
+{
+    /**
+     * More than one changed scene in this many sorts all the rows again.
+     */
+    private static final int RESORT_RATIO = 16;
+
+    private List<Scene> rows = new ArrayList<Scene>();
+
+    /**
+     * The name each scene was sorted by, to find the renamed ones.
+     */
+    private Map<Scene, Row> placed = new IdentityHashMap<Scene, Row>();
+
+    private Comparator<Scene> order;
+
+    private int updates;
+
+    private static class Row
+    {
+        String name;
+        int seen;
+
+        Row(String name, int seen)
+        {
+            this.name = name;
+            this.seen = seen;
+        }
+    }
+
+    SortedScenesModel(SortBy sortBy)
+    {
+        order = order(sortBy);
+    }
+
+    /**
+     * The order of the criterion, the ties broken by the id so each scene has a single place.
+     */
+    private static Comparator<Scene> order(SortBy sortBy)
+    {
+        final Comparator<Scene> criterion = sortBy.getComparator();
+        return new Comparator<Scene>() {
+            public int compare(Scene o1, Scene o2)
+            {
+                int c = criterion.compare(o1, o2);
+                return c != 0 ? c : o1.getId() - o2.getId();
+            }
+        };
+    }
+
+    public int getSize()
+    {
+        return rows.size();
+    }
+
+    public Scene getElementAt(int index)
+    {
+        return rows.get(index);
+    }
+
+    void sort(SortBy sortBy)
+    {
+        order = order(sortBy);
+        Collections.sort(rows, order);
+        if (!rows.isEmpty()) {
+            fireContentsChanged(this, 0, rows.size() - 1);
+        }
+    }
+
+    /**
+     * Brings the rows to the scenes given.
+     */
+    void update(Collection<Scene> scenes)
+    {
+        updates++;
+        List<Scene> added = new ArrayList<Scene>();
+        List<Scene> renamed = new ArrayList<Scene>();
+        for (Scene s : scenes) {
+            Row row = placed.get(s);
+            if (row == null) {
+                added.add(s);
+            } else {
+                row.seen = updates;
+                if (!sameName(row.name, s.getName())) {
+                    renamed.add(s);
+                }
+            }
+        }
+        List<Scene> removed = new ArrayList<Scene>();
+        if (placed.size() + added.size() != scenes.size()) {
+            for (Map.Entry<Scene, Row> e : placed.entrySet()) {
+                if (e.getValue().seen != updates) {
+                    removed.add(e.getKey());
+                }
+            }
+        }
+
+        if (added.size() + renamed.size() + removed.size() > rows.size() / RESORT_RATIO + 1) {
+            resort(scenes);
+            return;
+        }
+        for (Scene s : removed) {
+            remove(s);
+        }
+        for (Scene s : renamed) {
+            remove(s);
+            insert(s);
+        }
+        for (Scene s : added) {
+            insert(s);
+        }
+    }
+
+    private static boolean sameName(String placedName, String name)
+    {
+        return placedName == null ? name == null : placedName.equals(name);
+    }
+
+    private void resort(Collection<Scene> scenes)
+    {
+        int oldSize = rows.size();
+        rows = new ArrayList<Scene>(scenes);
+        Collections.sort(rows, order);
+        placed.clear();
+        for (Scene s : rows) {
+            placed.put(s, new Row(s.getName(), updates));
+        }
+
+        if (oldSize > rows.size()) {
+            fireIntervalRemoved(this, rows.size(), oldSize - 1);
+        } else if (oldSize < rows.size()) {
+            fireIntervalAdded(this, oldSize, rows.size() - 1);
+        }
+        if (!rows.isEmpty()) {
+            fireContentsChanged(this, 0, rows.size() - 1);
+        }
+    }
+
+    private void remove(Scene s)
+    {
+        int i = indexOf(s);
+        rows.remove(i);
+        placed.remove(s);
+        fireIntervalRemoved(this, i, i);
+    }
+
+    private void insert(Scene s)
+    {
+        int i = -Collections.binarySearch(rows, s, order) - 1;
+        rows.add(i, s);
+        placed.put(s, new Row(s.getName(), updates));
+        fireIntervalAdded(this, i, i);
+    }
+
+    /**
+     * @return -1 when the scene is not in the rows.
+     */
+    int indexOf(Scene s)
+    {
+        Row row = placed.get(s);
+        if (row == null) {
+            return -1;
+        }
+        if (sameName(row.name, s.getName())) {
+            int i = Collections.binarySearch(rows, s, order);
+            if (i >= 0 && rows.get(i) == s) {
+                return i;
+            }
+        }
+        // Renamed since it was placed, the order of the rows does not tell where it is.
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) == s) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
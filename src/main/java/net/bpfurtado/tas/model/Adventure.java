@@ -22,14 +22,13 @@
 
 package net.bpfurtado.tas.model;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import net.bpfurtado.tas.AdventureException;
+import net.bpfurtado.tas.runner.SceneScripts;
 
 import org.apache.log4j.Logger;
 
@@ -40,17 +39,45 @@ public class Adventure
 {
     private static final Logger logger = Logger.getLogger(Adventure.class);
 
+    /**
+     * Removing more than one scene in this many rebuilds the depth index.
+     */
+    private static final int REBUILD_INDEX_RATIO = 64;
+
+    /**
+     * The highest id a scene brought from a file can have. The scenes and the depth indexes are arrays by
+     * id, a bigger one would only come from a broken or hand edited file.
+     */
+    public static final int MAX_SCENE_ID = (1 << 22) - 1;
+
     private String name;
 
     private Scene start;
-    private Map<Integer, Scene> scenes = new HashMap<Integer, Scene>();
+
+    /**
+     * By id, the ids are given by this adventure so they are dense and the holes are few.
+     */
+    private Scene[] scenes = new Scene[64];
+    private int numberOfScenes = 0;
 
     private String assertions;
 
     private int scenesIdCounter = 1;
 
+    private DepthManager depthManager = new DepthManager();
+
+    private SceneScripts scripts = new SceneScripts();
+
+    private SymbolTable symbols = new SymbolTable();
+
+    private DepthLevels depthLevels;
+    private int depthLevelsGraphChanges;
+    private int depthLevelsRenames;
+
     public Adventure()
     {
+        depthManager.setEnds(new EndDistanceIndex(this));
+
         start = createScene(0, false);
         start.setName("Start");
         start.setTags("Start");
@@ -58,15 +85,13 @@ public class Adventure
         start.setCode("//Code is not executed in the Start scene.");
         start.setIsStart();
 
-        DepthManager.getInstance().setStart(start);
-
-        addScene(start);
+        depthManager.setStart(start);
     }
 
     public Scene createScene()
     {
         Scene s = new Scene(scenesIdCounter++);
-        scenes.put(s.getId(), s);
+        addScene(s);
         return s;
     }
 
@@ -95,7 +120,7 @@ public class Adventure
         orig.setText(leftText);
         logger.debug("orig.getText()=" + orig.getText() + "]");
 
-        for (IPath p : orig.getPaths()) {
+        for (IPath p : new ArrayList<IPath>(orig.getPaths())) {
             IPath newPath = newScene.createPath(p.getText());
             newPath.setTo(p.getTo());
             orig.remove(p);
@@ -123,15 +148,52 @@ public class Adventure
 
     public void addScene(Scene scene)
     {
-        scenes.put(scene.getId(), scene);
+        scene.setDepthManager(depthManager);
+        scene.setScripts(scripts);
+        scene.setSymbols(symbols);
+
+        int id = scene.getId();
+        if (id >= scenes.length) {
+            Scene[] grown = new Scene[Math.max(id + 1, scenes.length * 2)];
+            System.arraycopy(scenes, 0, grown, 0, scenes.length);
+            scenes = grown;
+        }
+        if (scenes[id] == null) {
+            numberOfScenes++;
+        }
+        scenes[id] = scene;
+        if (scene.isEnd()) {
+            depthManager.endsChanged();
+        }
+    }
+
+    /**
+     * @return greater than the id of every scene.
+     */
+    int getScenesIdLimit()
+    {
+        return scenes.length;
     }
 
     /**
      * FIXME rename to cloneScenesList
+     * 
+     * @return a new list, by id.
      */
     public List<Scene> getScenes()
     {
-        return new LinkedList<Scene>(this.scenes.values());
+        List<Scene> list = new ArrayList<Scene>(numberOfScenes);
+        for (Scene s : scenes) {
+            if (s != null) {
+                list.add(s);
+            }
+        }
+        return list;
+    }
+
+    public int getNumberOfScenes()
+    {
+        return numberOfScenes;
     }
 
     public void remove(Scene sceneToRemove)
@@ -139,21 +201,62 @@ public class Adventure
         if (sceneToRemove.equals(start)) {
             throw new AdventureException("Cannot remove the start scene");
         }
+        drop(sceneToRemove);
+    }
 
+    /**
+     * Removes the scenes in one pass. When they are many the depth index is rebuilt once at the end instead
+     * of being updated after each unlinked path.
+     */
+    public void remove(Collection<Scene> scenesToRemove)
+    {
+        if (scenesToRemove.contains(start)) {
+            throw new AdventureException("Cannot remove the start scene");
+        }
+
+        // Rebuilding is linear on the whole adventure, updating is cheap for a few scattered scenes.
+        if (scenesToRemove.size() <= numberOfScenes / REBUILD_INDEX_RATIO) {
+            for (Scene s : scenesToRemove) {
+                drop(s);
+            }
+            return;
+        }
+
+        startBulkLinking();
+        try {
+            for (Scene s : scenesToRemove) {
+                drop(s);
+            }
+        } finally {
+            endBulkLinking();
+        }
+    }
+
+    private void drop(Scene sceneToRemove)
+    {
         // Retirando a cena dos caminhos que levam a esta cena.
-        for (Scene from : sceneToRemove.getScenesFrom()) {
+        for (Scene from : new ArrayList<Scene>(sceneToRemove.getScenesFrom())) {
             from.remove(sceneToRemove);
         }
-
-        sceneToRemove.getScenesFrom().clear();
         sceneToRemove.removeAllPaths();
 
-        scenes.remove(sceneToRemove.getId());
+        int id = sceneToRemove.getId();
+        if (id < scenes.length && scenes[id] == sceneToRemove) {
+            scenes[id] = null;
+            numberOfScenes--;
+        }
+        if (sceneToRemove.isEnd()) {
+            depthManager.endsChanged();
+        }
+        scripts.evict(sceneToRemove);
     }
 
     public Scene getScene(int id)
     {
-        return scenes.get(id);
+        if (id < 0 || id >= scenes.length) {
+            return null;
+        }
+        return scenes[id];
     }
 
     public String getName()
@@ -173,17 +276,75 @@ public class Adventure
 
     public Collection<Scene> getScenesFromDepth(int i)
     {
-        return Collections.unmodifiableCollection(DepthManager.getInstance().getScenesFromDepth(i));
+        return Collections.unmodifiableCollection(depthManager.getScenesFromDepth(i));
     }
 
     public int getNumberOfScenesFromDepth(int i)
     {
-        return DepthManager.getInstance().getNumberOfScenesFromDepth(i);
+        return depthManager.getNumberOfScenesFromDepth(i);
     }
 
     public int getNumberOfDepths()
     {
-        return DepthManager.getInstance().getNumberOfDepths();
+        return depthManager.getNumberOfDepths();
+    }
+
+    /**
+     * @return -1 when the scene can't be reached from the start scene.
+     */
+    public int getFirstDepthOfScene(Scene s)
+    {
+        return depthManager.getFirstDepthOfScene(s);
+    }
+
+    /**
+     * @return the fewest paths from the scene to an end scene, -1 when there is no way to one.
+     */
+    public int getDistanceToEnd(Scene s)
+    {
+        return depthManager.getDistanceToEnd(s);
+    }
+
+    /**
+     * Kept while the paths don't change, the levels sorted again when some scene was renamed.
+     */
+    public DepthLevels getDepthLevels()
+    {
+        if (depthLevels == null || depthLevelsGraphChanges != depthManager.getGraphChanges()) {
+            depthLevels = new DepthLevels(this);
+            depthLevelsGraphChanges = depthManager.getGraphChanges();
+            depthLevelsRenames = depthManager.getRenames();
+        } else if (depthLevelsRenames != depthManager.getRenames()) {
+            depthLevels.unsort();
+            depthLevelsRenames = depthManager.getRenames();
+        }
+        return depthLevels;
+    }
+
+    /**
+     * To be called before linking many paths at once, the depth index is rebuilt at {@link #endBulkLinking()}.
+     */
+    public void startBulkLinking()
+    {
+        depthManager.suspendIndex();
+    }
+
+    public void endBulkLinking()
+    {
+        depthManager.resumeIndex();
+    }
+
+    /**
+     * Where the loaders keep the strings repeated along the adventure, and the tags of the scenes are.
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    public SceneScripts getScripts()
+    {
+        return scripts;
     }
 
     public String getAssertions()
@@ -194,5 +355,6 @@ public class Adventure
     public void setAssertions(String assertions)
     {
         this.assertions = assertions;
+        scripts.evictAssertions();
     }
 }
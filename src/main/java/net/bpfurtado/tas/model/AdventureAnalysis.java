@@ -0,0 +1,332 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What is wrong with the graph of an adventure: the scenes the player can't get to, the scenes no path leads
+ * to, the paths leading nowhere, the scenes the player gets stuck at and the loops with no way out.
+ * 
+ * Everything is found at once, in time linear on the scenes and paths: the graph is copied to arrays indexed
+ * by the position of the scene, then walked by a BFS from the start scene and by Tarjan's strongly connected
+ * components, both without recursion.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class AdventureAnalysis
+{
+    private static final int NOT_VISITED = -1;
+
+    /**
+     * The scenes shown by {@link #toString()} in each list.
+     */
+    private static final int MAX_LISTED = 50;
+
+    private final List<Scene> unreachable = new ArrayList<Scene>();
+    private final List<Scene> orphans = new ArrayList<Scene>();
+    private final List<IPath> pathsToNowhere = new ArrayList<IPath>();
+    private final List<Scene> deadEnds = new ArrayList<Scene>();
+    private final List<List<Scene>> traps = new ArrayList<List<Scene>>();
+
+    private int numberOfScenes;
+    private int numberOfComponents;
+
+    private Scene[] scenes;
+
+    /**
+     * The paths of the scene at <code>i</code> lead to the scenes at <code>targets[offsets[i]]</code> up to
+     * <code>targets[offsets[i + 1] - 1]</code>, the paths leading nowhere left out.
+     */
+    private int[] offsets;
+    private int[] targets;
+
+    public static AdventureAnalysis of(Adventure adventure)
+    {
+        return new AdventureAnalysis(adventure);
+    }
+
+    private AdventureAnalysis(Adventure adventure)
+    {
+        List<Scene> byId = adventure.getScenes();
+        numberOfScenes = byId.size();
+        scenes = byId.toArray(new Scene[numberOfScenes]);
+        toArrays();
+
+        boolean[] reached = reach(indexOf(adventure.getStart()));
+        for (int i = 0; i < numberOfScenes; i++) {
+            if (!reached[i]) {
+                unreachable.add(scenes[i]);
+            }
+            if (scenes[i].isOrphan() && !scenes[i].isStart()) {
+                orphans.add(scenes[i]);
+            }
+        }
+        findTraps(indexOf(adventure.getStart()));
+
+        // Only the lists are kept.
+        scenes = null;
+        offsets = null;
+        targets = null;
+    }
+
+    private void toArrays()
+    {
+        int maxId = numberOfScenes == 0 ? 0 : scenes[numberOfScenes - 1].getId();
+        int[] indexOfId = new int[maxId + 1];
+        int edges = 0;
+        for (int i = 0; i < numberOfScenes; i++) {
+            indexOfId[scenes[i].getId()] = i;
+            edges += scenes[i].getPathsSize();
+        }
+
+        offsets = new int[numberOfScenes + 1];
+        targets = new int[edges];
+        int e = 0;
+        for (int i = 0; i < numberOfScenes; i++) {
+            offsets[i] = e;
+            for (IPath p : scenes[i].getPathsUnordered()) {
+                Scene to = p.getTo();
+                if (to == null) {
+                    pathsToNowhere.add(p);
+                } else {
+                    targets[e++] = indexOfId[to.getId()];
+                }
+            }
+            if (e == offsets[i] && !scenes[i].isEnd()) {
+                deadEnds.add(scenes[i]);
+            }
+        }
+        offsets[numberOfScenes] = e;
+    }
+
+    private int indexOf(Scene scene)
+    {
+        // The scenes are by id, and most ids are taken.
+        int i = Math.min(scene.getId(), numberOfScenes - 1);
+        while (scenes[i] != scene) {
+            i--;
+        }
+        return i;
+    }
+
+    private boolean[] reach(int start)
+    {
+        boolean[] reached = new boolean[numberOfScenes];
+        int[] queue = new int[numberOfScenes];
+        int tail = 0;
+        queue[tail++] = start;
+        reached[start] = true;
+        for (int head = 0; head < tail; head++) {
+            int s = queue[head];
+            for (int e = offsets[s]; e < offsets[s + 1]; e++) {
+                int to = targets[e];
+                if (!reached[to]) {
+                    reached[to] = true;
+                    queue[tail++] = to;
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Tarjan's algorithm from the start scene, so only the components the player can get to. A component is
+     * a trap when it is a loop, no path leaves it and it has no end scene.
+     */
+    private void findTraps(int start)
+    {
+        int[] order = new int[numberOfScenes];
+        int[] low = new int[numberOfScenes];
+        int[] component = new int[numberOfScenes];
+        int[] nextEdge = new int[numberOfScenes];
+        boolean[] onStack = new boolean[numberOfScenes];
+        int[] stack = new int[numberOfScenes];
+        int[] calls = new int[numberOfScenes];
+        Arrays.fill(order, NOT_VISITED);
+
+        List<int[]> components = new ArrayList<int[]>();
+        int counter = 0;
+        int sp = 0;
+        int cp = 0;
+
+        order[start] = low[start] = counter++;
+        nextEdge[start] = offsets[start];
+        stack[sp++] = start;
+        onStack[start] = true;
+        calls[cp++] = start;
+        while (cp > 0) {
+            int v = calls[cp - 1];
+            if (nextEdge[v] < offsets[v + 1]) {
+                int w = targets[nextEdge[v]++];
+                if (order[w] == NOT_VISITED) {
+                    order[w] = low[w] = counter++;
+                    nextEdge[w] = offsets[w];
+                    stack[sp++] = w;
+                    onStack[w] = true;
+                    calls[cp++] = w;
+                } else if (onStack[w] && order[w] < low[v]) {
+                    low[v] = order[w];
+                }
+                continue;
+            }
+
+            cp--;
+            if (cp > 0 && low[v] < low[calls[cp - 1]]) {
+                low[calls[cp - 1]] = low[v];
+            }
+            if (low[v] == order[v]) {
+                int top = sp;
+                do {
+                    int w = stack[--sp];
+                    onStack[w] = false;
+                    component[w] = components.size();
+                } while (stack[sp] != v);
+                int[] members = new int[top - sp];
+                System.arraycopy(stack, sp, members, 0, members.length);
+                components.add(members);
+            }
+        }
+        numberOfComponents = components.size();
+
+        for (int c = 0; c < components.size(); c++) {
+            if (isTrap(components.get(c), c, component)) {
+                List<Scene> trap = new ArrayList<Scene>(components.get(c).length);
+                for (int s : components.get(c)) {
+                    trap.add(scenes[s]);
+                }
+                traps.add(trap);
+            }
+        }
+    }
+
+    private boolean isTrap(int[] members, int c, int[] component)
+    {
+        boolean loop = members.length > 1;
+        for (int s : members) {
+            if (scenes[s].isEnd()) {
+                return false;
+            }
+            for (int e = offsets[s]; e < offsets[s + 1]; e++) {
+                if (component[targets[e]] != c) {
+                    return false;
+                }
+                loop = true; // A single scene with a path to itself.
+            }
+        }
+        return loop;
+    }
+
+    /**
+     * @return by id, the ones no route from the start scene gets to.
+     */
+    public List<Scene> getUnreachable()
+    {
+        return Collections.unmodifiableList(unreachable);
+    }
+
+    /**
+     * @return by id, the ones no path leads to, but the start scene.
+     */
+    public List<Scene> getOrphans()
+    {
+        return Collections.unmodifiableList(orphans);
+    }
+
+    public List<IPath> getPathsToNowhere()
+    {
+        return Collections.unmodifiableList(pathsToNowhere);
+    }
+
+    /**
+     * @return by id, the scenes that aren't ends but have no path to another scene.
+     */
+    public List<Scene> getDeadEnds()
+    {
+        return Collections.unmodifiableList(deadEnds);
+    }
+
+    /**
+     * @return the loops the player gets to and can't leave, with no end scene in them.
+     */
+    public List<List<Scene>> getTraps()
+    {
+        return Collections.unmodifiableList(traps);
+    }
+
+    /**
+     * @return the strongly connected components reached from the start scene.
+     */
+    public int getNumberOfComponents()
+    {
+        return numberOfComponents;
+    }
+
+    public boolean isClean()
+    {
+        return unreachable.isEmpty() && orphans.isEmpty() && pathsToNowhere.isEmpty() && deadEnds.isEmpty() && traps.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append(numberOfScenes).append(" scenes, ").append(numberOfComponents).append(" strongly connected components reached from the start\n");
+        list(report, "Unreachable scenes", unreachable);
+        list(report, "Orphan scenes", orphans);
+        List<Scene> withPathsToNowhere = new ArrayList<Scene>(pathsToNowhere.size());
+        for (IPath p : pathsToNowhere) {
+            withPathsToNowhere.add(p.getFrom());
+        }
+        list(report, "Paths to nowhere, from", withPathsToNowhere);
+        list(report, "Dead ends", deadEnds);
+        report.append("\nLoops with no way out: ").append(traps.size()).append('\n');
+        for (int i = 0; i < traps.size() && i < MAX_LISTED; i++) {
+            report.append("    ").append(traps.get(i).size()).append(" scenes, ");
+            describe(report, traps.get(i).get(0));
+            report.append(" ...\n");
+        }
+        return report.toString();
+    }
+
+    private static void list(StringBuilder report, String title, List<Scene> scenes)
+    {
+        report.append('\n').append(title).append(": ").append(scenes.size()).append('\n');
+        for (int i = 0; i < scenes.size() && i < MAX_LISTED; i++) {
+            report.append("    ");
+            describe(report, scenes.get(i));
+            report.append('\n');
+        }
+        if (scenes.size() > MAX_LISTED) {
+            report.append("    and ").append(scenes.size() - MAX_LISTED).append(" more\n");
+        }
+    }
+
+    private static void describe(StringBuilder report, Scene s)
+    {
+        report.append('[').append(s.getId()).append("] ").append(s.getName());
+    }
+}
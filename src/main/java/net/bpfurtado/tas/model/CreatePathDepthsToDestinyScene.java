@@ -21,7 +21,7 @@
 package net.bpfurtado.tas.model;
 
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.HashSet;
 
 import org.apache.log4j.Logger;
 
@@ -29,7 +29,17 @@ public class CreatePathDepthsToDestinyScene
 {
     private static Logger logger = Logger.getLogger(CreatePathDepthsToDestinyScene.class);
 
-    private Collection<Scene> visited = new LinkedList<Scene>();
+    private Collection<Scene> visited = new HashSet<Scene>();
+
+    /**
+     * Only the links made before this one existed when it was made.
+     */
+    private int linkOrder;
+
+    CreatePathDepthsToDestinyScene(int linkOrder)
+    {
+        this.linkOrder = linkOrder;
+    }
 
     void create(PathDepth newPathDepth, Scene from, Scene to)
     {
@@ -41,7 +51,7 @@ public class CreatePathDepthsToDestinyScene
 
         for (IPath p : to.getPaths()) {
             logger.debug(p.getTo() + "=" + from);
-            if (p.getTo() == null) {
+            if (p.getTo() == null || ((Path) p).getLinkOrder() > linkOrder) {
                 continue;
             }
             if (p.getTo().equals(from)) {
@@ -22,8 +22,11 @@
 
 package net.bpfurtado.tas.model;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
@@ -35,24 +38,35 @@ public class Depth implements IDepth
     @SuppressWarnings("unused")
     private static final Logger logger = Logger.getLogger(Depth.class);
 
-    private Integer level = 0;
+    private int level = 0;
 
     private Collection<PathDepth> pathDepths;
 
+    /**
+     * How many of the PathDepths lead to each scene, for {@link #contains(Scene)}.
+     */
+    private Map<Scene, Integer> scenes;
+
     public Depth(int level)
     {
         this.level = level;
-        pathDepths = new LinkedList<PathDepth>();
+        pathDepths = new LinkedHashSet<PathDepth>();
+        scenes = new HashMap<Scene, Integer>();
     }
 
     public void add(PathDepth pathDepth)
     {
-        pathDepths.add(pathDepth);
+        if (!pathDepths.add(pathDepth)) {
+            return;
+        }
+        Scene to = pathDepth.getPath().getTo();
+        Integer count = scenes.get(to);
+        scenes.put(to, count == null ? 1 : count + 1);
     }
 
     public Collection<Scene> getScenes()
     {
-        Collection<Scene> scenes = new LinkedList<Scene>();
+        Collection<Scene> scenes = new ArrayList<Scene>(pathDepths.size());
         for (PathDepth pathDepth : pathDepths) {
             scenes.add(pathDepth.getPath().getTo());
         }
@@ -72,7 +86,14 @@ public class Depth implements IDepth
             logger.error("Should have removed the " + pathDepthToRemove);
             return;
         }
-        logger.debug(this + "<<== Removed " + pathDepthToRemove + ": my pathDepths are: " + pathDepths);
+        Scene to = pathDepthToRemove.getPath().getTo();
+        Integer count = scenes.get(to);
+        if (count != null && count > 1) {
+            scenes.put(to, count - 1);
+        } else {
+            scenes.remove(to);
+        }
+        logger.debug(this + "<<== Removed " + pathDepthToRemove + ": " + pathDepths.size() + " left");
     }
 
     public int getLevel()
@@ -82,12 +103,7 @@ public class Depth implements IDepth
 
     public boolean contains(Scene scene)
     {
-        for (PathDepth pd : pathDepths) {
-            if (pd.isRelatedTo(scene)) {
-                return true;
-            }
-        }
-        return false;
+        return scenes.containsKey(scene);
     }
 
     @Override
@@ -95,7 +111,7 @@ public class Depth implements IDepth
     {
         if (obj instanceof Depth) {
             Depth other = (Depth) obj;
-            return level.equals(other.level);
+            return level == other.level;
         }
         return false;
     }
@@ -103,7 +119,7 @@ public class Depth implements IDepth
     @Override
     public int hashCode()
     {
-        return level.hashCode() * 57;
+        return level * 57;
     }
 
     @Override
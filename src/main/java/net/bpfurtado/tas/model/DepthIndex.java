@@ -0,0 +1,231 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Shortest number of paths from the start scene to each scene, kept in an int array indexed by the scene
+ * id.
+ * 
+ * Links and unlinks repair only the scenes whose level really changes (dynamic BFS), so wiring a path
+ * costs the size of the affected region instead of the number of ways to reach its origin.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class DepthIndex
+{
+    public static final int UNREACHABLE = -1;
+
+    private Scene start;
+    private int[] levels = new int[0];
+
+    public DepthIndex(Scene start)
+    {
+        this.start = start;
+        rebuild();
+    }
+
+    public int levelOf(Scene scene)
+    {
+        int id = scene.getId();
+        if (id < 0 || id >= levels.length) {
+            return UNREACHABLE;
+        }
+        return levels[id];
+    }
+
+    /**
+     * Full BFS from the start scene, only needed when the graph was changed behind the index back.
+     */
+    public void rebuild()
+    {
+        Arrays.fill(levels, UNREACHABLE);
+        setLevel(start, 0);
+        spread(start);
+    }
+
+    /**
+     * Must be called after the path from <code>from</code> to <code>to</code> was created.
+     */
+    public void linked(Scene from, Scene to)
+    {
+        int fromLevel = levelOf(from);
+        if (fromLevel == UNREACHABLE) {
+            return;
+        }
+        if (lower(to, fromLevel + 1)) {
+            spread(to);
+        }
+    }
+
+    /**
+     * Must be called after the path from <code>from</code> to <code>to</code> was removed (or redirected).
+     */
+    public void unlinked(Scene from, Scene to)
+    {
+        int toLevel = levelOf(to);
+        if (to == start || toLevel == UNREACHABLE || levelOf(from) != toLevel - 1) {
+            return;
+        }
+
+        Set<Scene> affected = findScenesLosingTheirLevel(to);
+        if (affected.isEmpty()) {
+            return;
+        }
+        for (Scene s : affected) {
+            setLevel(s, UNREACHABLE);
+        }
+
+        PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+        for (Scene s : affected) {
+            int best = UNREACHABLE;
+            for (Scene parent : s.getScenesFrom()) {
+                int parentLevel = levelOf(parent);
+                if (parentLevel != UNREACHABLE && (best == UNREACHABLE || parentLevel + 1 < best) && parent.hasPathTo(s)) {
+                    best = parentLevel + 1;
+                }
+            }
+            if (best != UNREACHABLE) {
+                setLevel(s, best);
+                queue.add(new Entry(s, best));
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            Entry e = queue.poll();
+            if (levelOf(e.scene) != e.level) {
+                continue; // already reached by a shorter route
+            }
+            for (IPath p : e.scene.getPathsUnordered()) {
+                Scene child = p.getTo();
+                if (child != null && affected.contains(child) && lower(child, e.level + 1)) {
+                    queue.add(new Entry(child, e.level + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the shortest-path DAG down from <code>scene</code> collecting the scenes that are left with no
+     * parent one level above them. Scenes are visited in level order, so when a child is checked all of
+     * its parents are already classified.
+     */
+    private Set<Scene> findScenesLosingTheirLevel(Scene scene)
+    {
+        Set<Scene> affected = new HashSet<Scene>();
+        if (hasParentOneLevelAbove(scene, affected)) {
+            return affected;
+        }
+
+        List<Scene> queue = new ArrayList<Scene>();
+        queue.add(scene);
+        affected.add(scene);
+        for (int i = 0; i < queue.size(); i++) {
+            Scene s = queue.get(i);
+            int childLevel = levelOf(s) + 1;
+            for (IPath p : s.getPathsUnordered()) {
+                Scene child = p.getTo();
+                if (child == null || child == start || levelOf(child) != childLevel || affected.contains(child)) {
+                    continue;
+                }
+                if (!hasParentOneLevelAbove(child, affected)) {
+                    affected.add(child);
+                    queue.add(child);
+                }
+            }
+        }
+        return affected;
+    }
+
+    private boolean hasParentOneLevelAbove(Scene scene, Set<Scene> excluded)
+    {
+        int parentLevel = levelOf(scene) - 1;
+        for (Scene parent : scene.getScenesFrom()) {
+            if (levelOf(parent) == parentLevel && !excluded.contains(parent) && parent.hasPathTo(scene)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void spread(Scene origin)
+    {
+        List<Scene> queue = new ArrayList<Scene>();
+        queue.add(origin);
+        for (int i = 0; i < queue.size(); i++) {
+            Scene s = queue.get(i);
+            int childLevel = levelOf(s) + 1;
+            for (IPath p : s.getPathsUnordered()) {
+                Scene child = p.getTo();
+                if (child != null && lower(child, childLevel)) {
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    private boolean lower(Scene scene, int level)
+    {
+        int current = levelOf(scene);
+        if (current != UNREACHABLE && current <= level) {
+            return false;
+        }
+        setLevel(scene, level);
+        return true;
+    }
+
+    private void setLevel(Scene scene, int level)
+    {
+        int id = scene.getId();
+        if (id < 0) {
+            return;
+        }
+        if (id >= levels.length) {
+            int oldLength = levels.length;
+            levels = Arrays.copyOf(levels, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(levels, oldLength, levels.length, UNREACHABLE);
+        }
+        levels[id] = level;
+    }
+
+    private static class Entry implements Comparable<Entry>
+    {
+        Scene scene;
+        int level;
+
+        Entry(Scene scene, int level)
+        {
+            this.scene = scene;
+            this.level = level;
+        }
+
+        public int compareTo(Entry other)
+        {
+            return level < other.level ? -1 : level == other.level ? 0 : 1;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model;
+
+import java.util.Arrays;
+
+/**
+ * The scenes reached from the start grouped by their first depth, each scene once, unlike the depths lists
+ * that hold a scene once for each route. Built by one counting sort over the {@link DepthIndex}, and each
+ * level sorted by {@link Scene#compareTo(Scene)} only the first time one of its scenes is asked.
+ * 
+ * Taken from {@link Adventure#getDepthLevels()}, which builds it again after the paths change and sorts the
+ * levels again after a scene is renamed.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class DepthLevels
+{
+    /**
+     * Level <code>i</code> is from <code>offsets[i]</code> to <code>offsets[i + 1] - 1</code>.
+     */
+    private final Scene[] scenes;
+    private final int[] offsets;
+    private final boolean[] sorted;
+
+    DepthLevels(Adventure adventure)
+    {
+        int numberOfLevels = 0;
+        int reached = 0;
+        int[] counts = new int[16];
+        for (Scene s : adventure.getScenes()) {
+            int level = adventure.getFirstDepthOfScene(s);
+            if (level == DepthIndex.UNREACHABLE) {
+                continue;
+            }
+            if (level >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(level + 1, counts.length * 2));
+            }
+            counts[level]++;
+            numberOfLevels = Math.max(numberOfLevels, level + 1);
+            reached++;
+        }
+
+        offsets = new int[numberOfLevels + 1];
+        for (int i = 0; i < numberOfLevels; i++) {
+            offsets[i + 1] = offsets[i] + counts[i];
+        }
+        scenes = new Scene[reached];
+        int[] next = Arrays.copyOf(offsets, numberOfLevels);
+        for (Scene s : adventure.getScenes()) {
+            int level = adventure.getFirstDepthOfScene(s);
+            if (level != DepthIndex.UNREACHABLE) {
+                scenes[next[level]++] = s;
+            }
+        }
+        sorted = new boolean[numberOfLevels];
+    }
+
+    public int getNumberOfLevels()
+    {
+        return sorted.length;
+    }
+
+    public int getNumberOfScenes(int level)
+    {
+        return offsets[level + 1] - offsets[level];
+    }
+
+    /**
+     * @param i the position of the scene in the level, sorted.
+     */
+    public Scene getScene(int level, int i)
+    {
+        if (!sorted[level]) {
+            Arrays.sort(scenes, offsets[level], offsets[level + 1]);
+            sorted[level] = true;
+        }
+        return scenes[offsets[level] + i];
+    }
+
+    /**
+     * @return the position of the scene in the level, sorted, or -1 when it isn't at this level.
+     */
+    public int indexOf(int level, Scene scene)
+    {
+        for (int i = 0; i < getNumberOfScenes(level); i++) {
+            if (getScene(level, i) == scene) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void unsort()
+    {
+        Arrays.fill(sorted, false);
+    }
+}
@@ -20,84 +20,271 @@
  */
 package net.bpfurtado.tas.model;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 
+/**
+ * Depth state of one adventure, each Adventure owns its instance.
+ * 
+ * The depths lists (every scene once for each route that reaches it) are no longer maintained by each
+ * Path.setTo, they are rebuilt from the links only when somebody asks for them. The cheap, always up to
+ * date answer for "how deep is this scene" comes from the {@link DepthIndex}.
+ */
 public class DepthManager
 {
-    /** Singleton stuff */
-    private static DepthManager INSTANCE = new DepthManager();
-
-    public static DepthManager getInstance()
-    {
-        return INSTANCE;
-    }
-
     /** Attributes */
     private List<IDepth> depths;
 
+    private Scene start;
+    private DepthIndex index;
+    private EndDistanceIndex ends;
+
+    private int linksCounter = 0;
+
+    /**
+     * Counts the changes to the links and to the names of the scenes, for the {@link DepthLevels}.
+     */
+    private int graphChanges = 0;
+    private int renames = 0;
+    private int pathDepthsCounter = 0;
+    private boolean depthsOutdated = true;
+    private boolean indexSuspended = false;
+    private Collection<Scene> scenesWithPathDepths = Collections.emptyList();
+
     /** Constructor */
-    private DepthManager()
+    DepthManager()
     {
-        depths = new LinkedList<IDepth>();
+        depths = new ArrayList<IDepth>();
     }
 
     /** Methods */
     public void setStart(Scene start)
     {
-        assert depths.isEmpty() : "Creating a new adventure, should have no depths, lacking a clean-up perhaps?";
+        this.start = start;
+        this.index = new DepthIndex(start);
+        depthsOutdated = true;
+    }
+
+    void setEnds(EndDistanceIndex ends)
+    {
+        this.ends = ends;
+    }
+
+    void linked(Path path)
+    {
+        path.setLinkOrder(linksCounter++);
+        graphChanges++;
+        if (index != null && !indexSuspended) {
+            index.linked(path.getFrom(), path.getTo());
+        }
+        if (ends != null && !indexSuspended) {
+            ends.linked(path.getFrom(), path.getTo());
+        }
+        depthsOutdated = true;
+    }
+
+    void unlinked(Scene from, Scene to)
+    {
+        graphChanges++;
+        if (index != null && !indexSuspended) {
+            index.unlinked(from, to);
+        }
+        if (ends != null && !indexSuspended) {
+            ends.unlinked(from, to);
+        }
+        depthsOutdated = true;
+    }
+
+    void renamed()
+    {
+        renames++;
+    }
+
+    int getGraphChanges()
+    {
+        return graphChanges;
+    }
+
+    int getRenames()
+    {
+        return renames;
+    }
 
-        PathDepth pathDepth = new PathDepth(new NullPath(start), DepthManager.getInstance().getOrCreateDepth(0));
-        start.add(Arrays.asList(pathDepth));
+    /**
+     * A scene became an end scene or ceased to be one.
+     */
+    void endsChanged()
+    {
+        if (ends != null) {
+            ends.invalidate();
+        }
     }
 
     public Collection<Scene> getScenesFromDepth(int i)
     {
+        updateDepths();
         return depths.get(i).getScenes();
     }
 
     public int getNumberOfScenesFromDepth(int idx)
     {
+        updateDepths();
         return depths.get(idx).getNumberOfScenes();
     }
 
     public int getNumberOfDepths()
     {
+        updateDepths();
         return depths.size();
     }
 
     public IDepth getOrCreateDepth(int i)
     {
-        try {
+        if (i < depths.size()) {
             return depths.get(i);
-        } catch (IndexOutOfBoundsException e) {
-            if (i < 0) {
-                throw e;
-            }
+        }
+        // A PathDepth is always one level below an existing one.
+        if (i != depths.size()) {
+            throw new IndexOutOfBoundsException("Depth " + i + ", there are " + depths.size());
+        }
 
-            assert i == depths.size();
+        Depth depth = new Depth(i);
+        depths.add(depth);
+        return depth;
+    }
 
-            Depth depth = new Depth(i);
-            depths.add(depth);
-            return depth;
+    public int getFirstDepthOfScene(Scene s)
+    {
+        // The index is keyed by id, a scene from another adventure could have the same one.
+        if (index == null || s.getDepthManager() != this) {
+            return DepthIndex.UNREACHABLE;
         }
+        return index.levelOf(s);
     }
 
-    public int getFirstDepthOfScene(Scene s)
+    /**
+     * @return -1 when no end scene can be reached from the scene.
+     */
+    public int getDistanceToEnd(Scene s)
     {
-        for (IDepth d : depths) {
-            if (d.contains(s)) {
-                return d.getLevel();
-            }
+        if (ends == null || s.getDepthManager() != this) {
+            return DepthIndex.UNREACHABLE;
+        }
+        return ends.distanceOf(s);
+    }
+
+    /**
+     * Keeping the index up to date link by link is quadratic when a whole adventure is linked at once (a
+     * long route found first is lowered again and again), so loaders suspend it and rebuild it once.
+     */
+    public void suspendIndex()
+    {
+        indexSuspended = true;
+    }
+
+    public void resumeIndex()
+    {
+        indexSuspended = false;
+        graphChanges++;
+        if (index != null) {
+            index.rebuild();
         }
-        return -1;
+        endsChanged();
     }
 
     public void reset()
     {
         depths.clear();
+        depthsOutdated = true;
+        graphChanges++;
+        if (index != null) {
+            index.rebuild();
+        }
+        endsChanged();
+    }
+
+    /**
+     * Replays, in the order they were made, the links that still exist, recreating the PathDepths exactly
+     * as Path.setTo used to do on each call.
+     */
+    void updateDepths()
+    {
+        if (!depthsOutdated) {
+            return;
+        }
+        depthsOutdated = false;
+
+        for (Scene s : scenesWithPathDepths) {
+            s.clearPathDepths();
+        }
+        depths.clear();
+        if (start == null) {
+            scenesWithPathDepths = Collections.emptyList();
+            return;
+        }
+
+        start.add(new PathDepth(this, new NullPath(start), getOrCreateDepth(0)));
+
+        List<Path> links = new ArrayList<Path>();
+        scenesWithPathDepths = collectLinksReachableFromStart(links);
+        Collections.sort(links, new Comparator<Path>() {
+            public int compare(Path p1, Path p2)
+            {
+                return Integer.valueOf(p1.getLinkOrder()).compareTo(p2.getLinkOrder());
+            }
+        });
+
+        for (Path link : links) {
+            createPathDepthsToDestinyScene(link, link.getFrom(), link.getTo());
+        }
+    }
+
+    int nextPathDepthId()
+    {
+        return pathDepthsCounter++;
+    }
+
+    private Collection<Scene> collectLinksReachableFromStart(List<Path> links)
+    {
+        List<Scene> reached = new ArrayList<Scene>();
+        Collection<Scene> visited = new HashSet<Scene>();
+        reached.add(start);
+        visited.add(start);
+        for (int i = 0; i < reached.size(); i++) {
+            for (IPath p : reached.get(i).getPathsUnordered()) {
+                Scene to = p.getTo();
+                if (to == null) {
+                    continue;
+                }
+                links.add((Path) p);
+                if (visited.add(to)) {
+                    reached.add(to);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static void createPathDepthsToDestinyScene(Path path, Scene from, Scene to)
+    {
+        Collection<PathDepth> pathDepthsToTheNewTo = new ArrayList<PathDepth>();
+
+        for (PathDepth pathDepthFrom : from.createPathDepthsCopy()) {
+            // Eh volta? Já existe algum path em meu destino que leve ateh mim?
+            if (pathDepthFrom.getPath().getTo().equals(from) && pathDepthFrom.getPath().getFrom().equals(to)) {
+                continue;
+            }
+
+            // Aqui embaixo q a cena vai para o nivel 3
+            PathDepth newPathDepth = pathDepthFrom.createChild(path);
+            new CreatePathDepthsToDestinyScene(path.getLinkOrder()).create(newPathDepth, from, to);
+            pathDepthsToTheNewTo.add(newPathDepth);
+        }
+        to.add(pathDepthsToTheNewTo);
     }
 
     @Override
@@ -0,0 +1,157 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shortest number of paths from each scene to the nearest end scene, kept in an int array indexed by the
+ * scene id: the {@link DepthIndex} run backwards, from all the end scenes at once.
+ * 
+ * A new link only lowers distances, repaired from where it was made. An unlink that takes the last
+ * shortest way out of a scene, or a scene becoming or ceasing to be an end, leaves the table to be
+ * rebuilt by one backwards BFS at the next question.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class EndDistanceIndex
+{
+    private final Adventure adventure;
+
+    private int[] distances = new int[0];
+    private boolean outdated = true;
+
+    EndDistanceIndex(Adventure adventure)
+    {
+        this.adventure = adventure;
+    }
+
+    /**
+     * @return {@link DepthIndex#UNREACHABLE} when no end scene can be reached from the scene.
+     */
+    public int distanceOf(Scene scene)
+    {
+        if (outdated) {
+            rebuild();
+        }
+        int id = scene.getId();
+        if (id < 0 || id >= distances.length) {
+            return DepthIndex.UNREACHABLE;
+        }
+        return distances[id];
+    }
+
+    void invalidate()
+    {
+        outdated = true;
+    }
+
+    /**
+     * Must be called after the path from <code>from</code> to <code>to</code> was created.
+     */
+    void linked(Scene from, Scene to)
+    {
+        if (outdated) {
+            return;
+        }
+        int toDistance = distanceOf(to);
+        if (toDistance != DepthIndex.UNREACHABLE && lower(from, toDistance + 1)) {
+            spreadBack(from);
+        }
+    }
+
+    /**
+     * Must be called after the path from <code>from</code> to <code>to</code> was removed (or redirected).
+     */
+    void unlinked(Scene from, Scene to)
+    {
+        if (outdated) {
+            return;
+        }
+        int toDistance = distanceOf(to);
+        if (toDistance == DepthIndex.UNREACHABLE || distanceOf(from) != toDistance + 1) {
+            return; // Not the shortest way out of from.
+        }
+        for (IPath p : from.getPathsUnordered()) {
+            if (p.getTo() != null && distanceOf(p.getTo()) == toDistance) {
+                return; // Another one as short.
+            }
+        }
+        outdated = true;
+    }
+
+    private void rebuild()
+    {
+        outdated = false;
+        distances = new int[adventure.getScenesIdLimit()];
+        Arrays.fill(distances, DepthIndex.UNREACHABLE);
+
+        List<Scene> queue = new ArrayList<Scene>();
+        for (Scene s : adventure.getScenes()) {
+            if (s.isEnd()) {
+                distances[s.getId()] = 0;
+                queue.add(s);
+            }
+        }
+        spreadBack(queue);
+    }
+
+    private void spreadBack(Scene origin)
+    {
+        List<Scene> queue = new ArrayList<Scene>();
+        queue.add(origin);
+        spreadBack(queue);
+    }
+
+    /**
+     * BFS over the paths reversed.
+     */
+    private void spreadBack(List<Scene> queue)
+    {
+        for (int i = 0; i < queue.size(); i++) {
+            Scene s = queue.get(i);
+            int parentDistance = distances[s.getId()] + 1;
+            for (Scene parent : s.getScenesFrom()) {
+                if (lower(parent, parentDistance)) {
+                    queue.add(parent);
+                }
+            }
+        }
+    }
+
+    private boolean lower(Scene scene, int distance)
+    {
+        int id = scene.getId();
+        if (id >= distances.length) {
+            int oldLength = distances.length;
+            distances = Arrays.copyOf(distances, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(distances, oldLength, distances.length, DepthIndex.UNREACHABLE);
+        }
+        int current = distances[id];
+        if (current != DepthIndex.UNREACHABLE && current <= distance) {
+            return false;
+        }
+        distances[id] = distance;
+        return true;
+    }
+}
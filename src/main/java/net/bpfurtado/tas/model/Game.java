@@ -23,6 +23,7 @@
 package net.bpfurtado.tas.model;
 
 import java.util.Collection;
+import java.util.Random;
 
 import net.bpfurtado.tas.runner.savegame.SaveGame;
 
@@ -58,4 +59,18 @@ public interface Game
     void openNoActions(Scene to);
 
     Adventure getAdventure();
+
+    /**
+     * The text of the scene as seen in this game, the scene code may have changed it.
+     */
+    String getText(Scene scene);
+
+    void setText(Scene scene, String text);
+
+    boolean isVisible(IPath path);
+
+    /**
+     * The rnd of the scene code.
+     */
+    Random getRandom();
 }
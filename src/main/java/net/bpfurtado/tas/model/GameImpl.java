@@ -24,6 +24,7 @@ package net.bpfurtado.tas.model;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 import net.bpfurtado.tas.runner.CodeExecutionAnalyser;
 import net.bpfurtado.tas.runner.PostCodeExecutionAction;
@@ -54,6 +55,10 @@ public class GameImpl implements Game
      */
     private Collection<Integer> pathsToHide = new LinkedList<Integer>();
 
+    private GameOverlay overlay = new GameOverlay();
+
+    private Random rnd = new Random();
+
     public GameImpl(Adventure a)
     {
         this.adventure = a;
@@ -119,7 +124,7 @@ public class GameImpl implements Game
             int order = 0;
             for (IPath p : currentScene.getPaths()) {
                 if (pathsToHide.contains(order++)) {
-                    p.setVisible(false);
+                    overlay.hide(p);
                 }
             }
             pathsToHide.clear();
@@ -128,7 +133,7 @@ public class GameImpl implements Game
 
     public void execAssertions()
     {
-        List<PostCodeExecutionAction> actions = new CodeExecutionAnalyser().analyseCode(this, adventure.getAssertions(), getCurrentScene().getText());
+        List<PostCodeExecutionAction> actions = new CodeExecutionAnalyser().analyseAssertions(this, adventure.getScripts(), adventure.getAssertions());
 
         execCode(getCurrentScene(), actions);
     }
@@ -151,6 +156,7 @@ public class GameImpl implements Game
     public void setCurrentScene(Scene currentScene)
     {
         this.currentScene = currentScene;
+        overlay.showAllPaths();
     }
 
     public void addPathToHideByOrder(Collection<Integer> pathsToHide)
@@ -177,4 +183,37 @@ public class GameImpl implements Game
     {
         this.player = player;
     }
+
+    public String getText(Scene scene)
+    {
+        return overlay.textOf(scene);
+    }
+
+    public void setText(Scene scene, String text)
+    {
+        overlay.setText(scene, text);
+    }
+
+    public boolean isVisible(IPath path)
+    {
+        return overlay.isVisible(path);
+    }
+
+    public Random getRandom()
+    {
+        return rnd;
+    }
+
+    public void setRandom(Random rnd)
+    {
+        this.rnd = rnd;
+    }
+
+    /**
+     * Back to the adventure as the author wrote it, for a game started again.
+     */
+    public void clearOverlay()
+    {
+        overlay.clear();
+    }
 }
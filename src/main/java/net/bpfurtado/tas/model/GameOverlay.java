@@ -0,0 +1,73 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ *
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What the scene code of one game changed over the adventure: the scene texts and the paths hidden at the
+ * current scene. The adventure itself is left as the author wrote it, so any number of games can share it.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class GameOverlay
+{
+    private Map<Integer, String> texts = new HashMap<Integer, String>();
+    private Set<IPath> hiddenPaths = new HashSet<IPath>();
+
+    public String textOf(Scene scene)
+    {
+        String text = texts.get(scene.getId());
+        return text == null ? scene.getText() : text;
+    }
+
+    public void setText(Scene scene, String text)
+    {
+        texts.put(scene.getId(), text);
+    }
+
+    public boolean isVisible(IPath path)
+    {
+        return !hiddenPaths.contains(path);
+    }
+
+    public void hide(IPath path)
+    {
+        hiddenPaths.add(path);
+    }
+
+    /**
+     * Paths are hidden only until the player leaves the scene, as the Runner always did.
+     */
+    public void showAllPaths()
+    {
+        hiddenPaths.clear();
+    }
+
+    public void clear()
+    {
+        texts.clear();
+        hiddenPaths.clear();
+    }
+}
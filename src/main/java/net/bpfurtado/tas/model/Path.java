@@ -22,9 +22,6 @@
 
 package net.bpfurtado.tas.model;
 
-import java.util.Collection;
-import java.util.LinkedList;
-
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.log4j.Logger;
@@ -44,13 +41,18 @@ public class Path extends TextObject implements IPath
 
     private int order = -1;
 
+    /**
+     * Sequence of the last setTo, the depths lists are rebuilt following it.
+     */
+    private int linkOrder = -1;
+
     public Path(int id, String text, Scene from)
     {
         super(id);
         setText(text);
         setFrom(from);
 
-        order = from.getPaths().size();
+        order = from.getPathsSize();
     }
 
     /**
@@ -58,52 +60,33 @@ public class Path extends TextObject implements IPath
      */
     public void setTo(Scene newTo)
     {
-        if (to != null) {
-            to.removeDepthsOf(this);
-        }
-
+        Scene oldTo = to;
         to = newTo;
 
+        from.modified();
+        if (oldTo != null) {
+            oldTo.removePathFrom(this);
+            from.unlinked(oldTo);
+        }
+
         if (to == null) {
             return;
         }
 
-        createPathDepthsToDestinyScene(this, from, to);
-
-        /*
-         * FIXME os from'scrollPane de uma scene virão das entidades PathDepth, refatorar isto em breve!
-         */
-        to.addFrom(from);
-    }
-
-    @SuppressWarnings("unchecked")
-    private static void createPathDepthsToDestinyScene(Path path, Scene from, Scene to)
-    {
-        Collection<PathDepth> pathDepthsToTheNewTo = new LinkedList<PathDepth>();
-
-        for (PathDepth pathDepthFrom : from.createPathDepthsCopy()) {
-            // Eh volta? Já existe algum path em meu destino que leve ateh mim?
-            if (pathDepthFrom.getPath().getTo().equals(from) && pathDepthFrom.getPath().getFrom().equals(to)) {
-                logger.debug("### JUMP " + pathDepthFrom);
-                continue;
-            }
-            logger.debug("### KEEP WITH " + pathDepthFrom);
-
-            // Aqui embaixo q a cena vai para o nivel 3
-            PathDepth newPathDepth = pathDepthFrom.createChild(path); // TODO pensar em
-                                                                      // encapsulamento aqui.
-            new CreatePathDepthsToDestinyScene().create(newPathDepth, from, to);
-            pathDepthsToTheNewTo.add(newPathDepth);
-        }
-        to.add(pathDepthsToTheNewTo);
+        to.addPathFrom(this);
+        from.linked(this);
     }
 
     public void goToNowhere()
     {
-        if (to != null) {
-            to.removeDepthsOf(this);
-        }
+        Scene oldTo = to;
         to = null;
+
+        from.modified();
+        if (oldTo != null) {
+            oldTo.removePathFrom(this);
+            from.unlinked(oldTo);
+        }
     }
 
     public Scene getTo()
@@ -131,6 +114,15 @@ public class Path extends TextObject implements IPath
         return this.isVisible;
     }
 
+    @Override
+    public void setText(String text)
+    {
+        super.setText(text);
+        if (from != null) {
+            from.modified();
+        }
+    }
+
     public String toStringShort()
     {
         return "[" + to + "]";
@@ -144,6 +136,20 @@ public class Path extends TextObject implements IPath
     public void setOrder(int order)
     {
         this.order = order;
+        if (from != null) {
+            from.sortPaths();
+            from.modified();
+        }
+    }
+
+    int getLinkOrder()
+    {
+        return linkOrder;
+    }
+
+    void setLinkOrder(int linkOrder)
+    {
+        this.linkOrder = linkOrder;
     }
 
     @Override
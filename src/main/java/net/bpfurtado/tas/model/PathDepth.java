@@ -20,9 +20,8 @@
  */
 package net.bpfurtado.tas.model;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.ListIterator;
 
 import org.apache.log4j.Logger;
 
@@ -38,16 +37,18 @@ public class PathDepth
     @SuppressWarnings("unused")
     private static final Logger logger = Logger.getLogger(PathDepth.class);
 
-    private static int idCounter = 0;
+    private DepthManager depthManager;
 
-    private int id = idCounter++;
+    private int id;
     private IPath path;
     private IDepth depth;
 
-    private List<PathDepth> children = new LinkedList<PathDepth>();
+    private List<PathDepth> children = new ArrayList<PathDepth>(2);
 
-    public PathDepth(IPath path, IDepth depth)
+    public PathDepth(DepthManager depthManager, IPath path, IDepth depth)
     {
+        this.depthManager = depthManager;
+        this.id = depthManager.nextPathDepthId();
         this.path = path;
         this.depth = depth;
 
@@ -56,7 +57,7 @@ public class PathDepth
 
     public PathDepth createChild(IPath path)
     {
-        PathDepth child = new PathDepth(path, nextDepth());
+        PathDepth child = new PathDepth(depthManager, path, nextDepth());
         children.add(child);
 
         // logger.debug(id + "::I've got the child: " + child.toStringShort());
@@ -66,7 +67,7 @@ public class PathDepth
 
     private IDepth nextDepth()
     {
-        return DepthManager.getInstance().getOrCreateDepth(depth.getLevel() + 1);
+        return depthManager.getOrCreateDepth(depth.getLevel() + 1);
     }
 
     public boolean hasPath(IPath otherPath)
@@ -74,66 +75,6 @@ public class PathDepth
         return path.equals(otherPath);
     }
 
-    private static String tabs = "";
-
-    public void removeItSelfFromDepth(Scene startScene)
-    {
-        logger.debug("###:= REMOVING: " + this);
-
-        // TODO $$$ remove error
-        // path.getTo().remove(this);
-
-        tabs = "";
-        removeItSelfFromDepth(this, startScene);
-    }
-
-    private static void removeItSelfFromDepth(PathDepth pathDepth, Scene startScene)
-    {
-        tabs += "\t";
-
-        logger.debug(tabs + "I am " + pathDepth);
-        logger.debug(tabs + "Going out of depth " + pathDepth.depth);
-        pathDepth.depth.remove(pathDepth);
-
-        logger.debug("&&& Trying [me:" + pathDepth.toString() + "]to go out of my scene " + pathDepth.getPath().getTo());
-        if (!pathDepth.getPath().getTo().equals(startScene)) {
-            logger.debug("&&& YES me: " + pathDepth.toString() + "removing pd: " + pathDepth);
-            pathDepth.getPath().getTo().remove(pathDepth); // 111
-        } else {
-            logger.debug("&&& NO me: " + pathDepth.toString() + " NOT BEING REMOVED from " + pathDepth.getPath().getTo());
-        }
-
-        logger.debug(tabs + "REMOVING (recursive): " + pathDepth);
-
-        logger.debug(tabs + "My children=" + pathDepth.children);
-
-        assert !pathDepth.depth.getScenes().contains(pathDepth);
-
-        for (ListIterator<PathDepth> parentChildren = pathDepth.children.listIterator(); parentChildren.hasNext();) {
-            PathDepth child = parentChildren.next();
-
-            assert !child.equals(pathDepth);
-
-            logger.debug(tabs + "removing depths from child " + child);
-
-            logger.debug(tabs + " REMOVING, CALLING recursive with : " + child);
-            removeItSelfFromDepth(child, startScene);
-            parentChildren.remove();
-
-            /*
-             * if (!child.getPath().getTo().equals(startScene)) { logger.debug("&&& me: " + toString() +
-             * "removing pd: " + child); child.getPath().getTo().remove(this); // TODO ver se funciona aqui
-             * } else { System.out.println("here"); }
-             */
-
-            logger.debug(tabs + "child " + child + " removed");
-        }
-
-        logger.debug(tabs + "Now my children are " + pathDepth.children);
-
-        tabs = tabs.substring(tabs.length() - 1);
-    }
-
     public IPath getPath()
     {
         return path;
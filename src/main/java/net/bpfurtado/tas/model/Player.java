@@ -62,7 +62,9 @@ public class Player extends Fighter
     private void add(Skill skill)
     {
         skills.put(skill.getName(), skill);
-        fireEvent("Skill " + skill.getName() + " added with level " + skill.getLevel());
+        if (hasEventListeners()) {
+            fireEvent("Skill " + skill.getName() + " added with level " + skill.getLevel());
+        }
     }
 
     public void addSkill(String name, int level)
@@ -107,25 +109,33 @@ public class Player extends Fighter
     public void addAttribute(String name)
     {
         attributes.put(name, name);
-        fire(new PlayerEvent(name, "Attribute " + name + " added"));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(name, "Attribute " + name + " added"));
+        }
     }
 
     public void addAttribute(String name, int value)
     {
         attributes.put(name, value + "");
-        fire(new PlayerEvent(name, "Attribute " + name + " added with [" + value + "]"));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(name, "Attribute " + name + " added with [" + value + "]"));
+        }
     }
 
     public void addAttribute(String name, String value)
     {
         attributes.put(name, value);
-        fire(new PlayerEvent(name, "Attribute " + name + " added with [" + value + "]"));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(name, "Attribute " + name + " added with [" + value + "]"));
+        }
     }
 
     public void removeAttribute(String name)
     {
         attributes.remove(name);
-        fire(new PlayerEvent(name, "Attribute " + name + " removed"));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(name, "Attribute " + name + " removed"));
+        }
     }
 
     public int getIntValue(String name)
@@ -156,7 +166,9 @@ public class Player extends Fighter
         }
         attributes.put(name, increasedValue + "");
 
-        fire(new PlayerEvent(name + " has now the value of " + increasedValue));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(name + " has now the value of " + increasedValue));
+        }
     }
 
     private Object recoverValue(String name)
@@ -245,7 +257,9 @@ public class Player extends Fighter
 
     private void fireEvent(String name, String value, String old)
     {
-        fire(new PlayerEvent(name, name + " was " + old + ", now is " + value));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(name, name + " was " + old + ", now is " + value));
+        }
     }
 
     /**
@@ -253,7 +267,9 @@ public class Player extends Fighter
      */
     public void fireEvent(Skill s, int oldLevel)
     {
-        fire(new PlayerEvent(s.getName(), s.getName() + " was " + oldLevel + ", now is " + s.getLevel()));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(s.getName(), s.getName() + " was " + oldLevel + ", now is " + s.getLevel()));
+        }
     }
 
     private void fireEvent(String description)
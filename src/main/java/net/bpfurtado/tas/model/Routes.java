@@ -0,0 +1,439 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The routes through an adventure, a route being the scenes the player goes by, in order.
+ * 
+ * The routes from the start and to the end scenes follow the distance tables kept up to date by the
+ * adventure as the paths change ({@link Adventure#getFirstDepthOfScene(Scene)} and
+ * {@link Adventure#getDistanceToEnd(Scene)}), costing only the length of the route. The other questions are
+ * answered by BFS over arrays indexed by the scene id.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class Routes
+{
+    private static final int NEW = 0;
+    private static final int ON_STACK = 1;
+    private static final int DONE = 2;
+
+    /**
+     * The keys of the A* queue, from the highest bits: the estimated distance, the distance made and the
+     * id. The ids take the bits {@link Adventure#MAX_SCENE_ID} needs, the estimate the ones left below the
+     * sign bit, clamped so a key is never negative.
+     */
+    private static final int ID_BITS = 23;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int DISTANCE_BITS = 16;
+    private static final int MAX_DISTANCE = (1 << DISTANCE_BITS) - 1;
+    private static final int MAX_ESTIMATE = (1 << (63 - DISTANCE_BITS - ID_BITS)) - 1;
+
+    private final Adventure adventure;
+
+    private Routes(Adventure adventure)
+    {
+        this.adventure = adventure;
+    }
+
+    public static Routes of(Adventure adventure)
+    {
+        return new Routes(adventure);
+    }
+
+    /**
+     * @return null when the scene can't be reached from the start scene.
+     */
+    public List<Scene> shortestFromStart(Scene to)
+    {
+        int level = adventure.getFirstDepthOfScene(to);
+        if (level == DepthIndex.UNREACHABLE) {
+            return null;
+        }
+        Scene[] route = new Scene[level + 1];
+        route[level] = to;
+        for (int i = level; i > 0; i--) {
+            for (Scene parent : route[i].getScenesFrom()) {
+                if (adventure.getFirstDepthOfScene(parent) == i - 1) {
+                    route[i - 1] = parent;
+                    break;
+                }
+            }
+        }
+        return Arrays.asList(route);
+    }
+
+    /**
+     * @return the route to the nearest end scene, null when there is none.
+     */
+    public List<Scene> shortestToEnd(Scene from)
+    {
+        int distance = adventure.getDistanceToEnd(from);
+        if (distance == DepthIndex.UNREACHABLE) {
+            return null;
+        }
+        Scene[] route = new Scene[distance + 1];
+        route[0] = from;
+        for (int i = 0; i < distance; i++) {
+            for (IPath p : route[i].getPathsUnordered()) {
+                if (p.getTo() != null && adventure.getDistanceToEnd(p.getTo()) == distance - i - 1) {
+                    route[i + 1] = p.getTo();
+                    break;
+                }
+            }
+        }
+        return Arrays.asList(route);
+    }
+
+    /**
+     * @return by the id of the end scene, the shortest route from the start to each end scene the player can
+     *         get to.
+     */
+    public Map<Scene, List<Scene>> shortestToEachEnd()
+    {
+        Map<Scene, List<Scene>> routes = new LinkedHashMap<Scene, List<Scene>>();
+        for (Scene s : adventure.getScenes()) {
+            if (s.isEnd()) {
+                List<Scene> route = shortestFromStart(s);
+                if (route != null) {
+                    routes.put(s, route);
+                }
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * @return null when there is no route.
+     */
+    public List<Scene> shortest(Scene from, Scene to)
+    {
+        return new Search().shortest(from, to, Collections.<Scene> emptySet());
+    }
+
+    /**
+     * Yen's algorithm: each route after the first is the shortest one leaving some route already found at
+     * one of its scenes by a path not taken by the others sharing the same beginning. No route goes by the
+     * same scene twice. The distances to <code>to</code> are taken once by a backwards BFS, then each of
+     * those searches is an A* guided by them.
+     * 
+     * @return up to <code>k</code> routes, the shortest first.
+     */
+    public List<List<Scene>> shortest(Scene from, Scene to, int k)
+    {
+        List<List<Scene>> found = new ArrayList<List<Scene>>(k);
+        Search search = new Search();
+        search.target(to);
+        List<Scene> first = search.guided(from, to, Collections.<Scene> emptySet());
+        if (first == null || k <= 0) {
+            return found;
+        }
+        found.add(first);
+
+        PriorityQueue<List<Scene>> candidates = new PriorityQueue<List<Scene>>(11, new Comparator<List<Scene>>() {
+            public int compare(List<Scene> r1, List<Scene> r2)
+            {
+                return r1.size() < r2.size() ? -1 : (r1.size() == r2.size() ? 0 : 1);
+            }
+        });
+        Set<List<Scene>> known = new HashSet<List<Scene>>(found);
+
+        while (found.size() < k) {
+            List<Scene> last = found.get(found.size() - 1);
+            for (int i = 0; i < last.size() - 1; i++) {
+                Scene spur = last.get(i);
+                List<Scene> root = last.subList(0, i + 1);
+
+                Set<Scene> takenNext = new HashSet<Scene>();
+                for (List<Scene> route : found) {
+                    if (route.size() > i + 1 && route.subList(0, i + 1).equals(root)) {
+                        takenNext.add(route.get(i + 1));
+                    }
+                }
+                search.block(root.subList(0, i));
+                List<Scene> spurRoute = search.guided(spur, to, takenNext);
+                search.unblock(root.subList(0, i));
+                if (spurRoute == null) {
+                    continue;
+                }
+
+                List<Scene> candidate = new ArrayList<Scene>(i + spurRoute.size());
+                candidate.addAll(root.subList(0, i));
+                candidate.addAll(spurRoute);
+                if (known.add(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            found.add(candidates.poll());
+        }
+        return found;
+    }
+
+    /**
+     * Finding the longest route with no scene twice is NP-hard, so the paths closing the loops met by a
+     * depth-first walk from the start scene are left out, what remains has no loops and its longest route is
+     * found in linear time. The route returned never goes by the same scene twice, but a longer one going
+     * around a loop some other way may exist.
+     * 
+     * @return from the start to an end scene, null when no end scene can be reached.
+     */
+    public List<Scene> longestToEnd()
+    {
+        int limit = adventure.getScenesIdLimit();
+        byte[] state = new byte[limit];
+        int[] nextPath = new int[limit];
+        int[] longest = new int[limit];
+        Scene[] next = new Scene[limit];
+        Arrays.fill(longest, DepthIndex.UNREACHABLE);
+
+        Scene[] stack = new Scene[adventure.getNumberOfScenes()];
+        int sp = 0;
+        stack[sp++] = adventure.getStart();
+        state[adventure.getStart().getId()] = ON_STACK;
+        while (sp > 0) {
+            Scene s = stack[sp - 1];
+            int id = s.getId();
+            List<IPath> paths = s.getPaths();
+            if (!s.isEnd() && nextPath[id] < paths.size()) {
+                Scene to = paths.get(nextPath[id]++).getTo();
+                if (to != null && state[to.getId()] == NEW) {
+                    state[to.getId()] = ON_STACK;
+                    stack[sp++] = to;
+                }
+                continue;
+            }
+
+            // Every path not closing a loop leads to a scene already done.
+            sp--;
+            state[id] = DONE;
+            if (s.isEnd()) {
+                longest[id] = 0;
+                continue;
+            }
+            for (IPath p : paths) {
+                Scene to = p.getTo();
+                if (to != null && state[to.getId()] == DONE && longest[to.getId()] != DepthIndex.UNREACHABLE && longest[to.getId()] + 1 > longest[id]) {
+                    longest[id] = longest[to.getId()] + 1;
+                    next[id] = to;
+                }
+            }
+        }
+
+        Scene s = adventure.getStart();
+        if (longest[s.getId()] == DepthIndex.UNREACHABLE) {
+            return null;
+        }
+        List<Scene> route = new ArrayList<Scene>(longest[s.getId()] + 1);
+        for (; s != null; s = next[s.getId()]) {
+            route.add(s);
+        }
+        return route;
+    }
+
+    /**
+     * BFS with the arrays kept between the searches, a stamp telling the scenes seen by the current one.
+     */
+    private class Search
+    {
+        private final int[] seen = new int[adventure.getScenesIdLimit()];
+        private final Scene[] previous = new Scene[seen.length];
+        private final boolean[] blocked = new boolean[seen.length];
+        private final Scene[] queue = new Scene[adventure.getNumberOfScenes()];
+        private int stamp = 0;
+
+        /**
+         * For {@link #guided(Scene, Scene, Set)}: the distances to the target and the routes found so far.
+         */
+        private int[] toTarget;
+        private int[] opened;
+        private int[] distances;
+        private int[] reached;
+        private Scene[] backQueue;
+
+        void block(List<Scene> scenes)
+        {
+            for (Scene s : scenes) {
+                blocked[s.getId()] = true;
+            }
+        }
+
+        void unblock(List<Scene> scenes)
+        {
+            for (Scene s : scenes) {
+                blocked[s.getId()] = false;
+            }
+        }
+
+        /**
+         * @param notNext the scenes not to go to from <code>from</code>.
+         */
+        List<Scene> shortest(Scene from, Scene to, Set<Scene> notNext)
+        {
+            stamp++;
+            int tail = 0;
+            queue[tail++] = from;
+            seen[from.getId()] = stamp;
+            previous[from.getId()] = null;
+            for (int head = 0; head < tail; head++) {
+                Scene s = queue[head];
+                if (s == to) {
+                    return routeTo(to);
+                }
+                for (IPath p : s.getPathsUnordered()) {
+                    Scene child = p.getTo();
+                    if (child == null || seen[child.getId()] == stamp || blocked[child.getId()] || (s == from && notNext.contains(child))) {
+                        continue;
+                    }
+                    seen[child.getId()] = stamp;
+                    previous[child.getId()] = s;
+                    queue[tail++] = child;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The fewest paths from each scene to <code>to</code>, ignoring the blocked scenes, so never more
+         * than the real distance: what makes {@link #guided(Scene, Scene, Set)} find the shortest route.
+         */
+        void target(Scene to)
+        {
+            toTarget = new int[seen.length];
+            Arrays.fill(toTarget, DepthIndex.UNREACHABLE);
+            opened = new int[seen.length];
+            distances = new int[seen.length];
+            reached = new int[seen.length];
+            backQueue = new Scene[queue.length];
+
+            int tail = 0;
+            queue[tail++] = to;
+            toTarget[to.getId()] = 0;
+            for (int head = 0; head < tail; head++) {
+                Scene s = queue[head];
+                for (Scene parent : s.getScenesFrom()) {
+                    if (toTarget[parent.getId()] == DepthIndex.UNREACHABLE) {
+                        toTarget[parent.getId()] = toTarget[s.getId()] + 1;
+                        queue[tail++] = parent;
+                    }
+                }
+            }
+        }
+
+        /**
+         * A* to the target of {@link #target(Scene)}, the scenes from which it can't be reached never
+         * explored. The open scenes are queued by the distance estimated through them, then by the longest
+         * distance already made, then by id, all in one long.
+         * 
+         * The blocked scenes often cut every way to the target, and then the A* would go through all the
+         * scenes it can get to before giving up. So a BFS goes backwards from the target, one scene at each
+         * step of the A*, and there is no route when it stops without finding <code>from</code>.
+         */
+        List<Scene> guided(Scene from, Scene to, Set<Scene> notNext)
+        {
+            if (toTarget[from.getId()] == DepthIndex.UNREACHABLE) {
+                return null;
+            }
+            stamp++;
+            PriorityQueue<Long> open = new PriorityQueue<Long>();
+            opened[from.getId()] = stamp;
+            distances[from.getId()] = 0;
+            previous[from.getId()] = null;
+            open.add(key(toTarget[from.getId()], 0, from.getId()));
+            int backHead = 0;
+            int backTail = 0;
+            backQueue[backTail++] = to;
+            reached[to.getId()] = stamp;
+            boolean connected = from == to;
+            while (!open.isEmpty()) {
+                if (!connected) {
+                    if (backHead == backTail) {
+                        return null;
+                    }
+                    Scene s = backQueue[backHead++];
+                    for (Scene parent : s.getScenesFrom()) {
+                        if (reached[parent.getId()] == stamp || blocked[parent.getId()] || (parent == from && notNext.contains(s))) {
+                            continue;
+                        }
+                        if (parent == from) {
+                            connected = true;
+                            break;
+                        }
+                        reached[parent.getId()] = stamp;
+                        backQueue[backTail++] = parent;
+                    }
+                }
+                int id = (int) (open.poll().longValue() & ID_MASK);
+                if (seen[id] == stamp) {
+                    continue;
+                }
+                seen[id] = stamp;
+                Scene s = adventure.getScene(id);
+                if (s == to) {
+                    return routeTo(to);
+                }
+                int distance = distances[id] + 1;
+                for (IPath p : s.getPathsUnordered()) {
+                    Scene child = p.getTo();
+                    if (child == null || blocked[child.getId()] || toTarget[child.getId()] == DepthIndex.UNREACHABLE || (s == from && notNext.contains(child))) {
+                        continue;
+                    }
+                    int c = child.getId();
+                    if (seen[c] != stamp && (opened[c] != stamp || distance < distances[c])) {
+                        opened[c] = stamp;
+                        distances[c] = distance;
+                        previous[c] = s;
+                        open.add(key(distance + toTarget[c], distance, c));
+                    }
+                }
+            }
+            return null;
+        }
+
+        private long key(int estimate, int distance, int id)
+        {
+            return ((long) Math.min(estimate, MAX_ESTIMATE) << (DISTANCE_BITS + ID_BITS)) | ((long) (MAX_DISTANCE - Math.min(distance, MAX_DISTANCE)) << ID_BITS) | id;
+        }
+
+        private List<Scene> routeTo(Scene to)
+        {
+            List<Scene> route = new ArrayList<Scene>();
+            for (Scene s = to; s != null; s = previous[s.getId()]) {
+                route.add(s);
+            }
+            Collections.reverse(route);
+            return route;
+        }
+    }
+}
@@ -27,16 +27,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 
 import net.bpfurtado.tas.Util;
 import net.bpfurtado.tas.model.combat.Combat;
 import net.bpfurtado.tas.runner.CodeExecutionAnalyser;
 import net.bpfurtado.tas.runner.PostCodeExecutionAction;
+import net.bpfurtado.tas.runner.SceneScripts;
 
 import org.apache.log4j.Logger;
 
@@ -49,37 +48,78 @@ public class Scene extends TextObject implements Comparable<Scene>
 {
     private static final Logger logger = Logger.getLogger(Scene.class);
 
-    private static int pathIdCounter;
+    private static final int NOT_LAZY = -1;
+
+    /**
+     * Path ids only have to be unique among the paths of the same scene.
+     */
+    private int pathIdCounter;
+
+    /**
+     * Of the adventure this scene belongs to, null while it belongs to none.
+     */
+    private DepthManager depthManager;
+    private SceneScripts scripts;
+    private SymbolTable symbols;
 
     private String name;
+    /**
+     * The name as a number when it has only digits, parsed once for {@link #compareTo(Scene)}.
+     */
+    private BigInteger nameNumber;
     private String tags;
+
+    /**
+     * The ids of the tags at the symbols, empty while the scene belongs to no adventure.
+     */
+    private int[] tagSet = SymbolTable.NO_TAGS;
     private String code = "";
 
+    /**
+     * When loaded lazily, where the text and the code are while they are not set. Only the refs are kept
+     * here, the bodies cache the ones recently read.
+     */
+    private SceneBodies bodies;
+    private int textRef = NOT_LAZY;
+    private int codeRef = NOT_LAZY;
+
     private Combat combat;
 
     private SceneType type = SceneType.regular;
 
     private Skill skillToTest;
 
+    private boolean isStart = false;
+
     /**
-     * Just for the Runner module (bsh sub-module)
-     * 
-     * @return
+     * Always sorted by order, {@link #getPaths()} is called all the time and the paths seldom change.
      */
-    private String originalText = null;
+    private List<IPath> paths = new ArrayList<IPath>(2);
+    private List<IPath> readOnlyPaths = Collections.unmodifiableList(paths);
 
-    private boolean isStart = false;
-
-    private Map<Integer, IPath> paths = new HashMap<Integer, IPath>();
-    private List<Scene> scenesFrom = new LinkedList<Scene>();
+    /**
+     * The paths leading here by the scene they are from, in the order the scenes were first linked. Kept
+     * by {@link Path#setTo(Scene)} and {@link Path#goToNowhere()}.
+     */
+    private Map<Scene, List<IPath>> scenesFrom = new LinkedHashMap<Scene, List<IPath>>(4);
+    private Collection<Scene> readOnlyScenesFrom = Collections.unmodifiableSet(scenesFrom.keySet());
 
-    private LinkedList<PathDepth> pathDepths = new LinkedList<PathDepth>();
+    private List<PathDepth> pathDepths = new ArrayList<PathDepth>(2);
 
     private String imageId;
 
+    /**
+     * Counts the changes to what the builder search and the saved snapshots look at: everything but the
+     * enemies of the combat and the skill to test, that are changed in place.
+     */
+    private int modifications;
+
     public List<PostCodeExecutionAction> executeActions(Game g)
     {
-        return new CodeExecutionAnalyser().analyseCode(g, getCode(), getText());
+        if (scripts == null) {
+            return new CodeExecutionAnalyser().analyseCode(g, getCode(), g.getText(this));
+        }
+        return new CodeExecutionAnalyser().analyseSceneCode(g, scripts, this);
     }
 
     public Scene(int id)
@@ -102,6 +142,9 @@ public class Scene extends TextObject implements Comparable<Scene>
 
     public Iterable<PathDepth> getPathDepths()
     {
+        if (depthManager != null) {
+            depthManager.updateDepths();
+        }
         return pathDepths;
     }
 
@@ -122,36 +165,97 @@ public class Scene extends TextObject implements Comparable<Scene>
 
     // TODO Abaixo os metodos antigos, por rever o que fazem manutencao nos Depths...
 
-    public void addFrom(Scene from)
+    void addPathFrom(IPath path)
     {
-        scenesFrom.add(from);
+        List<IPath> fromPaths = scenesFrom.get(path.getFrom());
+        if (fromPaths == null) {
+            fromPaths = new ArrayList<IPath>(1);
+            scenesFrom.put(path.getFrom(), fromPaths);
+        }
+        fromPaths.add(path);
+        modified();
+    }
+
+    /**
+     * The path no longer leads here.
+     */
+    void removePathFrom(IPath path)
+    {
+        List<IPath> fromPaths = scenesFrom.get(path.getFrom());
+        if (fromPaths == null) {
+            return;
+        }
+        for (int i = 0; i < fromPaths.size(); i++) {
+            if (fromPaths.get(i) == path) {
+                fromPaths.remove(i);
+                break;
+            }
+        }
+        if (fromPaths.isEmpty()) {
+            scenesFrom.remove(path.getFrom());
+        }
+        modified();
+    }
+
+    /**
+     * @return read only, the paths of <code>from</code> leading here.
+     */
+    public List<IPath> getPathsFrom(Scene from)
+    {
+        List<IPath> fromPaths = scenesFrom.get(from);
+        if (fromPaths == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(fromPaths);
     }
 
     public void remove(IPath pathToRemove)
     {
+        for (int i = 0; i < paths.size(); i++) {
+            if (paths.get(i) == pathToRemove) {
+                paths.remove(i);
+                break;
+            }
+        }
+        modified();
         if (pathToRemove.getTo() != null) {
-            pathToRemove.getTo().removeDepthsOf(pathToRemove);
+            pathToRemove.getTo().removePathFrom(pathToRemove);
+            unlinked(pathToRemove.getTo());
         }
-        paths.remove(pathToRemove.getId());
     }
 
-    public void removeDepthsOf(IPath pathToBeRemoved)
+    DepthManager getDepthManager()
     {
-        logger.debug("REMOVING ### Scene: " + this);
-        logger.debug("REMOVING ### Path " + pathToBeRemoved);
-        for (ListIterator<PathDepth> ite = pathDepths.listIterator(); ite.hasNext();) {
-            PathDepth pathDepth = ite.next();
-            if (pathDepth.hasPath(pathToBeRemoved)) {
-                // This path doesn't come to me anymore.
-                pathDepth.removeItSelfFromDepth(pathToBeRemoved.getTo());
-                logger.debug("REMOVING %%%: " + pathDepth);
+        return depthManager;
+    }
 
-                // TODO logica de se remover da scena feita na recursao
-                // java.util.ConcurrentModificationException
+    void setDepthManager(DepthManager depthManager)
+    {
+        this.depthManager = depthManager;
+    }
 
-                logger.debug("&&& me: " + toString() + "removing pd: " + pathDepth);
-                ite.remove();
-            }
+    void setScripts(SceneScripts scripts)
+    {
+        this.scripts = scripts;
+    }
+
+    void setSymbols(SymbolTable symbols)
+    {
+        this.symbols = symbols;
+        internTags();
+    }
+
+    void linked(Path path)
+    {
+        if (depthManager != null) {
+            depthManager.linked(path);
+        }
+    }
+
+    void unlinked(Scene to)
+    {
+        if (depthManager != null) {
+            depthManager.unlinked(this, to);
         }
     }
 
@@ -163,18 +267,21 @@ public class Scene extends TextObject implements Comparable<Scene>
     public IPath createPath(String text)
     {
         Path path = new Path(pathIdCounter++, text, this);
-        paths.put(path.getId(), path);
+        paths.add(path);
+        sortPaths();
+        modified();
 
         return path;
     }
 
     /**
-     * FIXME os from'scrollPane de uma scene virão das entidades PathDepth, refatorar isto em breve! TODO
-     * could make read only
+     * FIXME os from'scrollPane de uma scene virão das entidades PathDepth, refatorar isto em breve!
+     * 
+     * @return read only, each scene once however many of its paths lead here.
      */
-    public List<Scene> getScenesFrom()
+    public Collection<Scene> getScenesFrom()
     {
-        return scenesFrom;
+        return readOnlyScenesFrom;
     }
 
     public boolean hasScenesFrom()
@@ -185,7 +292,17 @@ public class Scene extends TextObject implements Comparable<Scene>
     public void markAsEndScene()
     {
         removeAllPaths();
-        type = SceneType.end;
+        if (type != SceneType.end) {
+            type = SceneType.end;
+            endsChanged();
+        }
+    }
+
+    private void endsChanged()
+    {
+        if (depthManager != null) {
+            depthManager.endsChanged();
+        }
     }
 
     public void markAsCombatScene()
@@ -205,41 +322,57 @@ public class Scene extends TextObject implements Comparable<Scene>
     private void removeAllPathsButOne()
     {
         IPath remainingPath = null;
-        for (IPath p : paths.values()) {
+        List<IPath> removed = new ArrayList<IPath>();
+        for (IPath p : paths) {
             if (remainingPath == null) {
                 remainingPath = p;
-            }
-            if (p.getTo() != null) {
-                p.getTo().scenesFrom.remove(this);
+            } else {
+                removed.add(p);
             }
         }
         paths.clear();
+        paths.add(remainingPath);
         remainingPath.setOrder(0);
-        paths.put(remainingPath.getId(), remainingPath);
+        modified();
+        unlinkAll(removed);
     }
 
     public void removeAllPaths()
     {
-        for (IPath p : paths.values()) {
+        List<IPath> removed = new ArrayList<IPath>(paths);
+        paths.clear();
+        modified();
+        unlinkAll(removed);
+    }
+
+    private void unlinkAll(Collection<IPath> removedPaths)
+    {
+        for (IPath p : removedPaths) {
             if (p.getTo() != null) {
-                p.getTo().scenesFrom.remove(this);
+                p.getTo().removePathFrom(p);
+                unlinked(p.getTo());
             }
         }
-        paths.clear();
     }
 
+    /**
+     * By name, a total order: the names with only digits first, as numbers, then the other names as text
+     * and the scenes without a name last.
+     */
     public int compareTo(Scene obj)
     {
         Scene other = (Scene) obj;
         if (this.name == null || other.name == null) {
-            return 0;
+            return this.name == null ? (other.name == null ? 0 : 1) : -1;
         }
-        if (Util.hasOnlyDigits(this.name) && Util.hasOnlyDigits(other.name)) {
-            try {
-                return new Integer(this.name).compareTo(new Integer(other.name));
-            } catch (NumberFormatException nfe) {
-                return new BigInteger(this.name).compareTo(new BigInteger(other.name));
+        if (this.nameNumber != null || other.nameNumber != null) {
+            if (this.nameNumber == null) {
+                return 1;
+            }
+            if (other.nameNumber == null) {
+                return -1;
             }
+            return this.nameNumber.compareTo(other.nameNumber);
         }
         return this.name.compareTo(other.name);
     }
@@ -256,16 +389,52 @@ public class Scene extends TextObject implements Comparable<Scene>
         return "[Scene: name=" + getName() + "]";
     }
 
+    /**
+     * @return the paths by order, read only and changing with the scene: copy it to remove paths while going
+     *         through it.
+     */
     public List<IPath> getPaths()
     {
-        List<IPath> sortedPaths = new LinkedList<IPath>(paths.values());
-        Collections.sort(sortedPaths, new Comparator<IPath>() {
-            public int compare(IPath p1, IPath p2)
-            {
-                return Integer.valueOf(p1.getOrder()).compareTo(p2.getOrder());
+        return readOnlyPaths;
+    }
+
+    /**
+     * When a path is added or its order changes. The paths are almost always sorted already, so this is
+     * cheap.
+     */
+    void sortPaths()
+    {
+        for (int i = 1; i < paths.size(); i++) {
+            if (paths.get(i - 1).getOrder() > paths.get(i).getOrder()) {
+                Collections.sort(paths, BY_ORDER);
+                return;
+            }
+        }
+    }
+
+    private static final Comparator<IPath> BY_ORDER = new Comparator<IPath>() {
+        public int compare(IPath p1, IPath p2)
+        {
+            return p1.getOrder() < p2.getOrder() ? -1 : (p1.getOrder() == p2.getOrder() ? 0 : 1);
+        }
+    };
+
+    /**
+     * For the depth maintenance, that doesn't care about the order.
+     */
+    Collection<IPath> getPathsUnordered()
+    {
+        return paths;
+    }
+
+    boolean hasPathTo(Scene scene)
+    {
+        for (IPath p : paths) {
+            if (scene.equals(p.getTo())) {
+                return true;
             }
-        });
-        return sortedPaths;
+        }
+        return false;
     }
 
     public boolean hasPaths()
@@ -275,7 +444,7 @@ public class Scene extends TextObject implements Comparable<Scene>
 
     public int getPathsSize()
     {
-        return paths.values().size();
+        return paths.size();
     }
 
     public String getName()
@@ -286,6 +455,11 @@ public class Scene extends TextObject implements Comparable<Scene>
     public void setName(String name)
     {
         this.name = name;
+        this.nameNumber = name != null && name.length() > 0 && Util.hasOnlyDigits(name) ? new BigInteger(name) : null;
+        modified();
+        if (depthManager != null) {
+            depthManager.renamed();
+        }
     }
 
     public String getTags()
@@ -296,20 +470,53 @@ public class Scene extends TextObject implements Comparable<Scene>
     public void setTags(String tags)
     {
         this.tags = tags;
+        internTags();
+        modified();
+    }
+
+    private void internTags()
+    {
+        if (symbols == null) {
+            tagSet = SymbolTable.NO_TAGS;
+        } else {
+            tags = symbols.intern(tags);
+            tagSet = symbols.tagSet(tags);
+        }
+    }
+
+    /**
+     * @return sorted, shared: not to be changed.
+     */
+    public int[] getTagSet()
+    {
+        return tagSet;
+    }
+
+    /**
+     * @param tagIds sorted, at the symbols of the adventure.
+     */
+    public boolean hasTags(int[] tagIds)
+    {
+        return SymbolTable.containsAll(tagSet, tagIds);
     }
 
+    /**
+     * Sends the paths leading to <code>sceneToRemove</code> to nowhere.
+     */
     public void remove(Scene sceneToRemove)
     {
-        for (IPath p : getPaths()) {
-            if (p.getTo().equals(sceneToRemove)) {
-                p.goToNowhere();
-            }
+        List<IPath> toIt = sceneToRemove.scenesFrom.get(this);
+        if (toIt == null) {
+            return;
+        }
+        for (IPath p : new ArrayList<IPath>(toIt)) {
+            p.goToNowhere();
         }
     }
 
-    void remove(PathDepth pd)
+    void clearPathDepths()
     {
-        pathDepths.remove(pd);
+        pathDepths.clear();
     }
 
     public void add(PathDepth pd)
@@ -327,37 +534,72 @@ public class Scene extends TextObject implements Comparable<Scene>
      */
     public int getPathDepthsSize()
     {
+        if (depthManager != null) {
+            depthManager.updateDepths();
+        }
         return pathDepths.size();
     }
 
+    /**
+     * The text and the code will be read from the bodies when asked for, until set.
+     */
+    public void setBody(SceneBodies bodies, int textRef, int codeRef)
+    {
+        this.bodies = bodies;
+        this.textRef = textRef;
+        this.codeRef = codeRef;
+        super.setText(null);
+        this.code = null;
+        modified();
+        if (scripts != null) {
+            scripts.evict(this);
+        }
+    }
+
     public String getCode()
     {
+        if (codeRef != NOT_LAZY) {
+            return bodies.get(codeRef);
+        }
         return code;
     }
 
     public void setCode(String code)
     {
         this.code = code;
+        codeRef = NOT_LAZY;
+        modified();
+        if (scripts != null) {
+            scripts.evict(this);
+        }
     }
 
-    /**
-     * Just for the Runner module (bsh sub-module)
-     * 
-     * @return
-     */
-    public String getOriginalText()
+    @Override
+    public String getText()
     {
-        return originalText;
+        if (textRef != NOT_LAZY) {
+            return bodies.get(textRef);
+        }
+        return super.getText();
     }
 
     @Override
     public void setText(String text)
     {
-        if (getText() == null && originalText == null) {
-            originalText = text;
-        }
         logger.debug("id=[" + getId() + "], text=[" + text + "]");
         super.setText(text);
+        textRef = NOT_LAZY;
+        modified();
+    }
+
+    void modified()
+    {
+        modifications++;
+    }
+
+    public int getModifications()
+    {
+        return modifications;
     }
 
     public Combat getCombat()
@@ -368,6 +610,7 @@ public class Scene extends TextObject implements Comparable<Scene>
     public void setCombat(Combat combat)
     {
         this.combat = combat;
+        modified();
     }
 
     public SceneType getType()
@@ -377,7 +620,11 @@ public class Scene extends TextObject implements Comparable<Scene>
 
     public void setType(SceneType type)
     {
+        if ((this.type == SceneType.end) != (type == SceneType.end)) {
+            endsChanged();
+        }
         this.type = type;
+        modified();
         if (type == SceneType.combat) {
             markAsCombatScene();
         } else if (type == SceneType.end) {
@@ -407,6 +654,7 @@ public class Scene extends TextObject implements Comparable<Scene>
     public void setSkillToTest(Skill skillToTest)
     {
         this.skillToTest = skillToTest;
+        modified();
     }
 
     public String getImageId()
@@ -417,5 +665,6 @@ public class Scene extends TextObject implements Comparable<Scene>
     public void setImageId(String imageId)
     {
         this.imageId = imageId;
+        modified();
     }
 }
@@ -0,0 +1,39 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model;
+
+/**
+ * Where the texts and codes of the scenes come from when they are only read as needed, see
+ * {@link Scene#setBody(SceneBodies, int, int)}.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public interface SceneBodies
+{
+    /**
+     * Any thread can call it.
+     * 
+     * @param ref given by the bodies to the scene.
+     */
+    String get(int ref);
+}
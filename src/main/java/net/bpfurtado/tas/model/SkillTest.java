@@ -0,0 +1,83 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ *
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model;
+
+import java.util.Random;
+
+import net.bpfurtado.tas.AdventureException;
+
+/**
+ * The rules of the {@link net.bpfurtado.tas.runner.SkillTestFrame} without the window: two dice against the
+ * player level of the skill, a success costs one level.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class SkillTest
+{
+    private Player player;
+    private Skill skillToTest;
+
+    private int firstDice;
+    private int secondDice;
+
+    public SkillTest(Player player, Skill skillToTest)
+    {
+        this.player = player;
+        this.skillToTest = skillToTest;
+    }
+
+    /**
+     * @return if the player was skillful.
+     */
+    public boolean play(Random rnd)
+    {
+        int level = getSkillLevelToTest();
+        firstDice = rnd.nextInt(6) + 1;
+        secondDice = rnd.nextInt(6) + 1;
+
+        boolean skillful = firstDice + secondDice <= level;
+        if (skillful) {
+            // The skill of the scene is just a name, the one to decrease is the player's.
+            player.skill(skillToTest.getName()).dec(1);
+        }
+        return skillful;
+    }
+
+    private int getSkillLevelToTest()
+    {
+        for (Skill s : player.getSkills()) {
+            if (s.getName().equals(skillToTest.getName())) {
+                return s.getLevel();
+            }
+        }
+        throw new AdventureException("Skill " + skillToTest.getName() + " not found in player skills.");
+    }
+
+    public int getFirstDice()
+    {
+        return firstDice;
+    }
+
+    public int getSecondDice()
+    {
+        return secondDice;
+    }
+}
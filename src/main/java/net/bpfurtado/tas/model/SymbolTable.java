@@ -0,0 +1,178 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tags of an adventure, kept only once. Each tag gets an id, and the tags of a scene are kept as a set
+ * of those ids, so filtering by tag compares sorted int arrays instead of splitting strings.
+ * 
+ * Any thread can use it, the search of the builder reads it out of the EDT.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class SymbolTable
+{
+    public static final int[] NO_TAGS = new int[0];
+
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final List<String> symbols = new ArrayList<String>();
+
+    /**
+     * The tag sets by the tags as written, scenes with the same tags share the set.
+     */
+    private final Map<String, int[]> tagSets = new HashMap<String, int[]>();
+
+    /**
+     * @return the string kept for <code>s</code>, the first one equal to it given to this table.
+     */
+    public synchronized String intern(String s)
+    {
+        if (s == null) {
+            return null;
+        }
+        return symbols.get(idOf(s));
+    }
+
+    /**
+     * Interns <code>s</code> when it is new.
+     */
+    public synchronized int idOf(String s)
+    {
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = symbols.size();
+            symbols.add(s);
+            ids.put(s, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return -1 when it was never interned.
+     */
+    public synchronized int find(String s)
+    {
+        Integer id = ids.get(s);
+        return id == null ? -1 : id;
+    }
+
+    public synchronized String get(int id)
+    {
+        return symbols.get(id);
+    }
+
+    public synchronized int size()
+    {
+        return symbols.size();
+    }
+
+    /**
+     * The tags are separated by commas or spaces, and compared in lower case.
+     * 
+     * @return the ids of the tags, sorted and without repetitions. Shared, not to be changed.
+     */
+    public synchronized int[] tagSet(String tags)
+    {
+        if (tags == null) {
+            return NO_TAGS;
+        }
+        int[] set = tagSets.get(tags);
+        if (set != null) {
+            return set;
+        }
+
+        String[] names = splitTags(tags);
+        set = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            set[i] = idOf(names[i]);
+        }
+        Arrays.sort(set);
+        int size = 0;
+        for (int i = 0; i < set.length; i++) {
+            if (size == 0 || set[size - 1] != set[i]) {
+                set[size++] = set[i];
+            }
+        }
+        set = size == 0 ? NO_TAGS : Arrays.copyOf(set, size);
+        tagSets.put(intern(tags), set);
+        return set;
+    }
+
+    /**
+     * @return the ids of the tags, -1 for the ones never seen, in the order given.
+     */
+    public synchronized int[] findTags(String tags)
+    {
+        String[] names = splitTags(tags);
+        int[] found = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            found[i] = find(names[i]);
+        }
+        return found;
+    }
+
+    private static String[] splitTags(String tags)
+    {
+        String trimmed = tags.trim().toLowerCase();
+        if (trimmed.length() == 0) {
+            return new String[0];
+        }
+        String[] names = trimmed.split("[,\\s]+");
+        if (names.length > 0 && names[0].length() == 0) {
+            return Arrays.copyOfRange(names, 1, names.length);
+        }
+        return names;
+    }
+
+    /**
+     * @param set sorted.
+     */
+    public static boolean contains(int[] set, int id)
+    {
+        return Arrays.binarySearch(set, id) >= 0;
+    }
+
+    /**
+     * @param set sorted.
+     * @param subset sorted.
+     */
+    public static boolean containsAll(int[] set, int[] subset)
+    {
+        int i = 0;
+        for (int id : subset) {
+            while (i < set.length && set[i] < id) {
+                i++;
+            }
+            if (i == set.length || set[i] != id) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model.combat;
+
+import java.util.List;
+
+/**
+ * The rules of {@link Fighter#fightWith(Fighter)} over int arrays, for the fights nobody watches: no
+ * {@link AttackResult}, no events and no copies of the enemies. The arrays only grow, so a kernel kept by a
+ * thread resolves one combat after another without allocating.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class CombatKernel
+{
+    private Dice dice;
+
+    private int[] skill = new int[4];
+    private int[] stamina = new int[4];
+    private int[] damage = new int[4];
+    private int enemies;
+    private boolean allAtTheSameTime;
+
+    private int playerSkill;
+    private int playerStamina;
+    private int playerDamage;
+
+    private int current;
+    private int alive;
+    private int rounds;
+
+    public CombatKernel(Dice dice)
+    {
+        this.dice = dice;
+    }
+
+    /**
+     * Copies the stats of the enemies, the combat itself is not changed.
+     */
+    public void load(Combat combat)
+    {
+        List<Fighter> fighters = combat.getEnemies();
+        ensureCapacity(fighters.size());
+
+        enemies = 0;
+        alive = 0;
+        for (Fighter f : fighters) {
+            skill[enemies] = f.getCombatSkillLevel();
+            stamina[enemies] = f.getStamina();
+            damage[enemies] = f.getDamage();
+            if (stamina[enemies] > 0) {
+                alive++;
+            }
+            enemies++;
+        }
+        allAtTheSameTime = combat.getType() == CombatType.allAtTheSameTime;
+        current = nextAlive(enemies - 1);
+        rounds = 0;
+    }
+
+    public void setPlayer(int skill, int stamina, int damage)
+    {
+        this.playerSkill = skill;
+        this.playerStamina = stamina;
+        this.playerDamage = damage;
+    }
+
+    /**
+     * Fights round after round until the player or all the enemies die.
+     * 
+     * @return if the player won.
+     */
+    public boolean resolve()
+    {
+        while (!isOver()) {
+            round();
+        }
+        return playerWon();
+    }
+
+    /**
+     * The player against the current enemy, then the next enemy is chosen: the following one still alive
+     * when they all fight at the same time, otherwise the same until it dies.
+     */
+    public void round()
+    {
+        int myDice1 = dice.roll();
+        int myDice2 = dice.roll();
+        if (myDice1 == 1 && myDice2 == 1) {
+            stamina[current] = 0;
+        }
+        int myForce = myDice1 + myDice2 + playerSkill;
+        int enemyForce = dice.roll() + dice.roll() + skill[current];
+
+        if (myForce > enemyForce) {
+            stamina[current] -= playerDamage;
+        } else if (myForce < enemyForce) {
+            playerStamina -= damage[current];
+        }
+        rounds++;
+
+        boolean killed = stamina[current] <= 0;
+        if (killed) {
+            alive--;
+        }
+        if (alive > 0 && (killed || allAtTheSameTime)) {
+            current = nextAlive(current);
+        }
+    }
+
+    private int nextAlive(int from)
+    {
+        for (int i = 1; i <= enemies; i++) {
+            int candidate = (from + i) % enemies;
+            if (stamina[candidate] > 0) {
+                return candidate;
+            }
+        }
+        return 0;
+    }
+
+    private void ensureCapacity(int size)
+    {
+        if (size > skill.length) {
+            skill = new int[size];
+            stamina = new int[size];
+            damage = new int[size];
+        }
+    }
+
+    public boolean isOver()
+    {
+        return playerStamina <= 0 || alive == 0;
+    }
+
+    public boolean playerWon()
+    {
+        return isOver() && playerStamina > 0;
+    }
+
+    public int getRounds()
+    {
+        return rounds;
+    }
+
+    public int getPlayerStamina()
+    {
+        return playerStamina;
+    }
+
+    public int getEnemyStamina(int enemy)
+    {
+        return stamina[enemy];
+    }
+
+    public int getCurrentEnemy()
+    {
+        return current;
+    }
+}
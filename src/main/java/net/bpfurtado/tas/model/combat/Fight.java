@@ -0,0 +1,105 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.model.combat;
+
+import java.util.Random;
+
+import net.bpfurtado.tas.model.Player;
+
+/**
+ * The rules of the {@link net.bpfurtado.tas.runner.combat.CombatFrame} without the window, for the players
+ * of the game server and the simulator. Resolved by a {@link CombatKernel}, the player stamina is written
+ * back when the rounds are over.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class Fight
+{
+    private Player player;
+    private CombatKernel kernel;
+
+    public Fight(Player player, Combat combat)
+    {
+        this(player, combat, new Random());
+    }
+
+    public Fight(Player player, Combat combat, Random rnd)
+    {
+        this(player, combat, new CombatKernel(new RandomDice(rnd)));
+    }
+
+    /**
+     * @param kernel reused, the combat is loaded into it.
+     */
+    public Fight(Player player, Combat combat, CombatKernel kernel)
+    {
+        this.player = player;
+        this.kernel = kernel;
+
+        // Only the stats are copied, the combat belongs to the adventure, shared by all the players.
+        kernel.load(combat);
+        kernel.setPlayer(player.getCombatSkillLevel(), player.getStamina(), player.getDamage());
+    }
+
+    /**
+     * Fights round after round until the player or all the enemies die.
+     * 
+     * @return if the player won.
+     */
+    public boolean toTheDeath()
+    {
+        kernel.resolve();
+        updatePlayer();
+        return playerWon();
+    }
+
+    /**
+     * @return if the fight goes on.
+     */
+    public boolean nextRound()
+    {
+        kernel.round();
+        updatePlayer();
+        return !isOver();
+    }
+
+    private void updatePlayer()
+    {
+        if (player.getStamina() != kernel.getPlayerStamina()) {
+            player.setStamina(kernel.getPlayerStamina());
+        }
+    }
+
+    public boolean isOver()
+    {
+        return kernel.isOver();
+    }
+
+    public boolean playerWon()
+    {
+        return kernel.playerWon();
+    }
+
+    public int getRounds()
+    {
+        return kernel.getRounds();
+    }
+}
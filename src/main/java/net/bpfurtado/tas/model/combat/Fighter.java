@@ -40,8 +40,8 @@ public class Fighter
 
     private String name;
     private Skill combatSkill;
-    private Integer stamina;
-    private Integer damage = 2;
+    private int stamina;
+    private int damage = 2;
 
     private List<PlayerEventListener> playerEventListeners = new LinkedList<PlayerEventListener>();
 
@@ -60,16 +60,26 @@ public class Fighter
 
     public void fightWith(Fighter enemy)
     {
-        AttackResult myAttackResult = attack(this);
+        fightWith(enemy, RANDOM);
+    }
+
+    /**
+     * @param rnd where the dice come from, the simulator gives each thread its own.
+     */
+    public void fightWith(Fighter enemy, Random rnd)
+    {
+        int myDice1 = rnd.nextInt(6) + 1;
+        int myDice2 = rnd.nextInt(6) + 1;
 
-        if (myAttackResult.isInstantKill()) {
+        if (myDice1 == 1 && myDice2 == 1) {
             enemy.setStamina(0);
         }
 
-        int myForce = myAttackResult.sum();
+        int myForce = myDice1 + myDice2 + getCombatSkillLevel();
 
-        AttackResult enemyAttackResult = attack(enemy);
-        int enemyForce = enemyAttackResult.sum();
+        int enemyDice1 = rnd.nextInt(6) + 1;
+        int enemyDice2 = rnd.nextInt(6) + 1;
+        int enemyForce = enemyDice1 + enemyDice2 + enemy.getCombatSkillLevel();
 
         if (myForce > enemyForce) {
             this.damage(enemy);
@@ -77,6 +87,12 @@ public class Fighter
             enemy.damage(this);
         }
 
+        // The results are only for who is watching the fight
+        if (listeners.isEmpty() && enemy.listeners.isEmpty()) {
+            return;
+        }
+        AttackResult myAttackResult = new AttackResult(myDice1, myDice2, this);
+        AttackResult enemyAttackResult = new AttackResult(enemyDice1, enemyDice2, enemy);
         myAttackResult.defineType(enemyAttackResult);
 
         notifyAtackResultListeners(myAttackResult);
@@ -106,37 +122,36 @@ public class Fighter
         }
     }
 
-    private AttackResult attack(Fighter f)
-    {
-        int dice1 = RANDOM.nextInt(6) + 1;
-        int dice2 = RANDOM.nextInt(6) + 1;
-        return new AttackResult(dice1, dice2, f);
-    }
-
-    public void setSkill(Integer combatSkillLevel)
+    public void setSkill(int combatSkillLevel)
     {
-        int old = combatSkillLevel;
+        int old = combatSkill.getLevel();
         this.combatSkill.setLevel(combatSkillLevel);
-        fire(new PlayerEvent(combatSkill.getName(), combatSkill.getName() + " was " + old + ", now is " + combatSkill.getLevel()));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent(combatSkill.getName(), combatSkill.getName() + " was " + old + ", now is " + combatSkill.getLevel()));
+        }
     }
 
-    public void setStamina(Integer stamina)
+    public void setStamina(int stamina)
     {
         int old = this.stamina;
         this.stamina = stamina;
-        fire(new PlayerEvent("Stamina", "Stamina was " + old + ", now is " + stamina));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent("Stamina", "Stamina was " + old + ", now is " + stamina));
+        }
     }
 
-    public void setDamage(Integer damage)
+    public void setDamage(int damage)
     {
         int old = this.damage;
         this.damage = damage;
-        fire(new PlayerEvent("Damage", "Damage was " + old + ", now is " + damage));
+        if (hasEventListeners()) {
+            fire(new PlayerEvent("Damage", "Damage was " + old + ", now is " + damage));
+        }
     }
 
     public boolean isDead()
     {
-        return getStamina() <= 0;
+        return stamina <= 0;
     }
 
     public String getName()
@@ -154,7 +169,7 @@ public class Fighter
         return combatSkill.getLevel();
     }
 
-    public void setCombatSkill(Integer combatSkillLevel)
+    public void setCombatSkill(int combatSkillLevel)
     {
         this.combatSkill.setLevel(combatSkillLevel);
     }
@@ -202,6 +217,14 @@ public class Fighter
         playerEventListeners.add(listener);
     }
 
+    /**
+     * So the events, and their descriptions, are only built when someone will receive them.
+     */
+    protected boolean hasEventListeners()
+    {
+        return !playerEventListeners.isEmpty();
+    }
+
     protected void fire(PlayerEvent event)
     {
         for (PlayerEventListener listener : playerEventListeners) {
@@ -0,0 +1,105 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import java.io.File;
+
+import net.bpfurtado.tas.model.Adventure;
+
+/**
+ * Converts adventures between the .adv.xml and the .adv.bin formats, the converted file is written next to
+ * the original one:
+ * 
+ * <pre>
+ * java ... net.bpfurtado.tas.model.persistence.AdventureConverter adventure.adv.xml other.adv.bin
+ * </pre>
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class AdventureConverter
+{
+    private static final String XML_EXTENSION = ".adv.xml";
+
+    public static boolean isBinary(File adventureFile)
+    {
+        return adventureFile.getName().endsWith(BinaryAdventureFormat.EXTENSION);
+    }
+
+    public static AdventureReader readerFor(File adventureFile)
+    {
+        return isBinary(adventureFile) ? new BinaryAdventureReader() : new XMLAdventureReader();
+    }
+
+    /**
+     * For adventures only played, the binary ones are read with lazy bodies.
+     */
+    public static AdventureReader readerToPlay(File adventureFile)
+    {
+        return isBinary(adventureFile) ? new BinaryAdventureReader(BinaryAdventureReader.DEFAULT_BODIES_CAPACITY) : new XMLAdventureReader();
+    }
+
+    public static AdventureWriter writerFor(Adventure adventure, File adventureFile)
+    {
+        if (isBinary(adventureFile)) {
+            return new BinaryAdventureWriter(adventure, adventureFile);
+        }
+        return new XMLAdventureWriter(adventure, adventureFile);
+    }
+
+    public static File toBinary(File xmlFile)
+    {
+        Adventure adventure = new XMLAdventureReader().read(xmlFile);
+        return new BinaryAdventureWriter(adventure, siblingOf(xmlFile, XML_EXTENSION, BinaryAdventureFormat.EXTENSION)).write();
+    }
+
+    public static File toXML(File binaryFile)
+    {
+        Adventure adventure = new BinaryAdventureReader().read(binaryFile);
+        return new XMLAdventureWriter(adventure, siblingOf(binaryFile, BinaryAdventureFormat.EXTENSION, XML_EXTENSION)).write();
+    }
+
+    private static File siblingOf(File f, String extension, String newExtension)
+    {
+        String path = f.getAbsolutePath();
+        if (path.endsWith(extension)) {
+            path = path.substring(0, path.length() - extension.length());
+        }
+        return new File(path + newExtension);
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length == 0) {
+            System.err.println("Usage: AdventureConverter <file.adv.xml | file.adv.bin>...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            File f = new File(arg);
+            if (!f.exists()) {
+                throw new AdventureReaderException("The file [" + arg + "] does not exist");
+            }
+            File converted = isBinary(f) ? toXML(f) : toBinary(f);
+            System.out.println(f + " -> " + converted);
+        }
+    }
+}
@@ -0,0 +1,485 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.readSignedVarint;
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.readVarint;
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.writeSignedVarint;
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.writeVarint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import net.bpfurtado.tas.AdventureException;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.Skill;
+import net.bpfurtado.tas.model.combat.Combat;
+import net.bpfurtado.tas.model.combat.CombatType;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The changes saved since the last full write of the adventure (the base), appended to a file next to it so
+ * a save costs what was changed and not the whole adventure. Loading replays it over the base, a full write
+ * compacts it away.
+ * 
+ * <pre>
+ * header: magic "TASJ", version, then length and last modification of the base (8 bytes each)
+ * batch: length, the records, CRC32 of the records (4 bytes)
+ * record ADVENTURE: name, assertions
+ * record SCENE: as at {@link BinaryAdventureFormat}, with the strings inline (length + 1, 0 for null)
+ * record REMOVED: scene id
+ * </pre>
+ * 
+ * Each save is one batch, replayed whole or not at all. A journal left from another version of the base is
+ * started again by the next append instead of being appended to.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class AdventureJournal
+{
+    private static final Logger logger = Logger.getLogger(AdventureJournal.class);
+
+    public static final String EXTENSION = ".adv.journal";
+
+    private static final byte[] MAGIC = { 'T', 'A', 'S', 'J' };
+    private static final int VERSION = 2;
+
+    private static final int ADVENTURE = 0;
+    private static final int SCENE = 1;
+    private static final int REMOVED = 2;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File base;
+    private final File file;
+
+    /**
+     * @param base the .adv.xml the journal goes over.
+     */
+    public AdventureJournal(File base)
+    {
+        this.base = base;
+        String name = base.getName();
+        if (name.endsWith(".adv.xml")) {
+            name = name.substring(0, name.length() - ".adv.xml".length());
+        }
+        this.file = new File(base.getAbsoluteFile().getParentFile(), name + EXTENSION);
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return 0 when there is no journal.
+     */
+    public long length()
+    {
+        return file.length();
+    }
+
+    /**
+     * After the base is written again, the changes are in it.
+     */
+    public void delete()
+    {
+        if (file.exists() && !file.delete()) {
+            logger.warn("Could not delete [" + file + "]");
+        }
+    }
+
+    /**
+     * Appends, in one batch synced to the disk, what changed from <code>previous</code> to
+     * <code>current</code>. Both must be of the adventure saved at the base.
+     * 
+     * @return how many records were appended, none when nothing changed.
+     */
+    public int append(AdventureSnapshot previous, AdventureSnapshot current)
+    {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(4 * 1024);
+        int count = 0;
+
+        if (!equal(previous.getName(), current.getName()) || !equal(previous.getAssertions(), current.getAssertions())) {
+            records.write(ADVENTURE);
+            writeString(records, current.getName());
+            writeString(records, current.getAssertions());
+            count++;
+        }
+
+        // Both by id, walked side by side.
+        List<SceneSnapshot> before = previous.getScenes();
+        int j = 0;
+        for (SceneSnapshot s : current.getScenes()) {
+            while (j < before.size() && before.get(j).getId() < s.getId()) {
+                writeRemoved(records, before.get(j++));
+                count++;
+            }
+            if (j < before.size() && before.get(j).getId() == s.getId()) {
+                if (before.get(j++).sameAs(s)) {
+                    continue;
+                }
+            }
+            writeScene(records, s);
+            count++;
+        }
+        while (j < before.size()) {
+            writeRemoved(records, before.get(j++));
+            count++;
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        byte[] header = header();
+        boolean again = !isOfTheBase(header);
+        if (again && file.length() > 0) {
+            logger.warn("Starting [" + file + "] again, it was not of the current [" + base + "]");
+        }
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(records.size() + header.length + 8);
+        if (again) {
+            batch.write(header, 0, header.length);
+        }
+        byte[] bytes = records.toByteArray();
+        writeVarint(batch, bytes.length);
+        batch.write(bytes, 0, bytes.length);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        byte[] checksum = ByteBuffer.allocate(4).putInt((int) crc.getValue()).array();
+        batch.write(checksum, 0, checksum.length);
+
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(file, !again);
+            batch.writeTo(out);
+            out.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            throw new AdventureException("Error writing the journal [" + file + "]", e);
+        } finally {
+            close(out);
+        }
+        return count;
+    }
+
+    private byte[] header()
+    {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(32);
+        header.write(MAGIC, 0, MAGIC.length);
+        writeVarint(header, VERSION);
+        byte[] baseVersion = ByteBuffer.allocate(16).putLong(base.length()).putLong(base.lastModified()).array();
+        header.write(baseVersion, 0, baseVersion.length);
+        return header.toByteArray();
+    }
+
+    /**
+     * @return if the journal starts with the header of the current base.
+     */
+    private boolean isOfTheBase(byte[] header)
+    {
+        if (file.length() < header.length) {
+            return false;
+        }
+        try {
+            RandomAccessFile in = new RandomAccessFile(file, "r");
+            try {
+                byte[] existing = new byte[header.length];
+                in.readFully(existing);
+                return Arrays.equals(header, existing);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read the header of [" + file + "]", e);
+            return false;
+        }
+    }
+
+    /**
+     * Applies the journal over the adventure read from the base. A journal of another version of the base (a
+     * compaction that didn't get to delete it) is ignored, and a batch cut in half (a crash while appending)
+     * ends the replay.
+     * 
+     * @return how many batches were applied.
+     */
+    public int replay(Adventure adventure)
+    {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        ByteBuffer in;
+        try {
+            in = readAll();
+        } catch (IOException e) {
+            logger.warn("Ignoring the unreadable journal [" + file + "]", e);
+            return 0;
+        }
+
+        try {
+            for (byte b : MAGIC) {
+                if (in.get() != b) {
+                    logger.warn("Ignoring [" + file + "], not a journal");
+                    return 0;
+                }
+            }
+            if (readVarint(in) != VERSION || in.getLong() != base.length() || in.getLong() != base.lastModified()) {
+                logger.warn("Ignoring [" + file + "], it is not of the current [" + base + "]");
+                return 0;
+            }
+        } catch (BufferUnderflowException e) {
+            return 0;
+        }
+
+        int batches = 0;
+        adventure.startBulkLinking();
+        try {
+            while (in.hasRemaining()) {
+                ByteBuffer records = nextBatch(in);
+                if (records == null) {
+                    logger.warn("Journal [" + file + "] cut at batch " + batches + ", the rest is lost");
+                    break;
+                }
+                while (records.hasRemaining()) {
+                    apply(records, adventure);
+                }
+                batches++;
+            }
+        } finally {
+            adventure.endBulkLinking();
+        }
+        logger.debug("Replayed " + batches + " batches of [" + file + "]");
+        return batches;
+    }
+
+    /**
+     * @return null when the batch is incomplete or corrupted.
+     */
+    private static ByteBuffer nextBatch(ByteBuffer in)
+    {
+        try {
+            int length = readVarint(in);
+            if (length < 0 || length + 4 > in.remaining()) {
+                return null;
+            }
+            byte[] records = new byte[length];
+            in.get(records);
+            CRC32 crc = new CRC32();
+            crc.update(records);
+            if (in.getInt() != (int) crc.getValue()) {
+                return null;
+            }
+            return ByteBuffer.wrap(records);
+        } catch (BufferUnderflowException e) {
+            return null;
+        } catch (AdventureReaderException e) {
+            return null;
+        }
+    }
+
+    private ByteBuffer readAll() throws IOException
+    {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) in.length()];
+            in.readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void apply(ByteBuffer in, Adventure adventure)
+    {
+        int kind = in.get();
+        if (kind == ADVENTURE) {
+            adventure.setName(readString(in));
+            adventure.setAssertions(readString(in));
+        } else if (kind == REMOVED) {
+            Scene s = adventure.getScene(readVarint(in));
+            if (s != null && s != adventure.getStart()) {
+                adventure.remove(s);
+            }
+        } else if (kind == SCENE) {
+            applyScene(in, adventure);
+        } else {
+            throw new AdventureReaderException("Unknown journal record [" + kind + "]");
+        }
+    }
+
+    private static void applyScene(ByteBuffer in, Adventure adventure)
+    {
+        int id = PathLinker.checkSceneId(readVarint(in));
+        boolean isEnd = in.get() != 0;
+
+        Scene s = adventure.getScene(id);
+        if (s == null) {
+            s = adventure.createScene(id, isEnd);
+        } else {
+            s.removeAllPaths();
+        }
+
+        s.setName(readString(in));
+        s.setTags(readString(in));
+        s.setImageId(readString(in));
+        s.setText(readString(in));
+        s.setCode(readString(in));
+
+        int kind = readVarint(in);
+        if (kind == BinaryAdventureFormat.COMBAT) {
+            Combat c = new Combat();
+            String type = readString(in);
+            try {
+                c.setType(CombatType.fromPersistentRepr(type));
+            } catch (RuntimeException e) {
+                throw new AdventureReaderException("Unknown combat type [" + type + "] of scene [" + id + "]", e);
+            }
+            int numberOfEnemies = readVarint(in);
+            for (int i = 0; i < numberOfEnemies; i++) {
+                String name = readString(in);
+                Fighter fighter = new Fighter(name, readSignedVarint(in), readSignedVarint(in));
+                fighter.setDamage(readSignedVarint(in));
+                c.add(fighter);
+            }
+            s.setType(SceneType.combat);
+            s.setCombat(c);
+        } else if (kind == BinaryAdventureFormat.SKILL_TEST) {
+            s.setType(SceneType.skillTest);
+            s.setSkillToTest(new Skill(readString(in)));
+        } else {
+            s.setType(isEnd ? SceneType.end : SceneType.regular);
+        }
+
+        int numberOfPaths = readVarint(in);
+        for (int i = 0; i < numberOfPaths; i++) {
+            IPath p = s.createPath(readString(in));
+            p.setOrder(readSignedVarint(in));
+            int to = readVarint(in);
+            if (to != BinaryAdventureFormat.NOWHERE) {
+                Scene destiny = adventure.getScene(to - 1);
+                if (destiny == null) {
+                    // Created by a record further on the same batch.
+                    destiny = adventure.createScene(PathLinker.checkSceneId(to - 1), false);
+                }
+                p.setTo(destiny);
+            }
+        }
+    }
+
+    private static void writeRemoved(ByteArrayOutputStream out, SceneSnapshot s)
+    {
+        out.write(REMOVED);
+        writeVarint(out, s.getId());
+    }
+
+    private static void writeScene(ByteArrayOutputStream out, SceneSnapshot s)
+    {
+        out.write(SCENE);
+        writeVarint(out, s.getId());
+        out.write(s.isEnd() ? 1 : 0);
+        writeString(out, s.getName());
+        writeString(out, s.getTags());
+        writeString(out, s.getImageId());
+        writeString(out, s.getText());
+        writeString(out, s.getCode());
+
+        if (s.getType() == SceneType.combat) {
+            writeVarint(out, BinaryAdventureFormat.COMBAT);
+            writeString(out, s.getCombatType().toString());
+            writeVarint(out, s.getEnemies().size());
+            for (Fighter f : s.getEnemies()) {
+                writeString(out, f.getName());
+                writeSignedVarint(out, f.getCombatSkillLevel());
+                writeSignedVarint(out, f.getStamina());
+                writeSignedVarint(out, f.getDamage());
+            }
+        } else if (s.getType() == SceneType.skillTest) {
+            writeVarint(out, BinaryAdventureFormat.SKILL_TEST);
+            writeString(out, s.getSkillToTest());
+        } else {
+            writeVarint(out, BinaryAdventureFormat.REGULAR);
+        }
+
+        writeVarint(out, s.getNumberOfPaths());
+        for (int i = 0; i < s.getNumberOfPaths(); i++) {
+            writeString(out, s.getPathText(i));
+            writeSignedVarint(out, s.getPathOrder(i));
+            int to = s.getPathTo(i);
+            writeVarint(out, to == SceneSnapshot.NOWHERE ? BinaryAdventureFormat.NOWHERE : to + 1);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s)
+    {
+        if (s == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(UTF8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in)
+    {
+        int length = readVarint(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static boolean equal(Object a, Object b)
+    {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static void close(FileOutputStream out)
+    {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warn("Error closing the journal", e);
+        }
+    }
+}
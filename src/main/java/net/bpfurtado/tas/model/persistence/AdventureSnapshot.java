@@ -0,0 +1,153 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * The adventure as the writers save it, taken on the thread that changes the adventure (the EDT at the
+ * builder) and written by any other.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class AdventureSnapshot
+{
+    private static final AtomicLong snapshots = new AtomicLong();
+
+    private final long sequence = snapshots.incrementAndGet();
+    private final long time = System.currentTimeMillis();
+
+    private final String name;
+    private final String assertions;
+    private final int startId;
+
+    private final List<SceneSnapshot> scenes;
+    private final int reused;
+
+    private AdventureSnapshot(Adventure a, List<SceneSnapshot> scenes, int reused)
+    {
+        this(a.getName(), a.getAssertions(), a.getStart().getId(), Collections.unmodifiableList(scenes), reused);
+    }
+
+    private AdventureSnapshot(String name, String assertions, int startId, List<SceneSnapshot> scenes, int reused)
+    {
+        this.name = name;
+        this.assertions = assertions;
+        this.startId = startId;
+        this.scenes = scenes;
+        this.reused = reused;
+    }
+
+    public static AdventureSnapshot of(Adventure a)
+    {
+        return of(a, null);
+    }
+
+    /**
+     * Only the scenes changed since <code>previous</code> are copied, the others are shared with it.
+     */
+    public static AdventureSnapshot of(Adventure a, AdventureSnapshot previous)
+    {
+        List<Scene> current = a.getScenes();
+        List<SceneSnapshot> scenes = new ArrayList<SceneSnapshot>(current.size());
+        int reused = 0;
+
+        // Both by id, walked side by side.
+        int j = 0;
+        List<SceneSnapshot> old = previous == null ? Collections.<SceneSnapshot> emptyList() : previous.scenes;
+        for (Scene s : current) {
+            while (j < old.size() && old.get(j).getId() < s.getId()) {
+                j++;
+            }
+            if (j < old.size() && old.get(j).isUpToDateWith(s)) {
+                scenes.add(old.get(j));
+                reused++;
+            } else {
+                scenes.add(new SceneSnapshot(s));
+            }
+        }
+        return new AdventureSnapshot(a, scenes, reused);
+    }
+
+    /**
+     * The same adventure under another name, sharing all the scenes. For copies of the adventure, like the
+     * exported ones, not to be saved at its workspace.
+     */
+    public AdventureSnapshot withName(String newName)
+    {
+        return new AdventureSnapshot(newName, assertions, startId, scenes, scenes.size());
+    }
+
+    /**
+     * @return bigger for the snapshots taken later.
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * @return when it was taken.
+     */
+    public long getTime()
+    {
+        return time;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getAssertions()
+    {
+        return assertions;
+    }
+
+    public int getStartId()
+    {
+        return startId;
+    }
+
+    /**
+     * @return by id, read only.
+     */
+    public List<SceneSnapshot> getScenes()
+    {
+        return scenes;
+    }
+
+    /**
+     * @return how many scenes were shared with the previous snapshot.
+     */
+    public int getReused()
+    {
+        return reused;
+    }
+}
@@ -0,0 +1,100 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces a file so a crash leaves either the old or the new one, never half of it. The bytes go to a
+ * temporary file at the same folder, that is synced to the disk at {@link #commit()} and then renamed over
+ * the target.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class AtomicFileOutputStream extends OutputStream
+{
+    private final File target;
+    private final File temp;
+    private final FileOutputStream out;
+
+    private boolean closed = false;
+
+    public AtomicFileOutputStream(File target) throws IOException
+    {
+        this.target = target;
+        this.temp = new File(target.getAbsoluteFile().getParentFile(), target.getName() + ".tmp");
+        this.out = new FileOutputStream(temp);
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    public void commit() throws IOException
+    {
+        out.flush();
+        out.getFD().sync();
+        out.close();
+        closed = true;
+
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Before {@link #commit()} gives up: the temporary file is deleted and the target is left as it was.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        out.close();
+        temp.delete();
+    }
+}
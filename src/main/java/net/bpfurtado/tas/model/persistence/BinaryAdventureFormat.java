@@ -0,0 +1,94 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the .adv.bin files, all the numbers are varints (zigzag encoded when they can be negative) and
+ * all the strings are references to the string table, 0 for null and index + 1 otherwise:
+ * 
+ * <pre>
+ * magic "TASB", version
+ * string table: count, then for each string its UTF-8 length and bytes
+ * adventure: name, assertions, number of scenes
+ * scene: id, isEnd (0/1), name, tags, imageId, text, code, kind
+ *   kind COMBAT: combat type (its name, as at the XML), number of enemies, then name, skill, stamina and damage of each one
+ *   kind SKILL_TEST: skill name
+ *   number of paths, then text, order and destiny of each one (scene id + 1, 0 when going nowhere)
+ * </pre>
+ * 
+ * @author Bruno Patini Furtado
+ */
+final class BinaryAdventureFormat
+{
+    static final String EXTENSION = ".adv.bin";
+
+    static final byte[] MAGIC = { 'T', 'A', 'S', 'B' };
+    static final int VERSION = 2;
+
+    static final int REGULAR = 0;
+    static final int COMBAT = 1;
+    static final int SKILL_TEST = 2;
+
+    static final int NULL_STRING = 0;
+    static final int NOWHERE = 0;
+
+    private BinaryAdventureFormat()
+    {
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeSignedVarint(ByteArrayOutputStream out, int value)
+    {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    static int readVarint(ByteBuffer in)
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new AdventureReaderException("Malformed varint at [" + in.position() + "]");
+    }
+
+    static int readSignedVarint(ByteBuffer in)
+    {
+        int value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,295 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.readSignedVarint;
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.readVarint;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.Skill;
+import net.bpfurtado.tas.model.combat.Combat;
+import net.bpfurtado.tas.model.combat.CombatType;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reads the files written by {@link BinaryAdventureWriter} into a buffer in one go instead of going through
+ * a stream. Paths are linked by {@link PathLinker}, just like {@link XMLAdventureReader} does.
+ * 
+ * Read with lazy bodies, the graph and the names are loaded as usual but the texts and the codes of the
+ * scenes stay at the file, mapped in memory and read by {@link MappedSceneBodies} when asked for. For the
+ * adventures only played, where most of the prose is never read in a session. Read eagerly the file is not
+ * mapped, a mapping is only released by the garbage collector and keeps the file from being replaced on
+ * Windows.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class BinaryAdventureReader implements AdventureReader
+{
+    private static Logger logger = Logger.getLogger(BinaryAdventureReader.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private Adventure adventure;
+
+    private PathLinker linker;
+
+    private String[] strings;
+
+    private static final int EAGER = -1;
+
+    /**
+     * 8 MB of texts and codes.
+     */
+    public static final int DEFAULT_BODIES_CAPACITY = 4 * 1024 * 1024;
+
+    /**
+     * Of the lazy bodies cache, in chars.
+     */
+    private final int bodiesCapacity;
+    private int[] offsets;
+    private MappedSceneBodies bodies;
+
+    public BinaryAdventureReader()
+    {
+        this(EAGER);
+    }
+
+    /**
+     * With lazy bodies.
+     * 
+     * @param bodiesCapacity how many chars of texts and codes are kept in memory.
+     */
+    public BinaryAdventureReader(int bodiesCapacity)
+    {
+        this.bodiesCapacity = bodiesCapacity;
+        adventure = new Adventure();
+        linker = new PathLinker(adventure);
+    }
+
+    public Adventure read(String adventureFileName)
+    {
+        File adventureFile = new File(adventureFileName);
+        if (!adventureFile.exists()) {
+            throw new AdventureReaderException("The file [" + adventureFileName + "] does not exist");
+        }
+        return read(adventureFile);
+    }
+
+    public Adventure read(File adventureFile)
+    {
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(adventureFile);
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = isLazy() ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) : readAll(channel);
+
+            readHeader(buffer);
+            if (isLazy()) {
+                bodies = new MappedSceneBodies(buffer, offsets, bodiesCapacity);
+            }
+            readAdventure(buffer);
+        } catch (IOException e) {
+            throw new AdventureReaderException("Error reading adventure file [" + adventureFile + "]", e);
+        } catch (BufferUnderflowException e) {
+            throw new AdventureReaderException("Truncated adventure file [" + adventureFile + "]", e);
+        } finally {
+            close(in);
+        }
+
+        linker.link();
+        strings = null;
+        offsets = null;
+        return adventure;
+    }
+
+    private static ByteBuffer readAll(FileChannel channel) throws IOException
+    {
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new AdventureReaderException("Adventure file too big [" + channel.size() + " bytes]");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void readHeader(ByteBuffer in)
+    {
+        for (byte b : BinaryAdventureFormat.MAGIC) {
+            if (in.get() != b) {
+                throw new AdventureReaderException("Not an adventure binary file");
+            }
+        }
+        int version = readVarint(in);
+        if (version != BinaryAdventureFormat.VERSION) {
+            throw new AdventureReaderException("Unsupported adventure binary version [" + version + "]");
+        }
+
+        strings = new String[readVarint(in) + 1];
+        if (isLazy()) {
+            // Only where they are, decoded as needed.
+            offsets = new int[strings.length];
+            for (int i = 1; i < strings.length; i++) {
+                offsets[i] = in.position();
+                int length = readVarint(in);
+                in.position(in.position() + length);
+            }
+            return;
+        }
+
+        byte[] bytes = new byte[256];
+        for (int i = 1; i < strings.length; i++) {
+            int length = readVarint(in);
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            in.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, UTF8);
+        }
+    }
+
+    private void readAdventure(ByteBuffer in)
+    {
+        adventure.setName(readString(in));
+        adventure.setAssertions(readString(in));
+
+        int numberOfScenes = readVarint(in);
+        for (int i = 0; i < numberOfScenes; i++) {
+            readScene(in);
+        }
+    }
+
+    private void readScene(ByteBuffer in)
+    {
+        int id = PathLinker.checkSceneId(readVarint(in));
+        boolean isEnd = in.get() != 0;
+
+        Scene s = null;
+        if (id == 0) {
+            s = adventure.getStart();
+        } else {
+            s = adventure.createScene(id, isEnd);
+        }
+        linker.add(s);
+
+        s.setName(readString(in));
+        s.setTags(readString(in));
+        s.setImageId(readString(in));
+        if (isLazy()) {
+            int text = readRef(in);
+            s.setBody(bodies, text, readRef(in));
+        } else {
+            s.setText(readString(in));
+            s.setCode(readString(in));
+        }
+
+        int kind = readVarint(in);
+        if (kind == BinaryAdventureFormat.COMBAT) {
+            readCombat(in, s);
+        } else if (kind == BinaryAdventureFormat.SKILL_TEST) {
+            s.setType(SceneType.skillTest);
+            s.setSkillToTest(new Skill(readString(in)));
+        } else if (kind != BinaryAdventureFormat.REGULAR) {
+            throw new AdventureReaderException("Unknown kind [" + kind + "] of scene [" + id + "]");
+        }
+
+        int numberOfPaths = readVarint(in);
+        for (int i = 0; i < numberOfPaths; i++) {
+            String text = readString(in);
+            int order = readSignedVarint(in);
+            int to = readVarint(in);
+            linker.addPath(s, text, to == BinaryAdventureFormat.NOWHERE ? PathLinker.NOWHERE : to - 1, order);
+        }
+    }
+
+    private void readCombat(ByteBuffer in, Scene s)
+    {
+        Combat c = new Combat();
+        String type = readString(in);
+        try {
+            c.setType(CombatType.fromPersistentRepr(type));
+        } catch (RuntimeException e) {
+            throw new AdventureReaderException("Unknown combat type [" + type + "] of scene [" + s.getId() + "]", e);
+        }
+
+        int numberOfEnemies = readVarint(in);
+        for (int i = 0; i < numberOfEnemies; i++) {
+            String name = readString(in);
+            Fighter fighter = new Fighter(name, readSignedVarint(in), readSignedVarint(in));
+            fighter.setDamage(readSignedVarint(in));
+            c.add(fighter);
+        }
+
+        s.setType(SceneType.combat);
+        s.setCombat(c);
+    }
+
+    private String readString(ByteBuffer in)
+    {
+        int ref = readRef(in);
+        if (strings[ref] == null && ref != BinaryAdventureFormat.NULL_STRING && isLazy()) {
+            // Decoded once, the names repeated along the adventure share the string.
+            strings[ref] = bodies.decode(ref);
+        }
+        return strings[ref];
+    }
+
+    private int readRef(ByteBuffer in)
+    {
+        int ref = readVarint(in);
+        if (ref >= strings.length) {
+            throw new AdventureReaderException("Unknown string [" + ref + "] at [" + in.position() + "]");
+        }
+        return ref;
+    }
+
+    private boolean isLazy()
+    {
+        return bodiesCapacity != EAGER;
+    }
+
+    private static void close(FileInputStream in)
+    {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            logger.warn("Error closing the adventure file", e);
+        }
+    }
+}
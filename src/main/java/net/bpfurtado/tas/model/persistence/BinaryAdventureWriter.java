@@ -0,0 +1,188 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.writeSignedVarint;
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.writeVarint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.bpfurtado.tas.AdventureException;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Writes the adventure in the format described at {@link BinaryAdventureFormat}. Every distinct string is
+ * stored once, scenes refer to it by its index at the string table.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class BinaryAdventureWriter implements AdventureWriter
+{
+    private static Logger logger = Logger.getLogger(BinaryAdventureWriter.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File saveFile;
+
+    private AdventureSnapshot adventure;
+
+    private List<String> strings = new ArrayList<String>();
+    private Map<String, Integer> stringRefs = new HashMap<String, Integer>();
+
+    public BinaryAdventureWriter(Adventure adventure, File saveFile)
+    {
+        this(AdventureSnapshot.of(adventure), saveFile);
+    }
+
+    public BinaryAdventureWriter(AdventureSnapshot adventure, File saveFile)
+    {
+        this.saveFile = saveFile;
+        this.adventure = adventure;
+    }
+
+    public File write()
+    {
+        if (!saveFile.getName().endsWith(BinaryAdventureFormat.EXTENSION)) {
+            saveFile = new File(saveFile.getAbsolutePath() + BinaryAdventureFormat.EXTENSION);
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+        writeAdventure(body);
+
+        AtomicFileOutputStream out = null;
+        try {
+            out = new AtomicFileOutputStream(saveFile);
+            out.write(BinaryAdventureFormat.MAGIC);
+            out.write(header());
+            body.writeTo(out);
+            out.commit();
+        } catch (IOException e) {
+            throw new AdventureException("Error writing adventure", e);
+        } finally {
+            close(out);
+        }
+        logger.debug("Wrote [" + saveFile + "] with " + strings.size() + " strings");
+
+        return saveFile;
+    }
+
+    private byte[] header()
+    {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(16 * 1024);
+        writeVarint(header, BinaryAdventureFormat.VERSION);
+        writeVarint(header, strings.size());
+        for (String s : strings) {
+            byte[] bytes = s.getBytes(UTF8);
+            writeVarint(header, bytes.length);
+            header.write(bytes, 0, bytes.length);
+        }
+        return header.toByteArray();
+    }
+
+    private void writeAdventure(ByteArrayOutputStream out)
+    {
+        writeString(out, adventure.getName());
+        writeString(out, adventure.getAssertions());
+
+        List<SceneSnapshot> scenes = adventure.getScenes();
+        writeVarint(out, scenes.size());
+        for (SceneSnapshot s : scenes) {
+            writeScene(out, s);
+        }
+    }
+
+    private void writeScene(ByteArrayOutputStream out, SceneSnapshot s)
+    {
+        writeVarint(out, s.getId());
+        out.write(s.isEnd() ? 1 : 0);
+        writeString(out, s.getName());
+        writeString(out, s.getTags());
+        writeString(out, s.getImageId());
+        writeString(out, s.getText());
+        writeString(out, s.getCode());
+
+        if (s.getType().equals(SceneType.combat)) {
+            writeVarint(out, BinaryAdventureFormat.COMBAT);
+            writeString(out, s.getCombatType().toString());
+            List<Fighter> enemies = s.getEnemies();
+            writeVarint(out, enemies.size());
+            for (Fighter f : enemies) {
+                writeString(out, f.getName());
+                writeSignedVarint(out, f.getCombatSkillLevel());
+                writeSignedVarint(out, f.getStamina());
+                writeSignedVarint(out, f.getDamage());
+            }
+        } else if (s.getType().equals(SceneType.skillTest)) {
+            writeVarint(out, BinaryAdventureFormat.SKILL_TEST);
+            writeString(out, s.getSkillToTest());
+        } else {
+            writeVarint(out, BinaryAdventureFormat.REGULAR);
+        }
+
+        writeVarint(out, s.getNumberOfPaths());
+        for (int i = 0; i < s.getNumberOfPaths(); i++) {
+            writeString(out, s.getPathText(i));
+            writeSignedVarint(out, s.getPathOrder(i));
+            int to = s.getPathTo(i);
+            writeVarint(out, to == SceneSnapshot.NOWHERE ? BinaryAdventureFormat.NOWHERE : to + 1);
+        }
+    }
+
+    private void writeString(ByteArrayOutputStream out, String s)
+    {
+        if (s == null) {
+            writeVarint(out, BinaryAdventureFormat.NULL_STRING);
+            return;
+        }
+        Integer ref = stringRefs.get(s);
+        if (ref == null) {
+            strings.add(s);
+            ref = strings.size();
+            stringRefs.put(s, ref);
+        }
+        writeVarint(out, ref);
+    }
+
+    private static void close(AtomicFileOutputStream out)
+    {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warn("Error closing the adventure file", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import static net.bpfurtado.tas.model.persistence.BinaryAdventureFormat.readVarint;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import net.bpfurtado.tas.model.SceneBodies;
+
+/**
+ * The strings of a .adv.bin mapped in memory, read from the file the first time they are asked for and then
+ * kept in a LRU cache bounded by their number of chars. The refs are the ones of the string table.
+ * 
+ * The file must stay as it is while mapped, on Windows it can't even be replaced or deleted: the workspace
+ * saves each .adv.bin under a new name, see {@link net.bpfurtado.tas.Workspace}.
+ * 
+ * @author Bruno Patini Furtado
+ */
+class MappedSceneBodies implements SceneBodies
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer file;
+
+    /**
+     * Of each string of the table at the file, by ref.
+     */
+    private final int[] offsets;
+
+    private final int capacity;
+
+    /**
+     * Guarded by this, like the counters.
+     */
+    private final LinkedHashMap<Integer, String> recent = new LinkedHashMap<Integer, String>(256, 0.75f, true);
+    private int cachedChars = 0;
+    private int hits = 0;
+    private int misses = 0;
+
+    /**
+     * @param capacity of the cache, in chars.
+     */
+    MappedSceneBodies(ByteBuffer file, int[] offsets, int capacity)
+    {
+        this.file = file;
+        this.offsets = offsets;
+        this.capacity = capacity;
+    }
+
+    public synchronized String get(int ref)
+    {
+        if (ref == BinaryAdventureFormat.NULL_STRING) {
+            return null;
+        }
+        Integer key = Integer.valueOf(ref);
+        String s = recent.get(key);
+        if (s != null) {
+            hits++;
+            return s;
+        }
+        misses++;
+        s = decode(ref);
+        if (s.length() <= capacity) {
+            recent.put(key, s);
+            cachedChars += s.length();
+            evict();
+        }
+        return s;
+    }
+
+    /**
+     * Without going through the cache.
+     */
+    String decode(int ref)
+    {
+        ByteBuffer in = file.duplicate();
+        in.position(offsets[ref]);
+        byte[] bytes = new byte[readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private void evict()
+    {
+        Iterator<String> eldest = recent.values().iterator();
+        while (cachedChars > capacity) {
+            cachedChars -= eldest.next().length();
+            eldest.remove();
+        }
+    }
+
+    synchronized int getCachedChars()
+    {
+        return cachedChars;
+    }
+
+    synchronized int getHits()
+    {
+        return hits;
+    }
+
+    synchronized int getMisses()
+    {
+        return misses;
+    }
+}
@@ -0,0 +1,181 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * Keeps the paths read from a file aside until all the scenes exist, then creates and links them looking
+ * the destinies up by id. They are linked in the order the first reader did it, from the start scene,
+ * depth first, then the scenes left behind in the order they were read, so the depths come out the same.
+ * 
+ * @author Bruno Patini Furtado
+ */
+class PathLinker
+{
+    static final int NOWHERE = -1;
+
+    /** The path gets the next order of its scene. */
+    static final int NEXT_ORDER = -1;
+
+    /** The path keeps the order given when it is created. */
+    static final int KEEP_ORDER = -2;
+
+    private Adventure adventure;
+
+    private List<Scene> scenesInReadOrder = new ArrayList<Scene>();
+    private Map<Scene, List<PendingPath>> pendingPaths = new HashMap<Scene, List<PendingPath>>();
+
+    PathLinker(Adventure adventure)
+    {
+        this.adventure = adventure;
+    }
+
+    /**
+     * @return the id read, if it is one {@link Adventure#createScene(int, boolean)} can take.
+     */
+    static int checkSceneId(int id)
+    {
+        if (id < 0 || id > Adventure.MAX_SCENE_ID) {
+            throw new AdventureReaderException("Invalid scene id [" + id + "]");
+        }
+        return id;
+    }
+
+    void add(Scene scene)
+    {
+        scenesInReadOrder.add(scene);
+        pendingPaths.put(scene, new LinkedList<PendingPath>());
+    }
+
+    /**
+     * @param toScene id of the destiny or {@link #NOWHERE}.
+     * @param order the order of the path, {@link #NEXT_ORDER} or {@link #KEEP_ORDER}.
+     */
+    void addPath(Scene from, String text, int toScene, int order)
+    {
+        pendingPaths.get(from).add(new PendingPath(text, toScene, order));
+    }
+
+    void link()
+    {
+        adventure.startBulkLinking();
+        try {
+            Set<Scene> notLinkedYet = new LinkedHashSet<Scene>(scenesInReadOrder);
+
+            linkPathsFrom(adventure.getStart(), notLinkedYet);
+
+            // For the ones not visited, because can't be reached from the start scene.
+            while (!notLinkedYet.isEmpty()) {
+                linkPathsFrom(notLinkedYet.iterator().next(), notLinkedYet);
+            }
+        } finally {
+            adventure.endBulkLinking();
+        }
+
+        pendingPaths.clear();
+        scenesInReadOrder.clear();
+    }
+
+    /**
+     * Depth first, going into a destiny as soon as it gets its first scene from, without recursion so long
+     * chains of scenes don't blow the stack.
+     */
+    private void linkPathsFrom(Scene first, Set<Scene> notLinkedYet)
+    {
+        notLinkedYet.remove(first);
+
+        LinkedList<SceneBeingLinked> stack = new LinkedList<SceneBeingLinked>();
+        stack.addFirst(new SceneBeingLinked(first));
+
+        while (!stack.isEmpty()) {
+            SceneBeingLinked current = stack.getFirst();
+            if (!current.paths.hasNext()) {
+                stack.removeFirst();
+                continue;
+            }
+
+            PendingPath pending = current.paths.next();
+            IPath p = current.scene.createPath(pending.text);
+            if (pending.order == NEXT_ORDER) {
+                p.setOrder(current.ordersGiven++);
+            } else if (pending.order != KEEP_ORDER) {
+                p.setOrder(pending.order);
+            }
+
+            if (pending.toScene == NOWHERE) {
+                continue;
+            }
+            Scene to = adventure.getScene(pending.toScene);
+            if (to == null) {
+                throw new AdventureReaderException("Scene [" + current.scene.getId() + "] has a path to the unknown scene [" + pending.toScene + "]");
+            }
+
+            boolean hadScenesFrom = to.hasScenesFrom();
+            p.setTo(to);
+
+            if (!hadScenesFrom && notLinkedYet.remove(to)) {
+                stack.addFirst(new SceneBeingLinked(to));
+            }
+        }
+    }
+
+    private class SceneBeingLinked
+    {
+        Scene scene;
+        Iterator<PendingPath> paths;
+        int ordersGiven = 0;
+
+        SceneBeingLinked(Scene scene)
+        {
+            this.scene = scene;
+            List<PendingPath> scenePaths = pendingPaths.get(scene);
+            this.paths = scenePaths == null ? new LinkedList<PendingPath>().iterator() : scenePaths.iterator();
+        }
+    }
+
+    private static class PendingPath
+    {
+        String text;
+        int toScene;
+        int order;
+
+        PendingPath(String text, int toScene, int order)
+        {
+            this.text = text;
+            this.toScene = toScene;
+            this.order = order;
+        }
+    }
+}
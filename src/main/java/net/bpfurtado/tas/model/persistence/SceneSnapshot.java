@@ -0,0 +1,247 @@
+/**                                                                           
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com]         
+ * Created on 17/10/2026 10:12:05                                                          
+ *                                                                            
+ * This file is part of the Text Adventures Suite.                            
+ *                                                                            
+ * Text Adventures Suite is free software: you can redistribute it and/or modify          
+ * it under the terms of the GNU General Public License as published by       
+ * the Free Software Foundation, either version 3 of the License, or          
+ * (at your option) any later version.                                        
+ *                                                                            
+ * Text Adventures Suite is distributed in the hope that it will be useful,               
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              
+ * GNU General Public License for more details.                               
+ *                                                                            
+ * You should have received a copy of the GNU General Public License          
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.         
+ *                                                                            
+ * Project page: http://code.google.com/p/text-adventures-suite/              
+ */
+
+package net.bpfurtado.tas.model.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.combat.CombatType;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+/**
+ * What the writers save of one scene, copied so it can be written by another thread while the builder goes
+ * on changing the scene.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class SceneSnapshot
+{
+    public static final int NOWHERE = -1;
+
+    /**
+     * Only compared, on the thread that took the snapshot, to tell if it can be reused.
+     */
+    private final Scene scene;
+    private final int modifications;
+
+    private final int id;
+    private final boolean isEnd;
+    private final String name;
+    private final String tags;
+    private final String imageId;
+    private final String text;
+    private final String code;
+    private final SceneType type;
+
+    private final CombatType combatType;
+    private final List<Fighter> enemies;
+    private final String skillToTest;
+
+    private final int[] fromIds;
+    private final String[] pathTexts;
+    private final int[] pathOrders;
+    private final int[] pathTos;
+
+    SceneSnapshot(Scene s)
+    {
+        scene = s;
+        modifications = s.getModifications();
+
+        id = s.getId();
+        isEnd = s.isEnd();
+        name = s.getName();
+        tags = s.getTags();
+        imageId = s.getImageId();
+        text = s.getText();
+        code = s.getCode();
+        type = s.getType();
+
+        if (type == SceneType.combat) {
+            combatType = s.getCombat().getType();
+            List<Fighter> copies = new ArrayList<Fighter>();
+            for (Fighter f : s.getCombat().getEnemies()) {
+                copies.add(f.createCopy());
+            }
+            enemies = Collections.unmodifiableList(copies);
+        } else {
+            combatType = null;
+            enemies = Collections.emptyList();
+        }
+        skillToTest = type == SceneType.skillTest ? s.getSkillToTest().getName() : null;
+
+        Collection<Scene> from = s.getScenesFrom();
+        fromIds = new int[from.size()];
+        int i = 0;
+        for (Scene f : from) {
+            fromIds[i++] = f.getId();
+        }
+
+        List<IPath> paths = s.getPaths();
+        pathTexts = new String[paths.size()];
+        pathOrders = new int[paths.size()];
+        pathTos = new int[paths.size()];
+        for (i = 0; i < paths.size(); i++) {
+            IPath p = paths.get(i);
+            pathTexts[i] = p.getText();
+            pathOrders[i] = p.getOrder();
+            pathTos[i] = p.getTo() == null ? NOWHERE : p.getTo().getId();
+        }
+    }
+
+    /**
+     * The enemies and the skill to test are changed in place, without the scene knowing, so those scenes
+     * are always copied again.
+     */
+    boolean isUpToDateWith(Scene s)
+    {
+        return scene == s && modifications == s.getModifications() && (type == SceneType.regular || type == SceneType.end);
+    }
+
+    /**
+     * @return if both save the same, the scenes from aside.
+     */
+    boolean sameAs(SceneSnapshot other)
+    {
+        if (other == this) {
+            return true;
+        }
+        return id == other.id && isEnd == other.isEnd && type == other.type && equal(name, other.name) && equal(tags, other.tags) && equal(imageId, other.imageId) && equal(text, other.text) && equal(code, other.code) && combatType == other.combatType && sameEnemies(other.enemies) && equal(skillToTest, other.skillToTest) && Arrays.equals(pathTexts, other.pathTexts) && Arrays.equals(pathOrders, other.pathOrders) && Arrays.equals(pathTos, other.pathTos);
+    }
+
+    private boolean sameEnemies(List<Fighter> others)
+    {
+        if (enemies.size() != others.size()) {
+            return false;
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            Fighter f = enemies.get(i);
+            Fighter o = others.get(i);
+            if (!equal(f.getName(), o.getName()) || f.getCombatSkillLevel() != o.getCombatSkillLevel() || f.getStamina() != o.getStamina() || f.getDamage() != o.getDamage()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(Object a, Object b)
+    {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public boolean isEnd()
+    {
+        return isEnd;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getTags()
+    {
+        return tags;
+    }
+
+    public String getImageId()
+    {
+        return imageId;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    public String getCode()
+    {
+        return code;
+    }
+
+    public SceneType getType()
+    {
+        return type;
+    }
+
+    public CombatType getCombatType()
+    {
+        return combatType;
+    }
+
+    /**
+     * @return copies, read only.
+     */
+    public List<Fighter> getEnemies()
+    {
+        return enemies;
+    }
+
+    public String getSkillToTest()
+    {
+        return skillToTest;
+    }
+
+    public int getNumberOfScenesFrom()
+    {
+        return fromIds.length;
+    }
+
+    public int getSceneFromId(int i)
+    {
+        return fromIds[i];
+    }
+
+    public int getNumberOfPaths()
+    {
+        return pathTexts.length;
+    }
+
+    public String getPathText(int i)
+    {
+        return pathTexts[i];
+    }
+
+    public int getPathOrder(int i)
+    {
+        return pathOrders[i];
+    }
+
+    /**
+     * @return the id of the scene the path leads to or {@link #NOWHERE}.
+     */
+    public int getPathTo(int i)
+    {
+        return pathTos[i];
+    }
+}
@@ -19,17 +19,22 @@
  *                                                                            
  * Project page: http://code.google.com/p/text-adventures-suite/              
  */
-
 package net.bpfurtado.tas.model.persistence;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.StringTokenizer;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import net.bpfurtado.tas.model.Adventure;
-import net.bpfurtado.tas.model.IPath;
 import net.bpfurtado.tas.model.Scene;
 import net.bpfurtado.tas.model.SceneType;
 import net.bpfurtado.tas.model.Skill;
@@ -39,215 +44,191 @@ import net.bpfurtado.tas.model.combat.Fighter;
 
 import org.apache.commons.validator.GenericValidator;
 import org.apache.log4j.Logger;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Node;
-import org.dom4j.io.SAXReader;
 
 /**
+ * Reads the .adv.xml in a single StAX pass. Scenes are created as their nodes come, their paths are kept
+ * aside and only linked when all the scenes exist, looking the destinies up by id.
+ * 
+ * {@link PathLinker} links them in the same order the first, DOM4J based, reader did.
+ * 
  * @author Bruno Patini Furtado
  */
-public class XMLAdventureReader
+public class XMLAdventureReader implements AdventureReader
 {
-    @SuppressWarnings("unused")
     private static Logger logger = Logger.getLogger(XMLAdventureReader.class);
 
     private Adventure adventure;
-    private Document xmlDocument;
+
+    private PathLinker linker;
+
+    /**
+     * The texts of the paths and the names of the enemies repeat all over the file, each one is kept once.
+     * Only while reading, the adventure doesn't need the map.
+     */
+    private Map<String, String> repeated = new HashMap<String, String>();
 
     public XMLAdventureReader()
     {
         adventure = new Adventure();
+        linker = new PathLinker(adventure);
     }
 
     public Adventure read(String adventureFileName)
-    {
-        readXMLDocument(adventureFileName);
-        init();
-        return adventure;
-    }
-
-    public Adventure read(File adventureFile)
-    {
-        createXMLDocument(adventureFile);
-        init();
-        return adventure;
-    }
-
-    private void init()
-    {
-        adventure.setName(((Node) xmlDocument.selectNodes("/adventure/name").iterator().next()).getText());
-        // adventure.setId(((Node) xmlDocument.selectNodes("/adventure/id").iterator().next()).getText());
-
-        Node assertionsNode = xmlDocument.selectSingleNode("/adventure/assertions");
-        // to be compatible with old project files
-        if (assertionsNode != null) {
-            adventure.setAssertions(assertionsNode.getText());
-        }
-        readScenes();
-    }
-
-    private void readXMLDocument(String adventureFileName)
     {
         File adventureFile = new File(adventureFileName);
         if (!adventureFile.exists()) {
             throw new AdventureReaderException("The file [" + adventureFileName + "] does not exist");
         }
-        createXMLDocument(adventureFile);
+        return read(adventureFile);
     }
 
-    private void createXMLDocument(File file)
+    public Adventure read(File adventureFile)
     {
-        SAXReader xmlReader = new SAXReader();
+        InputStream in = null;
         try {
-            xmlDocument = xmlReader.read(file);
-        } catch (DocumentException e) {
+            in = new BufferedInputStream(new FileInputStream(adventureFile));
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            try {
+                readDocument(xml);
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new AdventureReaderException("Error reading XML document", e);
+        } catch (IOException e) {
             throw new AdventureReaderException("Error reading XML document", e);
+        } finally {
+            close(in);
         }
+
+        linker.link();
+        repeated = null;
+        return adventure;
     }
 
-    @SuppressWarnings("unchecked")
-    private void readScenes()
+    private void readDocument(XMLStreamReader xml) throws XMLStreamException
     {
-        Node startNode = xmlDocument.selectSingleNode("//scene[@id='0']");
-        Scene start = adventure.getStart();
-        loadSceneAttributes(startNode, start.getId());
-
-        Collection<Scene> allScenes = new LinkedList<Scene>();
-
-        List<Node> scenesNodes = new LinkedList(xmlDocument.selectNodes("//scene"));
-        for (Node node : scenesNodes) {
-            allScenes.add(loadSceneAttributes(node, Integer.parseInt(node.valueOf("@id"))));
-        }
-
-        findAllTos(start, allScenes);
-
-        // For the ones not visited, because can't be reached from the start scene.
-        for (Scene s : allScenes) {
-            findAllTos(s, null);
+        while (xml.hasNext()) {
+            if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String element = xml.getLocalName();
+            if (element.equals("name")) {
+                adventure.setName(xml.getElementText());
+            } else if (element.equals("assertions")) {
+                adventure.setAssertions(xml.getElementText());
+            } else if (element.equals("scene")) {
+                readScene(xml);
+            }
         }
     }
 
-    private Scene loadSceneAttributes(Node n, int id)
+    private void readScene(XMLStreamReader xml) throws XMLStreamException
     {
+        int id = PathLinker.checkSceneId(Integer.parseInt(attribute(xml, "id")));
+
         Scene s = null;
         if (id == 0) {
             s = adventure.getStart();
         } else {
-            s = adventure.createScene(id, Boolean.valueOf(n.valueOf("@isEnd")));
+            s = adventure.createScene(id, Boolean.valueOf(attribute(xml, "isEnd")));
         }
-        s.setImageId(n.valueOf("@imageId"));
-        if (s.getImageId() != null && s.getImageId().trim().length() == 0) {
-            s.setImageId(null);
+        linker.add(s);
+
+        String imageId = attribute(xml, "imageId");
+        s.setImageId(imageId.trim().length() == 0 ? null : imageId);
+        s.setName(attribute(xml, "name"));
+        s.setTags(attribute(xml, "tags"));
+
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = xml.getLocalName();
+            if (element.equals("text")) {
+                s.setText(xml.getElementText());
+            } else if (element.equals("code")) {
+                s.setCode(xml.getElementText());
+            } else if (element.equals("path")) {
+                String toScene = attribute(xml, "toScene");
+                int order = attribute(xml, "order").length() > 0 ? PathLinker.KEEP_ORDER : PathLinker.NEXT_ORDER;
+                linker.addPath(s, shared(xml.getElementText()), GenericValidator.isBlankOrNull(toScene) ? PathLinker.NOWHERE : Integer.parseInt(toScene), order);
+            } else if (element.equals("combat")) {
+                readCombat(xml, s);
+            } else if (element.equals("skill-test")) {
+                s.setType(SceneType.skillTest);
+                s.setSkillToTest(new Skill(attribute(xml, "name")));
+                skipElement(xml);
+            } else {
+                logger.warn("Unknown node [" + element + "] at scene [" + id + "]");
+                skipElement(xml);
+            }
         }
+    }
 
-        s.setName(n.valueOf("@name"));
-        s.setTags(n.valueOf("@tags"));
-        s.setText(n.selectSingleNode("./text").getText());
+    private void readCombat(XMLStreamReader xml, Scene s) throws XMLStreamException
+    {
+        Combat c = new Combat();
+        c.setType(CombatType.fromPersistentRepr(attribute(xml, "type")));
 
-        try {
-            s.setCode(n.selectSingleNode("./code").getText());
-            if (s.getCode() == null) {
-                s.setCode("");
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (xml.getLocalName().equals("enemy")) {
+                Fighter fighter = new Fighter(shared(attribute(xml, "name")), Integer.valueOf(attribute(xml, "skill")), Integer.valueOf(attribute(xml, "stamina")));
+                fighter.setDamage(Integer.valueOf(attribute(xml, "damage")));
+                c.add(fighter);
             }
-        } catch (NullPointerException npe) {
-            logger.warn("No code node");
+            skipElement(xml);
         }
 
-        loadCombat(n, s);
-        loadSkillTest(n, s);
-
-        return s;
+        s.setType(SceneType.combat);
+        s.setCombat(c);
     }
 
-    private void loadSkillTest(Node n, Scene s)
+    private String shared(String s)
     {
-        Node cn = n.selectSingleNode("skill-test");
-        if (cn == null) {
-            return;
+        String first = repeated.get(s);
+        if (first == null) {
+            repeated.put(s, s);
+            return s;
         }
-        String name = cn.valueOf("@name");
-        s.setType(SceneType.skillTest);
-        s.setSkillToTest(new Skill(name));
+        return first;
     }
 
-    private void loadCombat(Node n, Scene s)
+    /**
+     * Moves to the END_ELEMENT of the element the reader is at.
+     */
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException
     {
-        Node cn = n.selectSingleNode("combat");
-        if (cn == null) {
-            return;
-        }
-
-        Combat c = new Combat();
-        String type = cn.valueOf("@type");
-        c.setType(CombatType.fromPersistentRepr(type));
-
-        List<Node> enemyNodes = cn.selectNodes("./enemy");
-        for (Node en : enemyNodes) {
-            Fighter fighter = new Fighter(en.valueOf("@name"), Integer.valueOf(en.valueOf("@skill")), Integer.valueOf(en.valueOf("@stamina")));
-            fighter.setDamage(Integer.valueOf(en.valueOf("@damage")));
-            c.add(fighter);
+        int level = 1;
+        while (level > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                level++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                level--;
+            }
         }
-
-        s.setType(SceneType.combat);
-        s.setCombat(c);
     }
 
     /**
-     * @param scene
-     * @param scenesNotScannedYet
-     *            Just to keep the scenes not yet visited.
+     * Like dom4j valueOf("@name"), empty when the attribute is not there.
      */
-    @SuppressWarnings("unchecked")
-    private void findAllTos(Scene scene, Collection<Scene> scenesNotScannedYet)
+    private static String attribute(XMLStreamReader xml, String name)
     {
-        if (scenesNotScannedYet != null) {
-            scenesNotScannedYet.remove(scene);
-        }
-
-        Node sceneNode = xmlDocument.selectSingleNode("//scene[@id='" + scene.getId() + "']");
-        List<Node> pathNodes = sceneNode.selectNodes("./path");
-        int i = 0;
-        logger.debug("Scene=" + scene + ", pathNodes.sz=" + pathNodes.size());
-        for (Node pathNode : pathNodes) {
-            logger.debug(i);
-            IPath p = scene.createPath(pathNode.getText());
-            String orderStr = pathNode.valueOf("@order");
-            if (orderStr == null || orderStr.length() == 0) {
-                p.setOrder(i++);
-            }
-            String idToStr = pathNode.valueOf("@toScene");
-            if (!GenericValidator.isBlankOrNull(idToStr)) {
-                Scene to = adventure.getScene(Integer.parseInt(idToStr));
-                boolean hadScenesFrom = !to.getScenesFrom().isEmpty();
-                p.setTo(to);
-
-                logger.debug(p);
-
-                if (!hadScenesFrom) {
-                    logger.debug("BEFORE RECURSION: to=" + to);
-                    logger.debug("BEFORE RECURSION: all=" + scenesNotScannedYet);
-                    if (scenesNotScannedYet.contains(to)) {
-                        findAllTos(to, scenesNotScannedYet);
-                    }
-                }
-            } else {
-                logger.debug(p);
-            }
-        }
+        String value = xml.getAttributeValue(null, name);
+        return value == null ? "" : value;
     }
 
-    @SuppressWarnings("unused")
-    private String format(String text)
+    private static void close(InputStream in)
     {
-        StringTokenizer stk = new StringTokenizer(text, "\n");
-        StringBuilder buffer = new StringBuilder();
-        while (stk.hasMoreTokens()) {
-            String line = stk.nextToken().trim();
-            buffer.append(line);
-            buffer.append("\n");
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            logger.warn("Error closing the adventure file", e);
         }
-        return buffer.toString();
     }
 
     public static void main(String[] args) throws Exception
@@ -22,13 +22,11 @@
 
 package net.bpfurtado.tas.model.persistence;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 
 import net.bpfurtado.tas.AdventureException;
 import net.bpfurtado.tas.model.Adventure;
-import net.bpfurtado.tas.model.IPath;
-import net.bpfurtado.tas.model.Scene;
 import net.bpfurtado.tas.model.SceneType;
 import net.bpfurtado.tas.model.combat.Fighter;
 
@@ -42,16 +40,20 @@ import org.dom4j.io.XMLWriter;
 /**
  * @author Bruno Patini Furtado
  */
-public class XMLAdventureWriter
+public class XMLAdventureWriter implements AdventureWriter
 {
-    @SuppressWarnings("unused")
     private static Logger logger = Logger.getLogger(XMLAdventureWriter.class);
 
     private File saveFile;
 
-    private Adventure adventure;
+    private AdventureSnapshot adventure;
 
     public XMLAdventureWriter(Adventure adventure, File saveFile)
+    {
+        this(AdventureSnapshot.of(adventure), saveFile);
+    }
+
+    public XMLAdventureWriter(AdventureSnapshot adventure, File saveFile)
     {
         this.saveFile = saveFile;
         this.adventure = adventure;
@@ -68,7 +70,7 @@ public class XMLAdventureWriter
     {
         Document doc = DocumentHelper.createDocument();
         Element root = doc.addElement("adventure");
-        root.addAttribute("startScene", adventure.getStart().getId() + "");
+        root.addAttribute("startScene", adventure.getStartId() + "");
         root.addElement("name").setText(adventure.getName());
         // root.addElement("id").setText(adventure.getId());
 
@@ -83,10 +85,10 @@ public class XMLAdventureWriter
 
     private void createSceneNodes(Element scenes)
     {
-        for (Scene s : adventure.getScenes()) {
+        for (SceneSnapshot s : adventure.getScenes()) {
             StringBuilder idsOfFromScenes = new StringBuilder("");
-            for (Scene f : s.getScenesFrom()) {
-                idsOfFromScenes.append(f.getId());
+            for (int i = 0; i < s.getNumberOfScenesFrom(); i++) {
+                idsOfFromScenes.append(s.getSceneFromId(i));
                 idsOfFromScenes.append(",");
             }
             if (idsOfFromScenes.length() > 0) {
@@ -95,12 +97,12 @@ public class XMLAdventureWriter
             Element sceneNode = scenes.addElement("scene").addAttribute("id", s.getId() + "").addAttribute("isEnd", s.isEnd() + "").addAttribute("name", s.getName()).addAttribute("tags", s.getTags()).addAttribute("imageId", s.getImageId() == null ? "" : s.getImageId()).addAttribute("from", idsOfFromScenes.toString());
 
             if (s.getType().equals(SceneType.combat)) {
-                Element c = sceneNode.addElement("combat").addAttribute("type", s.getCombat().getType().toString());
-                for (Fighter f : s.getCombat().getEnemies()) {
+                Element c = sceneNode.addElement("combat").addAttribute("type", s.getCombatType().toString());
+                for (Fighter f : s.getEnemies()) {
                     c.addElement("enemy").addAttribute("name", f.getName()).addAttribute("skill", f.getCombatSkillLevel() + "").addAttribute("stamina", f.getStamina() + "").addAttribute("damage", f.getDamage() + "");
                 }
             } else if (s.getType().equals(SceneType.skillTest)) {
-                sceneNode.addElement("skill-test").addAttribute("name", s.getSkillToTest().getName());
+                sceneNode.addElement("skill-test").addAttribute("name", s.getSkillToTest());
             }
 
             Element e = sceneNode.addElement("text");
@@ -109,31 +111,51 @@ public class XMLAdventureWriter
             Element code = sceneNode.addElement("code");
             code.addCDATA(s.getCode());
 
-            for (IPath p : s.getPaths()) {
-                sceneNode.addElement("path").addAttribute("toScene", p.getTo() == null ? "" : p.getTo().getId() + "").addAttribute("order", p.getOrder() + "").setText(p.getText());
+            for (int i = 0; i < s.getNumberOfPaths(); i++) {
+                int to = s.getPathTo(i);
+                sceneNode.addElement("path").addAttribute("toScene", to == SceneSnapshot.NOWHERE ? "" : to + "").addAttribute("order", s.getPathOrder(i) + "").setText(s.getPathText(i));
             }
         }
     }
 
     private File save(Document doc)
     {
+        AtomicFileOutputStream out = null;
         try {
             if (!saveFile.getName().endsWith(".adv.xml")) {
                 saveFile = new File(saveFile.getAbsolutePath() + ".adv.xml");
             }
 
             OutputFormat format = OutputFormat.createPrettyPrint();
-            format.setEncoding("ISO-8859-1");
+            // Any char of the texts, the ones past 0xFF would be lost in ISO-8859-1.
+            format.setEncoding("UTF-8");
             format.setNewlines(true);
             format.setLineSeparator(System.getProperty("line.separator"));
-            XMLWriter writer = new XMLWriter(new FileWriter(saveFile), format);
 
+            // Encoded as the declaration says, a FileWriter would use the platform charset.
+            out = new AtomicFileOutputStream(saveFile);
+            XMLWriter writer = new XMLWriter(new BufferedOutputStream(out, 64 * 1024), format);
             writer.write(doc);
-            writer.close();
+            writer.flush();
+            out.commit();
 
             return saveFile;
         } catch (Exception e) {
             throw new AdventureException("Error writing adventure", e);
+        } finally {
+            close(out);
+        }
+    }
+
+    private static void close(AtomicFileOutputStream out)
+    {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (Exception e) {
+            logger.warn("Error closing the adventure file", e);
         }
     }
 }
@@ -30,7 +30,8 @@ import net.bpfurtado.tas.model.Scene;
 import org.apache.log4j.Logger;
 
 import bsh.EvalError;
-import bsh.Interpreter;
+import bsh.NameSpace;
+import bsh.UtilEvalError;
 
 public class CodeExecutionAnalyser
 {
@@ -43,50 +44,80 @@ public class CodeExecutionAnalyser
         System.out.println(rnd.nextInt(10));
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Compiles the code just for this execution, see {@link SceneScripts} for the code run again and again.
+     */
     public List<PostCodeExecutionAction> analyseCode(Game game, String code, String currentSceneText)
     {
-        List<PostCodeExecutionAction> actions = new LinkedList<PostCodeExecutionAction>();
-        Interpreter interpreter = new Interpreter();
         try {
-            interpreter.set("text", currentSceneText);
+            return analyseCode(game, CompiledScript.compile(code), currentSceneText);
+        } catch (EvalError e) {
+            throw badSceneCode(game, e);
+        }
+    }
 
-            interpreter.set("rnd", rnd);
-            interpreter.set("originalText", game.getCurrentScene().getOriginalText());
-            interpreter.set("origText", game.getCurrentScene().getOriginalText());
+    public List<PostCodeExecutionAction> analyseSceneCode(Game game, SceneScripts scripts, Scene scene)
+    {
+        try {
+            return analyseCode(game, scripts.of(scene), game.getText(scene));
+        } catch (EvalError e) {
+            throw badSceneCode(game, e);
+        }
+    }
+
+    public List<PostCodeExecutionAction> analyseAssertions(Game game, SceneScripts scripts, String assertions)
+    {
+        try {
+            return analyseCode(game, scripts.ofAssertions(assertions), game.getText(game.getCurrentScene()));
+        } catch (EvalError e) {
+            throw badSceneCode(game, e);
+        }
+    }
 
-            LinkedList<Integer> pathsToHide = new LinkedList<Integer>();
-            interpreter.set("pathsToHide", pathsToHide);
+    @SuppressWarnings("unchecked")
+    private List<PostCodeExecutionAction> analyseCode(Game game, CompiledScript script, String currentSceneText) throws EvalError
+    {
+        List<PostCodeExecutionAction> actions = new LinkedList<PostCodeExecutionAction>();
+        if (script.isEmpty()) {
+            return actions;
+        }
 
-            interpreter.set("player", game.getPlayer());
+        String originalText = game.getCurrentScene().getText();
+        LinkedList<Integer> pathsToHide = new LinkedList<Integer>();
 
-            interpreter.eval(code);
+        // Same order of CompiledScript.PARAMETERS
+        NameSpace namespace = script.execute(new Object[] { currentSceneText, game.getRandom(), originalText, originalText, pathsToHide, game.getPlayer() });
 
+        try {
             logger.debug(game.getPlayer());
 
-            Integer go = (Integer) interpreter.get("go");
+            Integer go = (Integer) CompiledScript.get(namespace, "go");
             if (go != null) {
                 logger.debug("will go to " + go);
                 actions.add(new SwitchSceneAction(go));
             }
 
-            pathsToHide = (LinkedList<Integer>) interpreter.get("pathsToHide");
+            pathsToHide = (LinkedList<Integer>) CompiledScript.get(namespace, "pathsToHide");
             logger.debug(pathsToHide);
 
             if (!pathsToHide.isEmpty()) {
                 actions.add(new HidePaths(pathsToHide));
             }
 
-            String text = (String) interpreter.get("text");
+            String text = (String) CompiledScript.get(namespace, "text");
             if (text != null && text.trim().length() > 0) {
-                game.getCurrentScene().setText(text);
+                game.setText(game.getCurrentScene(), text);
             }
-
-        } catch (EvalError e) {
-            Scene currentScene = game.getCurrentScene();
-            String sceneStr = "[Scene: id=" + currentScene.getId() + ", code=" + currentScene.getCode() + ", name=" + currentScene.getName() + "]";
-            throw new BadSceneCodeException("Bad Scene " + sceneStr + " code, call the scene author :)", e);
+        } catch (UtilEvalError e) {
+            throw new BadSceneCodeException("Error reading the results of the scene code", e);
         }
         return actions;
     }
+
+    private static BadSceneCodeException badSceneCode(Game game, EvalError e)
+    {
+        Scene currentScene = game.getCurrentScene();
+        String sceneStr = "[Scene: id=" + currentScene.getId() + ", code=" + currentScene.getCode() + ", name=" + currentScene.getName() + "]";
+        return new BadSceneCodeException("Bad Scene " + sceneStr + " code, call the scene author :)", e);
+    }
 }
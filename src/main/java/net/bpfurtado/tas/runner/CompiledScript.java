@@ -0,0 +1,114 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.runner;
+
+import bsh.BshMethod;
+import bsh.EvalError;
+import bsh.Interpreter;
+import bsh.NameSpace;
+import bsh.Primitive;
+import bsh.This;
+import bsh.UtilEvalError;
+
+/**
+ * Scene code (or the adventure assertions) parsed once into a scripted method whose parameters are the
+ * variables the code can use. Each execution is a method invocation, so it gets a fresh namespace and
+ * nothing is left behind for the next one.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class CompiledScript
+{
+    static final String[] PARAMETERS = { "text", "rnd", "originalText", "origText", "pathsToHide", "player" };
+
+    private static final String SCOPE = "__scope";
+
+    private Interpreter interpreter;
+    private String code;
+    private BshMethod method;
+
+    CompiledScript(Interpreter interpreter, String code) throws EvalError
+    {
+        this.interpreter = interpreter;
+        this.code = code;
+        if (!isEmpty()) {
+            NameSpace declaring = new NameSpace(interpreter.getNameSpace(), "scene code");
+            interpreter.eval(declaration(code), declaring);
+            method = declaring.getMethods()[0];
+        }
+    }
+
+    /**
+     * Parses the code in a brand new interpreter, for code that is run only once.
+     */
+    public static CompiledScript compile(String code) throws EvalError
+    {
+        return new CompiledScript(new Interpreter(), code);
+    }
+
+    private static String declaration(String code)
+    {
+        StringBuilder sb = new StringBuilder("__run(").append(SCOPE);
+        for (String p : PARAMETERS) {
+            sb.append(", ").append(p);
+        }
+        // The method namespace is grabbed first, so a return in the middle of the code doesn't lose it.
+        sb.append(") {\n").append(SCOPE).append("[0] = this;\n").append(code).append("\n}");
+        return sb.toString();
+    }
+
+    /**
+     * @param arguments values of the {@link #PARAMETERS}, in the same order.
+     * @return the namespace the code ran in, to read the variables it set.
+     */
+    public NameSpace execute(Object[] arguments) throws EvalError
+    {
+        This[] scope = new This[1];
+        Object[] values = new Object[arguments.length + 1];
+        values[0] = scope;
+        for (int i = 0; i < arguments.length; i++) {
+            values[i + 1] = arguments[i] == null ? Primitive.NULL : arguments[i];
+        }
+        method.invoke(values, interpreter);
+        return scope[0].getNameSpace();
+    }
+
+    /**
+     * @return the value of the variable or null when the code didn't set it.
+     */
+    public static Object get(NameSpace namespace, String variable) throws UtilEvalError
+    {
+        return Primitive.unwrap(namespace.getVariable(variable));
+    }
+
+    /**
+     * Blank code is never executed.
+     */
+    public boolean isEmpty()
+    {
+        return code == null || code.trim().length() == 0;
+    }
+
+    public String getCode()
+    {
+        return code;
+    }
+}
@@ -125,6 +125,8 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
     private PlayerPanelController statsView;
     private SaveGameManager saveGameManager;
 
+    private final SceneImages images = new SceneImages();
+
     public static Runner runAdventure(Workspace workspace)
     {
         Runner r = new Runner();
@@ -160,7 +162,7 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
             return;
 
         try {
-            gameFrom(Workspace.loadFrom(Conf.runner().get("lastWorkspaceId")));
+            gameFrom(Workspace.loadToPlay(Conf.runner().get("lastWorkspaceId")));
         } catch (ConfigurationItemNotFoundException e) {
             // does nothing indeed
         }
@@ -194,7 +196,7 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
 
             public void openEntityPersisted(String workspaceId)
             {
-                Runner.this.gameFrom(Workspace.loadFrom(workspaceId));
+                Runner.this.gameFrom(Workspace.loadToPlay(workspaceId));
             }
 
             public void save(boolean isSaveAs)
@@ -333,8 +335,7 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
     {
         pathsPn.removeAll();
         for (final IPath path : scene.getPaths()) {
-            if (!path.isVisible()) {
-                path.setVisible(true); // reset the path visibility status
+            if (!game.isVisible(path)) {
                 continue;
             }
 
@@ -455,7 +456,10 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
         } else {
             imagePn.removeAll();
 
-            Icon img = workspace.imageFrom(scene);
+            Icon img = images.get(imageFileOf(scene));
+            if (img == null) {
+                img = workspace.imageFrom(scene);
+            }
 
             Rectangle b = getBounds();
             int w = (int) ((double) 460 + statsView.getPanel().getBounds().getWidth() + img.getIconWidth() + 5); // 111
@@ -468,11 +472,31 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
         }
     }
 
+    private File imageFileOf(Scene scene)
+    {
+        return new File(workspace.imagePathFrom(scene.getImageId()));
+    }
+
+    /**
+     * The images of where the player may go next, decoded while this scene is read.
+     */
+    private void prefetchImages(Scene scene)
+    {
+        List<File> next = new LinkedList<File>();
+        for (IPath p : scene.getPaths()) {
+            Scene to = p.getTo();
+            if (to != null && to.getImageId() != null) {
+                next.add(imageFileOf(to));
+            }
+        }
+        images.prefetch(next);
+    }
+
     private void openSceneLite(Scene sceneToOpen)
     {
         // sceneTA.setText("[" + sceneToOpen.getId() + "]\n" +
         // sceneToOpen.getText());
-        sceneTA.setText(sceneToOpen.getText());
+        sceneTA.setText(game.getText(sceneToOpen));
         sceneTA.setCaretPosition(0);
 
         createPathsPane(sceneToOpen);
@@ -491,6 +515,7 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
         } else {
             advName.setText(adventure.getName() + " [" + game.getCurrentScene().getId() + "]");
             updateImage(game.getCurrentScene());
+            prefetchImages(game.getCurrentScene());
         }
         statsView.updateView();
 
@@ -688,9 +713,9 @@ public class Runner extends JFrame implements GoToSceneListener, EndOfCombatList
         }
 
         OpenWorkspaceDialog dialog = new OpenWorkspaceDialog(this);
-        Workspace chosenWorkspace = dialog.getWorkspace();
-        if (chosenWorkspace != null) {
-            gameFrom(chosenWorkspace);
+        String chosenWorkspaceId = dialog.getWorkspaceId();
+        if (chosenWorkspaceId != null) {
+            gameFrom(Workspace.loadToPlay(chosenWorkspaceId));
         }
     }
 
@@ -0,0 +1,283 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.runner;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.MediaTracker;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The images of the scenes decoded, and scaled down to {@link #MAX_WIDTH} x {@link #MAX_HEIGHT} when bigger,
+ * kept while they fit in a budget of bytes taken from the heap size. The least recently shown go first.
+ * 
+ * The images of the scenes the player may go to next are decoded at a background thread while the current
+ * one is read, see {@link #prefetch(List)}. The images are named by their content, so the file of a name
+ * never changes and is cached by its path.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class SceneImages
+{
+    private static final Logger logger = Logger.getLogger(SceneImages.class);
+
+    static final int MAX_WIDTH = 800;
+    static final int MAX_HEIGHT = 600;
+
+    /**
+     * The fraction of the heap for the images, up to {@link #MAX_CAPACITY}.
+     */
+    private static final int HEAP_FRACTION = 16;
+    private static final long MAX_CAPACITY = 64 * 1024 * 1024;
+
+    private static final ExecutorService decoder = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "Scene images prefetch");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+
+    private final long capacity;
+    private long size = 0;
+
+    /**
+     * By path, in access order. Guarded by this.
+     */
+    private final LinkedHashMap<String, ImageIcon> images = new LinkedHashMap<String, ImageIcon>(64, 0.75f, true);
+
+    private final ConcurrentMap<String, FutureTask<ImageIcon>> decoding = new ConcurrentHashMap<String, FutureTask<ImageIcon>>();
+
+    private int hits = 0;
+    private int misses = 0;
+
+    public SceneImages()
+    {
+        this(Math.min(Runtime.getRuntime().maxMemory() / HEAP_FRACTION, MAX_CAPACITY));
+    }
+
+    /**
+     * @param capacity in bytes of decoded pixels.
+     */
+    public SceneImages(long capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Decodes the image at the calling thread when it is not cached, taking it from the prefetch queue when it
+     * is there. Waits only when the background thread is decoding it already.
+     * 
+     * @return null when the file can't be read as an image.
+     */
+    public ImageIcon get(File imageFile)
+    {
+        String key = imageFile.getAbsolutePath();
+        synchronized (this) {
+            ImageIcon image = images.get(key);
+            if (image != null) {
+                hits++;
+                return image;
+            }
+            misses++;
+        }
+
+        FutureTask<ImageIcon> task = decoding.get(key);
+        if (task == null) {
+            task = taskFor(imageFile, key);
+            FutureTask<ImageIcon> other = decoding.putIfAbsent(key, task);
+            if (other != null) {
+                task = other;
+            }
+        }
+        // Runs it here when still queued, behind the decoding of other images, and does nothing when it
+        // started already.
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.error("Error decoding [" + imageFile + "]", e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the images not cached yet at the background thread.
+     */
+    public void prefetch(List<File> imageFiles)
+    {
+        for (File f : imageFiles) {
+            String key = f.getAbsolutePath();
+            synchronized (this) {
+                if (images.containsKey(key)) {
+                    continue;
+                }
+            }
+            FutureTask<ImageIcon> task = taskFor(f, key);
+            if (decoding.putIfAbsent(key, task) == null) {
+                decoder.execute(task);
+            }
+        }
+    }
+
+    private FutureTask<ImageIcon> taskFor(final File imageFile, final String key)
+    {
+        return new FutureTask<ImageIcon>(new Callable<ImageIcon>() {
+            public ImageIcon call() throws IOException
+            {
+                try {
+                    ImageIcon image = decode(imageFile);
+                    if (image != null) {
+                        put(key, image);
+                    }
+                    return image;
+                } finally {
+                    decoding.remove(key);
+                }
+            }
+        });
+    }
+
+    private static ImageIcon decode(File imageFile) throws IOException
+    {
+        if (!imageFile.isFile()) {
+            return null;
+        }
+        if (imageFile.getName().toLowerCase().endsWith(".gif")) {
+            return decodeGIF(imageFile);
+        }
+        BufferedImage image = ImageIO.read(imageFile);
+        if (image == null) {
+            return null; // No reader for the format.
+        }
+        return new ImageIcon(scaled(image));
+    }
+
+    /**
+     * By the toolkit, ImageIO would keep only the first frame of the animated ones.
+     */
+    private static ImageIcon decodeGIF(File imageFile)
+    {
+        ImageIcon icon = new ImageIcon(imageFile.getPath());
+        if (icon.getImageLoadStatus() != MediaTracker.COMPLETE) {
+            return null;
+        }
+        double scale = Math.min((double) MAX_WIDTH / icon.getIconWidth(), (double) MAX_HEIGHT / icon.getIconHeight());
+        if (scale >= 1) {
+            return icon;
+        }
+        int w = Math.max(1, (int) Math.round(icon.getIconWidth() * scale));
+        int h = Math.max(1, (int) Math.round(icon.getIconHeight() * scale));
+        // Scaled by a filter over the frames, so it still moves.
+        return new ImageIcon(icon.getImage().getScaledInstance(w, h, Image.SCALE_DEFAULT));
+    }
+
+    /**
+     * Keeps the proportions, the images that fit are left as they are.
+     */
+    static BufferedImage scaled(BufferedImage image)
+    {
+        double scale = Math.min((double) MAX_WIDTH / image.getWidth(), (double) MAX_HEIGHT / image.getHeight());
+        if (scale >= 1) {
+            return image;
+        }
+        int w = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int h = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage scaled = new BufferedImage(w, h, type);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private synchronized void put(String key, ImageIcon image)
+    {
+        long weight = weightOf(image);
+        if (weight > capacity) {
+            return;
+        }
+        ImageIcon old = images.put(key, image);
+        if (old != null) {
+            size -= weightOf(old);
+        }
+        size += weight;
+
+        for (Iterator<Map.Entry<String, ImageIcon>> it = images.entrySet().iterator(); size > capacity && it.hasNext();) {
+            Map.Entry<String, ImageIcon> eldest = it.next();
+            if (eldest.getValue() != image) {
+                size -= weightOf(eldest.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private static long weightOf(ImageIcon image)
+    {
+        return 4L * image.getIconWidth() * image.getIconHeight();
+    }
+
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    public synchronized int getHits()
+    {
+        return hits;
+    }
+
+    public synchronized int getMisses()
+    {
+        return misses;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.runner;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.bpfurtado.tas.model.Scene;
+
+import org.apache.log4j.Logger;
+
+import bsh.EvalError;
+import bsh.Interpreter;
+
+/**
+ * The compiled code of the scenes of one adventure, and of its assertions, all sharing one interpreter.
+ * Scenes are compiled the first time they are opened and evicted when their code changes.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class SceneScripts
+{
+    private static Logger logger = Logger.getLogger(SceneScripts.class);
+
+    private Interpreter interpreter = new Interpreter();
+
+    private ConcurrentMap<Integer, CompiledScript> scenes = new ConcurrentHashMap<Integer, CompiledScript>();
+    private volatile CompiledScript assertions;
+
+    public CompiledScript of(Scene scene) throws EvalError
+    {
+        CompiledScript script = scenes.get(scene.getId());
+        if (script == null) {
+            logger.debug("Compiling the code of scene [" + scene.getId() + "]");
+            script = new CompiledScript(interpreter, scene.getCode());
+            CompiledScript other = scenes.putIfAbsent(scene.getId(), script);
+            if (other != null) {
+                script = other;
+            }
+        }
+        return script;
+    }
+
+    public CompiledScript ofAssertions(String code) throws EvalError
+    {
+        CompiledScript script = assertions;
+        if (script == null || !sameCode(script, code)) {
+            logger.debug("Compiling the assertions");
+            script = new CompiledScript(interpreter, code);
+            assertions = script;
+        }
+        return script;
+    }
+
+    private static boolean sameCode(CompiledScript script, String code)
+    {
+        return script.getCode() == null ? code == null : script.getCode().equals(code);
+    }
+
+    public void evict(Scene scene)
+    {
+        scenes.remove(scene.getId());
+    }
+
+    public void evictAssertions()
+    {
+        assertions = null;
+    }
+}
@@ -105,7 +105,7 @@ public class SaveGamePersister
                 }
             }
 
-            Workspace workspace = Workspace.loadFrom(root.valueOf("@workspaceId"));
+            Workspace workspace = Workspace.loadToPlay(root.valueOf("@workspaceId"));
             SaveGame saveGame = new SaveGame(workspace, player, integer(root, "sceneId"), root.valueOf("@creation"));
             saveGame.setFile(saveGameFile);
             return saveGame;
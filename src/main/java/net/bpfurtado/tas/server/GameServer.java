@@ -0,0 +1,193 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.server;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import net.bpfurtado.tas.model.Adventure;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Hosts many {@link GameSession}s on one loaded adventure, without any window. The actions of a session run
+ * one at a time, in the order they were asked, on a small pool of threads shared by all the sessions.
+ * 
+ * The sessions only read the adventure, what their scene code changes is kept in the overlay of each game,
+ * see {@link net.bpfurtado.tas.model.GameOverlay}.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class GameServer
+{
+    private static Logger logger = Logger.getLogger(GameServer.class);
+
+    private Adventure adventure;
+    private ExecutorService executor;
+
+    private ConcurrentMap<String, HostedSession> sessions = new ConcurrentHashMap<String, HostedSession>();
+
+    private Random seeds = new Random();
+
+    public GameServer(Adventure adventure)
+    {
+        this(adventure, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameServer(Adventure adventure, int threads)
+    {
+        this.adventure = adventure;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * @return the id of the new session, not started yet.
+     */
+    public String createSession(String playerName)
+    {
+        String id = UUID.randomUUID().toString();
+        Random rnd;
+        synchronized (seeds) {
+            rnd = new Random(seeds.nextLong());
+        }
+        sessions.put(id, new HostedSession(new GameSession(id, adventure, playerName, rnd), new SerialExecutor(executor)));
+        logger.debug("Session [" + id + "] created for [" + playerName + "]");
+        return id;
+    }
+
+    public Future<SceneView> start(String sessionId)
+    {
+        return submit(sessionId, new Action() {
+            public SceneView exec(GameSession session)
+            {
+                return session.start();
+            }
+        });
+    }
+
+    public Future<SceneView> openPath(String sessionId, final int index)
+    {
+        return submit(sessionId, new Action() {
+            public SceneView exec(GameSession session)
+            {
+                return session.openPath(index);
+            }
+        });
+    }
+
+    public Future<SceneView> fight(String sessionId)
+    {
+        return submit(sessionId, new Action() {
+            public SceneView exec(GameSession session)
+            {
+                return session.fight();
+            }
+        });
+    }
+
+    public Future<SceneView> testSkill(String sessionId)
+    {
+        return submit(sessionId, new Action() {
+            public SceneView exec(GameSession session)
+            {
+                return session.testSkill();
+            }
+        });
+    }
+
+    public Future<SceneView> look(String sessionId)
+    {
+        return submit(sessionId, new Action() {
+            public SceneView exec(GameSession session)
+            {
+                return session.look();
+            }
+        });
+    }
+
+    public void closeSession(String sessionId)
+    {
+        sessions.remove(sessionId);
+    }
+
+    public int getNumberOfSessions()
+    {
+        return sessions.size();
+    }
+
+    public Adventure getAdventure()
+    {
+        return adventure;
+    }
+
+    /**
+     * Lets the actions already asked finish.
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit)) {
+            logger.warn("Actions still running after " + timeout + " " + unit);
+        }
+        sessions.clear();
+    }
+
+    private Future<SceneView> submit(String sessionId, final Action action)
+    {
+        final HostedSession hosted = sessions.get(sessionId);
+        if (hosted == null) {
+            throw new GameServerException("Unknown session [" + sessionId + "]");
+        }
+        FutureTask<SceneView> task = new FutureTask<SceneView>(new Callable<SceneView>() {
+            public SceneView call()
+            {
+                return action.exec(hosted.session);
+            }
+        });
+        hosted.serial.execute(task);
+        return task;
+    }
+
+    private interface Action
+    {
+        SceneView exec(GameSession session);
+    }
+
+    private static class HostedSession
+    {
+        GameSession session;
+        SerialExecutor serial;
+
+        HostedSession(GameSession session, SerialExecutor serial)
+        {
+            this.session = session;
+            this.serial = serial;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.GameImpl;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Player;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.SkillTest;
+import net.bpfurtado.tas.model.combat.Fight;
+
+/**
+ * One player going through an adventure, the {@link net.bpfurtado.tas.runner.Runner} flow without the
+ * window. Not thread safe, {@link GameServer} runs the actions of each session one at a time.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class GameSession
+{
+    private String id;
+    private Adventure adventure;
+    private String playerName;
+    private GameImpl game;
+    private Random rnd;
+
+    private List<IPath> pathsShown = new ArrayList<IPath>();
+    private boolean gameOver = false;
+
+    public GameSession(String id, Adventure adventure, String playerName, Random rnd)
+    {
+        this.id = id;
+        this.adventure = adventure;
+        this.playerName = playerName;
+        this.rnd = rnd;
+        this.game = newGame();
+    }
+
+    /**
+     * A new game with a new player, like the Runner does at each start.
+     */
+    private GameImpl newGame()
+    {
+        GameImpl newGame = new GameImpl(adventure);
+        newGame.setRandom(rnd);
+        newGame.setPlayer(new Player(playerName));
+        return newGame;
+    }
+
+    /**
+     * Like the Runner, the start scene code is not executed. Starting again the player is a new one, the
+     * stamina and skills changed by the last game are gone.
+     */
+    public SceneView start()
+    {
+        if (game.getCurrentScene() != null) {
+            game = newGame();
+        }
+        gameOver = false;
+        game.openNoActions(game.getAdventure().getStart());
+        return view(null);
+    }
+
+    public SceneView openPath(int index)
+    {
+        checkType(SceneType.regular);
+        if (index < 0 || index >= pathsShown.size()) {
+            throw new GameServerException("There is no path [" + index + "] at scene [" + game.getCurrentScene().getId() + "]");
+        }
+        return open(pathsShown.get(index), null);
+    }
+
+    public SceneView fight()
+    {
+        checkType(SceneType.combat);
+        Fight fight = new Fight(game.getPlayer(), game.getCurrentScene().getCombat(), rnd);
+        if (!fight.toTheDeath()) {
+            gameOver = true;
+            return view("You died! (" + fight.getRounds() + " rounds)");
+        }
+        return open(path(0), "You won! (" + fight.getRounds() + " rounds)");
+    }
+
+    public SceneView testSkill()
+    {
+        checkType(SceneType.skillTest);
+        SkillTest test = new SkillTest(game.getPlayer(), game.getCurrentScene().getSkillToTest());
+        boolean skillful = test.play(rnd);
+        String dice = "[" + test.getFirstDice() + "] + [" + test.getSecondDice() + "]";
+        return open(path(skillful ? 0 : 1), skillful ? "You won " + dice : "You lost " + dice);
+    }
+
+    /**
+     * The current scene again, without running anything.
+     */
+    public SceneView look()
+    {
+        checkStarted();
+        return view(null);
+    }
+
+    /**
+     * Of the combat and skill test scenes, where the paths are the outcomes.
+     */
+    private IPath path(int index)
+    {
+        List<IPath> paths = game.getCurrentScene().getPaths();
+        if (index >= paths.size()) {
+            throw new GameServerException("Scene [" + game.getCurrentScene().getId() + "] has no path [" + index + "] for the outcome");
+        }
+        return paths.get(index);
+    }
+
+    private SceneView open(IPath path, String message)
+    {
+        if (path.getTo() == null) {
+            throw new GameServerException("The path [" + path.getText() + "] has no destiny");
+        }
+        game.open(path.getTo());
+        return view(message);
+    }
+
+    private void checkType(SceneType expected)
+    {
+        checkStarted();
+        if (gameOver) {
+            throw new GameServerException("Game over, start again");
+        }
+        SceneType type = game.getCurrentScene().getType();
+        if (type != expected) {
+            throw new GameServerException("Not possible at a " + type + " scene");
+        }
+    }
+
+    private void checkStarted()
+    {
+        if (game.getCurrentScene() == null) {
+            throw new GameServerException("Session [" + id + "] not started");
+        }
+    }
+
+    private SceneView view(String message)
+    {
+        Scene scene = game.getCurrentScene();
+        if (scene.isEnd()) {
+            gameOver = true;
+        }
+
+        pathsShown.clear();
+        List<String> texts = new ArrayList<String>();
+        if (scene.getType() == SceneType.regular) {
+            for (IPath path : scene.getPaths()) {
+                if (!game.isVisible(path)) {
+                    continue;
+                }
+                pathsShown.add(path);
+                texts.add(path.getText());
+            }
+        }
+        return new SceneView(scene.getId(), scene.getType(), game.getText(scene), texts, message, gameOver);
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public GameImpl getGame()
+    {
+        return game;
+    }
+}
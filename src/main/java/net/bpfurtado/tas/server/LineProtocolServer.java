@@ -0,0 +1,244 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.server;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.persistence.AdventureConverter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Plain text access to a {@link GameServer} on the loopback interface, to try it with telnet or a test bot.
+ * One command per line, each answer ends with a line holding just a dot:
+ * 
+ * <pre>
+ * new &lt;player name&gt;   starts a session:  session &lt;id&gt;, then the start scene
+ * open &lt;n&gt;            takes the path n:   scene &lt;id&gt; &lt;type&gt;, text lines, path &lt;n&gt; &lt;text&gt; lines
+ * fight | test | look | restart | quit
+ * </pre>
+ * 
+ * Errors are answered with: error &lt;message&gt;
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class LineProtocolServer
+{
+    private static Logger logger = Logger.getLogger(LineProtocolServer.class);
+
+    private static final long ACTION_TIMEOUT_SECONDS = 30;
+
+    private GameServer gameServer;
+    private ServerSocket serverSocket;
+    private ExecutorService connections = Executors.newCachedThreadPool();
+
+    public LineProtocolServer(GameServer gameServer, int port) throws IOException
+    {
+        this.gameServer = gameServer;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+    }
+
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections in a background thread.
+     */
+    public void start()
+    {
+        Thread acceptor = new Thread(new Runnable() {
+            public void run()
+            {
+                accept();
+            }
+        }, "tas-line-protocol-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() throws IOException
+    {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void accept()
+    {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connections.execute(new Runnable() {
+                    public void run()
+                    {
+                        serve(socket);
+                    }
+                });
+            } catch (SocketException e) {
+                logger.debug("Server socket closed");
+            } catch (IOException e) {
+                logger.error("Error accepting a connection", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket)
+    {
+        String sessionId = null;
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0) {
+                    continue;
+                }
+                if (line.equals("quit")) {
+                    break;
+                }
+                try {
+                    if (line.startsWith("new")) {
+                        if (sessionId != null) {
+                            gameServer.closeSession(sessionId);
+                        }
+                        sessionId = gameServer.createSession(line.substring(3).trim());
+                        out.println("session " + sessionId);
+                        write(out, await(gameServer.start(sessionId)));
+                    } else {
+                        write(out, await(command(sessionId, line)));
+                    }
+                } catch (RuntimeException e) {
+                    out.println("error " + e.getMessage());
+                }
+                out.println(".");
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.warn("Connection lost", e);
+        } finally {
+            if (sessionId != null) {
+                gameServer.closeSession(sessionId);
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.warn("Error closing the connection", e);
+            }
+        }
+    }
+
+    private Future<SceneView> command(String sessionId, String line)
+    {
+        if (sessionId == null) {
+            throw new GameServerException("No session, send: new <player name>");
+        }
+        if (line.startsWith("open ")) {
+            int index;
+            try {
+                index = Integer.parseInt(line.substring(5).trim());
+            } catch (NumberFormatException e) {
+                throw new GameServerException("Bad path number [" + line.substring(5).trim() + "]");
+            }
+            return gameServer.openPath(sessionId, index);
+        } else if (line.equals("fight")) {
+            return gameServer.fight(sessionId);
+        } else if (line.equals("test")) {
+            return gameServer.testSkill(sessionId);
+        } else if (line.equals("look")) {
+            return gameServer.look(sessionId);
+        } else if (line.equals("restart")) {
+            return gameServer.start(sessionId);
+        }
+        throw new GameServerException("Unknown command [" + line + "]");
+    }
+
+    private static SceneView await(Future<SceneView> future)
+    {
+        try {
+            return future.get(ACTION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new GameServerException("Action failed", cause);
+        } catch (Exception e) {
+            throw new GameServerException("Action failed", e);
+        }
+    }
+
+    private static void write(PrintWriter out, SceneView view)
+    {
+        out.println("scene " + view.getSceneId() + " " + view.getType().name());
+        if (view.getMessage() != null) {
+            out.println("message " + view.getMessage());
+        }
+        if (view.getText() != null) {
+            for (String textLine : view.getText().split("\r?\n")) {
+                out.println("text " + textLine);
+            }
+        }
+        int i = 0;
+        for (String path : view.getPaths()) {
+            out.println("path " + i++ + " " + path.replace('\n', ' '));
+        }
+        if (view.isGameOver()) {
+            out.println("game over");
+        }
+    }
+
+    /**
+     * LineProtocolServer &lt;file.adv.xml | file.adv.bin&gt; [port] [threads]
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 0) {
+            System.err.println("Usage: LineProtocolServer <file.adv.xml | file.adv.bin> [port] [threads]");
+            System.exit(1);
+        }
+        File f = new File(args[0]);
+        Adventure adventure = AdventureConverter.readerToPlay(f).read(f);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        LineProtocolServer server = new LineProtocolServer(new GameServer(adventure, threads), port);
+        System.out.println("Serving [" + adventure.getName() + "] at localhost:" + server.getPort());
+        server.accept();
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.bpfurtado.tas.model.SceneType;
+
+/**
+ * What a player sees of the current scene, a copy taken right after each action so it can be sent away
+ * while the session goes on.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class SceneView
+{
+    private int sceneId;
+    private SceneType type;
+    private String text;
+    private List<String> paths;
+    private String message;
+    private boolean gameOver;
+
+    SceneView(int sceneId, SceneType type, String text, List<String> paths, String message, boolean gameOver)
+    {
+        this.sceneId = sceneId;
+        this.type = type;
+        this.text = text;
+        this.paths = Collections.unmodifiableList(new ArrayList<String>(paths));
+        this.message = message;
+        this.gameOver = gameOver;
+    }
+
+    public int getSceneId()
+    {
+        return sceneId;
+    }
+
+    public SceneType getType()
+    {
+        return type;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * The texts of the paths the player can take, by the index expected by {@link GameSession#openPath(int)}.
+     */
+    public List<String> getPaths()
+    {
+        return paths;
+    }
+
+    /**
+     * The outcome of the last combat or skill test, null otherwise.
+     */
+    public String getMessage()
+    {
+        return message;
+    }
+
+    public boolean isGameOver()
+    {
+        return gameOver;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[SceneView: sceneId=" + sceneId + ", type=" + type + ", paths=" + paths + ", gameOver=" + gameOver + "]";
+    }
+}
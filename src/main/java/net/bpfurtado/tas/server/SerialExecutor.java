@@ -0,0 +1,67 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.server;
+
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the tasks given to it one at a time, in order, borrowing the threads of a shared executor. Each
+ * session has one, so thousands of sessions need only a few threads.
+ * 
+ * @author Bruno Patini Furtado
+ */
+class SerialExecutor implements Executor
+{
+    private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+    private final Executor executor;
+    private Runnable active;
+
+    SerialExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    public synchronized void execute(final Runnable r)
+    {
+        tasks.add(new Runnable() {
+            public void run()
+            {
+                try {
+                    r.run();
+                } finally {
+                    scheduleNext();
+                }
+            }
+        });
+        if (active == null) {
+            scheduleNext();
+        }
+    }
+
+    private synchronized void scheduleNext()
+    {
+        active = tasks.poll();
+        if (active != null) {
+            executor.execute(active);
+        }
+    }
+}
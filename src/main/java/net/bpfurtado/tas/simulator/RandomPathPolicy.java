@@ -0,0 +1,40 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.simulator;
+
+import java.util.List;
+import java.util.Random;
+
+import net.bpfurtado.tas.model.Game;
+import net.bpfurtado.tas.model.IPath;
+
+/**
+ * Any of the paths, all with the same chance.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class RandomPathPolicy implements PathPolicy
+{
+    public IPath choose(Game game, List<IPath> paths, Random rnd)
+    {
+        return paths.get(rnd.nextInt(paths.size()));
+    }
+}
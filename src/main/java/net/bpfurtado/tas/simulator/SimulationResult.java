@@ -0,0 +1,251 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * What happened in a batch of playthroughs. Each fork/join task fills its own, they are merged at the end.
+ * The counters are arrays by the scene position in the adventure, so a visit costs no allocation.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class SimulationResult
+{
+    private int[] sceneIds;
+    private Map<Integer, Integer> positions;
+
+    private long runs;
+    private long wins;
+    private long deaths;
+    private long stuck;
+    private long gaveUp;
+    private long failed;
+
+    private long steps;
+    private long winningSteps;
+
+    private long[] visits;
+    private long[] deathsAt;
+    private long[] failuresAt;
+
+    SimulationResult(int[] sceneIds, Map<Integer, Integer> positions)
+    {
+        this.sceneIds = sceneIds;
+        this.positions = positions;
+        this.visits = new long[sceneIds.length];
+        this.deathsAt = new long[sceneIds.length];
+        this.failuresAt = new long[sceneIds.length];
+    }
+
+    void visited(Scene scene)
+    {
+        visits[positionOf(scene)]++;
+    }
+
+    void won(int pathLength)
+    {
+        wins++;
+        winningSteps += pathLength;
+        ended(pathLength);
+    }
+
+    void died(Scene scene, int pathLength)
+    {
+        deaths++;
+        deathsAt[positionOf(scene)]++;
+        ended(pathLength);
+    }
+
+    /**
+     * A scene that is not an end one but has no path to follow.
+     */
+    void stuck(int pathLength)
+    {
+        stuck++;
+        ended(pathLength);
+    }
+
+    /**
+     * Too many steps, usually a loop the policy does not leave.
+     */
+    void gaveUp(int pathLength)
+    {
+        gaveUp++;
+        ended(pathLength);
+    }
+
+    /**
+     * An error in the scene code or in the adventure itself.
+     */
+    void failed(Scene scene, int pathLength)
+    {
+        failed++;
+        failuresAt[positionOf(scene)]++;
+        ended(pathLength);
+    }
+
+    private void ended(int pathLength)
+    {
+        runs++;
+        steps += pathLength;
+    }
+
+    private int positionOf(Scene scene)
+    {
+        return positions.get(scene.getId());
+    }
+
+    void merge(SimulationResult other)
+    {
+        runs += other.runs;
+        wins += other.wins;
+        deaths += other.deaths;
+        stuck += other.stuck;
+        gaveUp += other.gaveUp;
+        failed += other.failed;
+        steps += other.steps;
+        winningSteps += other.winningSteps;
+        for (int i = 0; i < visits.length; i++) {
+            visits[i] += other.visits[i];
+            deathsAt[i] += other.deathsAt[i];
+            failuresAt[i] += other.failuresAt[i];
+        }
+    }
+
+    public long getRuns()
+    {
+        return runs;
+    }
+
+    public long getWins()
+    {
+        return wins;
+    }
+
+    public long getDeaths()
+    {
+        return deaths;
+    }
+
+    public long getStuck()
+    {
+        return stuck;
+    }
+
+    public long getGaveUp()
+    {
+        return gaveUp;
+    }
+
+    public long getFailed()
+    {
+        return failed;
+    }
+
+    public double getWinRate()
+    {
+        return runs == 0 ? 0 : (double) wins / runs;
+    }
+
+    /**
+     * Paths taken per playthrough, whatever its end.
+     */
+    public double getAveragePathLength()
+    {
+        return runs == 0 ? 0 : (double) steps / runs;
+    }
+
+    public double getAverageWinningPathLength()
+    {
+        return wins == 0 ? 0 : (double) winningSteps / wins;
+    }
+
+    public long getVisits(int sceneId)
+    {
+        return visits[positions.get(sceneId)];
+    }
+
+    /**
+     * Scene id to the number of deaths there, the deadliest first.
+     */
+    public Map<Integer, Long> getDeathsByScene()
+    {
+        return byScene(deathsAt, Integer.MAX_VALUE);
+    }
+
+    public Map<Integer, Long> getFailuresByScene()
+    {
+        return byScene(failuresAt, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Scene id to the number of visits, the most visited first.
+     */
+    public Map<Integer, Long> getHotScenes(int max)
+    {
+        return byScene(visits, max);
+    }
+
+    private Map<Integer, Long> byScene(final long[] counts, int max)
+    {
+        List<Integer> used = new ArrayList<Integer>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                used.add(i);
+            }
+        }
+        Collections.sort(used, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2)
+            {
+                return Long.valueOf(counts[i2]).compareTo(counts[i1]);
+            }
+        });
+
+        Map<Integer, Long> result = new LinkedHashMap<Integer, Long>();
+        for (int i = 0; i < used.size() && i < max; i++) {
+            result.put(sceneIds[used.get(i)], counts[used.get(i)]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("runs=").append(runs).append(", wins=").append(wins).append(", deaths=").append(deaths);
+        sb.append(", stuck=").append(stuck).append(", gaveUp=").append(gaveUp).append(", failed=").append(failed).append('\n');
+        sb.append(String.format("win rate=%.2f%%, average path length=%.1f (%.1f when winning)%n", getWinRate() * 100, getAveragePathLength(), getAverageWinningPathLength()));
+        sb.append("deaths by scene=").append(getDeathsByScene()).append('\n');
+        sb.append("hot scenes=").append(getHotScenes(10));
+        if (failed > 0) {
+            sb.append('\n').append("failures by scene=").append(getFailuresByScene());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * Created by Bruno Patini Furtado [http://bpfurtado.livejournal.com] - 2005
+ *
+ * This file is part of the Text Adventures Suite.
+ * 
+ * Text Adventures Suite is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Text Adventures Suite is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Text Adventures Suite.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Project page: http://code.google.com/p/text-adventures-suite/
+ */
+package net.bpfurtado.tas.simulator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.GameImpl;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Player;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.SkillTest;
+import net.bpfurtado.tas.model.combat.CombatKernel;
+import net.bpfurtado.tas.model.combat.Fight;
+import net.bpfurtado.tas.model.combat.RandomDice;
+import net.bpfurtado.tas.model.persistence.AdventureConverter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Plays an adventure again and again from its start, with no window: paths chosen by a {@link PathPolicy},
+ * combats fought by {@link Fight}, skills tested by {@link SkillTest} and the scene code run as in the
+ * Runner. For balancing the combats and the skill tests before a release.
+ * 
+ * The runs are split in fork/join tasks, each one with its own Random seeded from the simulation seed and
+ * its first run, so the same seed gives the same result whatever the number of threads.
+ * 
+ * @author Bruno Patini Furtado
+ */
+public class Simulator
+{
+    private static Logger logger = Logger.getLogger(Simulator.class);
+
+    private static final int RUNS_PER_TASK = 2000;
+
+    private Adventure adventure;
+
+    private int[] sceneIds;
+    private Map<Integer, Integer> positions = new HashMap<Integer, Integer>();
+
+    private PathPolicy policy = new RandomPathPolicy();
+    private int maxPathLength = 1000;
+    private long seed = System.nanoTime();
+
+    private Set<Integer> winningScenes = new HashSet<Integer>();
+
+    private int combatSkill = -1;
+    private int stamina = -1;
+
+    public Simulator(Adventure adventure)
+    {
+        this.adventure = adventure;
+
+        List<Scene> scenes = adventure.getScenes();
+        sceneIds = new int[scenes.size()];
+        for (int i = 0; i < sceneIds.length; i++) {
+            sceneIds[i] = scenes.get(i).getId();
+            positions.put(sceneIds[i], i);
+        }
+    }
+
+    public SimulationResult run(long runs)
+    {
+        return run(runs, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SimulationResult run(long runs, int threads)
+    {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.currentTimeMillis();
+            SimulationResult result = pool.invoke(new Runs(0, runs));
+            logger.debug(runs + " runs in " + (System.currentTimeMillis() - start) + "ms with " + threads + " threads");
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private SimulationResult runs(long from, long to)
+    {
+        SimulationResult result = new SimulationResult(sceneIds, positions);
+        Random rnd = new Random(seed * 31 + from);
+        CombatKernel kernel = new CombatKernel(new RandomDice(rnd));
+        for (long i = from; i < to; i++) {
+            play(rnd, kernel, result);
+        }
+        return result;
+    }
+
+    /**
+     * One playthrough, the Runner flow: the start scene code is not executed.
+     */
+    private void play(Random rnd, CombatKernel kernel, SimulationResult result)
+    {
+        GameImpl game = new GameImpl(adventure);
+        game.setRandom(rnd);
+        game.setPlayer(createPlayer(rnd));
+        game.openNoActions(adventure.getStart());
+
+        Scene scene = game.getCurrentScene();
+        int pathLength = 0;
+        try {
+            while (true) {
+                result.visited(scene);
+                if (game.getPlayer().isDead()) {
+                    result.died(scene, pathLength);
+                    return;
+                }
+                if (scene.isEnd()) {
+                    if (winningScenes.isEmpty() || winningScenes.contains(scene.getId())) {
+                        result.won(pathLength);
+                    } else {
+                        result.died(scene, pathLength);
+                    }
+                    return;
+                }
+                if (pathLength == maxPathLength) {
+                    result.gaveUp(pathLength);
+                    return;
+                }
+
+                IPath path = nextPath(game, scene, rnd, kernel);
+                if (game.getPlayer().isDead()) {
+                    result.died(scene, pathLength);
+                    return;
+                }
+                if (path == null || path.getTo() == null) {
+                    result.stuck(pathLength);
+                    return;
+                }
+
+                game.open(path.getTo());
+                scene = game.getCurrentScene();
+                pathLength++;
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Playthrough failed at " + scene, e);
+            result.failed(scene, pathLength);
+        }
+    }
+
+    /**
+     * @return null when there is no way out of the scene.
+     */
+    private IPath nextPath(GameImpl game, Scene scene, Random rnd, CombatKernel kernel)
+    {
+        List<IPath> paths = scene.getPaths();
+        if (scene.getType() == SceneType.combat) {
+            if (!new Fight(game.getPlayer(), scene.getCombat(), kernel).toTheDeath() || paths.isEmpty()) {
+                return null;
+            }
+            return paths.get(0);
+        }
+        if (scene.getType() == SceneType.skillTest) {
+            boolean skillful = new SkillTest(game.getPlayer(), scene.getSkillToTest()).play(rnd);
+            int index = skillful ? 0 : 1;
+            return index < paths.size() ? paths.get(index) : null;
+        }
+
+        List<IPath> visible = new ArrayList<IPath>(paths.size());
+        for (IPath p : paths) {
+            if (game.isVisible(p)) {
+                visible.add(p);
+            }
+        }
+        return visible.isEmpty() ? null : policy.choose(game, visible, rnd);
+    }
+
+    /**
+     * The fixed stats when given, otherwise rolled as a new {@link Player} rolls them.
+     */
+    private Player createPlayer(Random rnd)
+    {
+        int playerSkill = combatSkill == -1 ? rnd.nextInt(7) + 6 : combatSkill;
+        int playerStamina = stamina == -1 ? rnd.nextInt(13) + 12 : stamina;
+        return new Player("Player", playerSkill, playerStamina);
+    }
+
+    public void setPolicy(PathPolicy policy)
+    {
+        this.policy = policy;
+    }
+
+    public void setMaxPathLength(int maxPathLength)
+    {
+        this.maxPathLength = maxPathLength;
+    }
+
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    public void setPlayerStats(int combatSkill, int stamina)
+    {
+        this.combatSkill = combatSkill;
+        this.stamina = stamina;
+    }
+
+    /**
+     * The end scenes that are a victory, the other end scenes count as deaths. When none is given every end
+     * scene is a victory.
+     */
+    public void setWinningScenes(Collection<Integer> sceneIds)
+    {
+        this.winningScenes = new HashSet<Integer>(sceneIds);
+    }
+
+    @SuppressWarnings("serial")
+    private class Runs extends RecursiveTask<SimulationResult>
+    {
+        private long from;
+        private long to;
+
+        Runs(long from, long to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationResult compute()
+        {
+            if (to - from <= RUNS_PER_TASK) {
+                return runs(from, to);
+            }
+            long middle = from + (to - from) / 2;
+            Runs left = new Runs(from, middle);
+            left.fork();
+            SimulationResult result = new Runs(middle, to).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * Args: adventure file (.adv.xml or .adv.bin), number of runs, [winning scene ids...]
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 2) {
+            System.out.println("Usage: Simulator <adventure file> <runs> [winning scene id...]");
+            return;
+        }
+        File file = new File(args[0]);
+        Simulator simulator = new Simulator(AdventureConverter.readerToPlay(file).read(file));
+        List<Integer> winning = new ArrayList<Integer>();
+        for (int i = 2; i < args.length; i++) {
+            winning.add(Integer.valueOf(args[i]));
+        }
+        simulator.setWinningScenes(winning);
+
+        long start = System.currentTimeMillis();
+        SimulationResult result = simulator.run(Long.parseLong(args[1]));
+        System.out.println(result);
+        System.out.println("in " + (System.currentTimeMillis() - start) + "ms");
+    }
+}
@@ -0,0 +1,75 @@
+package net.bpfurtado.tas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.Skill;
+import net.bpfurtado.tas.model.combat.Combat;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+/**
+ * Builds big, game book like, adventures for tests and benchmarks: every scene is reached from an older
+ * one, plus some links back and across, a few combats, skill tests and end scenes.
+ */
+public class AdventureGenerator
+{
+    private static final String[] ENEMIES = { "Goblin", "Skeleton", "Orc", "Giant Rat", "Troll" };
+
+    private Random random;
+
+    public AdventureGenerator(long seed)
+    {
+        this.random = new Random(seed);
+    }
+
+    public Adventure generate(int numberOfScenes)
+    {
+        Adventure a = new Adventure();
+        a.setName("Generated " + numberOfScenes);
+        a.setAssertions("");
+
+        List<Scene> scenes = new ArrayList<Scene>(numberOfScenes);
+        scenes.add(a.getStart());
+
+        for (int i = 1; i < numberOfScenes; i++) {
+            Scene parent = scenes.get(i - 1 - random.nextInt(Math.min(i, 5)));
+            IPath p = parent.createPath("Go to " + i);
+            Scene s = a.createSceneFrom(p);
+            s.setName(i + "");
+            s.setTags(i % 7 == 0 ? "dungeon" : "");
+            s.setText(text(i));
+            s.setCode(i % 11 == 0 ? "player.incIntValue(\"gold\", 1);" : "");
+            scenes.add(s);
+        }
+
+        for (int i = 1; i < numberOfScenes; i++) {
+            Scene s = scenes.get(i);
+            int kind = random.nextInt(20);
+            if (kind == 0 && !s.hasPaths()) {
+                s.setType(SceneType.end);
+            } else if (kind == 1 && s.hasPaths()) {
+                Combat c = new Combat();
+                c.add(new Fighter(ENEMIES[random.nextInt(ENEMIES.length)], 5 + random.nextInt(6), 4 + random.nextInt(8)));
+                s.setCombat(c);
+                s.setType(SceneType.combat);
+            } else if (kind == 2) {
+                s.setType(SceneType.skillTest);
+                s.setSkillToTest(new Skill("Luck"));
+            } else if (s.canHaveMorePaths()) {
+                IPath p = s.createPath("Turn back");
+                p.setTo(scenes.get(random.nextInt(numberOfScenes)));
+            }
+        }
+        return a;
+    }
+
+    private String text(int i)
+    {
+        return "You are at the room " + i + ". The walls are wet and a cold wind comes from the north.\n" + "There are " + random.nextInt(9) + " torches burning.";
+    }
+}
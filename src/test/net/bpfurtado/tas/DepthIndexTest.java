@@ -0,0 +1,95 @@
+package net.bpfurtado.tas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.DepthIndex;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+
+public class DepthIndexTest extends TestCase
+{
+    public void testLinkAndUnlink()
+    {
+        Adventure a = new Adventure();
+        Scene start = a.getStart();
+        Scene s1 = TestUtils.createNewScene(a, start, "1");
+        Scene s11 = TestUtils.createNewScene(a, s1, "11");
+        Scene s111 = TestUtils.createNewScene(a, s11, "111");
+
+        assertEquals(3, a.getFirstDepthOfScene(s111));
+
+        IPath shortcut = start.createPath("shortcut");
+        shortcut.setTo(s11);
+        assertEquals(1, a.getFirstDepthOfScene(s11));
+        assertEquals(2, a.getFirstDepthOfScene(s111));
+
+        shortcut.goToNowhere();
+        assertEquals(2, a.getFirstDepthOfScene(s11));
+        assertEquals(3, a.getFirstDepthOfScene(s111));
+
+        start.remove(start.getPaths().get(0));
+        assertEquals(DepthIndex.UNREACHABLE, a.getFirstDepthOfScene(s1));
+        assertEquals(DepthIndex.UNREACHABLE, a.getFirstDepthOfScene(s111));
+    }
+
+    /**
+     * Random links and unlinks, after each one the incremental levels must match a BFS made from scratch.
+     */
+    public void testRandomEditsMatchFullBFS()
+    {
+        Random random = new Random(42);
+        Adventure a = new Adventure();
+        List<Scene> scenes = new ArrayList<Scene>();
+        scenes.add(a.getStart());
+        for (int i = 0; i < 60; i++) {
+            scenes.add(a.createScene());
+        }
+
+        List<IPath> paths = new ArrayList<IPath>();
+        for (int i = 0; i < 600; i++) {
+            if (paths.isEmpty() || random.nextInt(3) > 0) {
+                Scene from = scenes.get(random.nextInt(scenes.size()));
+                IPath p = from.createPath("p" + i);
+                p.setTo(scenes.get(1 + random.nextInt(scenes.size() - 1)));
+                paths.add(p);
+            } else {
+                IPath p = paths.remove(random.nextInt(paths.size()));
+                if (random.nextBoolean()) {
+                    p.goToNowhere();
+                } else {
+                    p.getFrom().remove(p);
+                }
+            }
+            assertLevelsAreTheShortestOnes(a, scenes);
+        }
+    }
+
+    private void assertLevelsAreTheShortestOnes(Adventure a, List<Scene> scenes)
+    {
+        Scene start = a.getStart();
+        int[] expected = new int[scenes.size()];
+        Arrays.fill(expected, DepthIndex.UNREACHABLE);
+        expected[start.getId()] = 0;
+        LinkedList<Scene> queue = new LinkedList<Scene>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Scene s = queue.removeFirst();
+            for (IPath p : s.getPaths()) {
+                Scene to = p.getTo();
+                if (to != null && expected[to.getId()] == DepthIndex.UNREACHABLE) {
+                    expected[to.getId()] = expected[s.getId()] + 1;
+                    queue.add(to);
+                }
+            }
+        }
+        for (Scene s : scenes) {
+            assertEquals("Level of " + s, expected[s.getId()], a.getFirstDepthOfScene(s));
+        }
+    }
+}
@@ -128,4 +128,19 @@ public class DepthMaintenanceTest extends TestCase
             TestUtils.printScenesFromDepth(a, i);
         }
     }
+
+    public void testAdventuresKeepTheirOwnDepths()
+    {
+        Adventure a = new Adventure();
+        Scene s1 = TestUtils.createNewScene(a, a.getStart(), "S1");
+        TestUtils.createNewScene(a, s1, "S11");
+
+        Adventure b = new Adventure();
+        TestUtils.createNewScene(b, b.getStart(), "S1");
+
+        assertEquals(3, a.getNumberOfDepths());
+        assertEquals(2, b.getNumberOfDepths());
+        TestUtils.hasScenesInDepth(this, b, 0, b.getStart());
+        assertEquals(-1, b.getFirstDepthOfScene(s1));
+    }
 }
@@ -0,0 +1,75 @@
+package net.bpfurtado.tas;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.GameImpl;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class GameOverlayTest extends TestCase
+{
+    private Adventure adventure;
+    private Scene scene;
+    private IPath first;
+    private IPath second;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        adventure = new Adventure();
+        scene = adventure.createScene();
+        scene.setText("Door");
+        first = scene.createPath("Open it");
+        first.setTo(adventure.createScene());
+        second = scene.createPath("Knock");
+        second.setTo(adventure.createScene());
+        scene.setCode("if (!player.has(\"key\")) { pathsToHide.add(1); text = text + \", locked\"; }");
+    }
+
+    public void testTheSharedSceneIsNotChanged()
+    {
+        GameImpl game = new GameImpl(adventure);
+        game.open(scene);
+
+        assertEquals("Door, locked", game.getText(scene));
+        assertFalse(game.isVisible(first));
+        assertTrue(game.isVisible(second));
+
+        assertEquals("Door", scene.getText());
+        assertTrue(first.isVisible());
+    }
+
+    public void testGamesDoNotSeeEachOther()
+    {
+        GameImpl locked = new GameImpl(adventure);
+        GameImpl withKey = new GameImpl(adventure);
+        withKey.getPlayer().addAttribute("key");
+
+        locked.open(scene);
+        withKey.open(scene);
+
+        assertEquals("Door, locked", locked.getText(scene));
+        assertFalse(locked.isVisible(first));
+        assertEquals("Door", withKey.getText(scene));
+        assertTrue(withKey.isVisible(first));
+    }
+
+    public void testPathsShownAgainWhenLeavingTheSceneButTheTextStays()
+    {
+        GameImpl game = new GameImpl(adventure);
+        game.open(scene);
+        game.open(second.getTo());
+
+        assertTrue(game.isVisible(first));
+        assertEquals("Door, locked", game.getText(scene));
+
+        game.open(scene);
+        assertEquals("Door, locked, locked", game.getText(scene));
+
+        game.clearOverlay();
+        assertEquals("Door", game.getText(scene));
+    }
+}
@@ -0,0 +1,86 @@
+package net.bpfurtado.tas;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+
+public class SceneRemovalTest extends TestCase
+{
+    public void testPathsFromFollowTheLinks()
+    {
+        Adventure a = new Adventure();
+        Scene start = a.getStart();
+        Scene hall = a.createScene();
+        Scene cellar = a.createScene();
+
+        IPath first = start.createPath("To the hall");
+        IPath second = start.createPath("Also to the hall");
+        first.setTo(hall);
+        second.setTo(hall);
+        assertEquals(1, hall.getScenesFrom().size());
+        assertEquals(2, hall.getPathsFrom(start).size());
+
+        second.setTo(cellar);
+        assertEquals(1, hall.getPathsFrom(start).size());
+        assertSame(first, hall.getPathsFrom(start).get(0));
+        assertTrue(cellar.getScenesFrom().contains(start));
+
+        first.goToNowhere();
+        assertTrue(hall.isOrphan());
+        assertTrue(hall.getPathsFrom(start).isEmpty());
+
+        start.remove(second);
+        assertTrue(cellar.isOrphan());
+    }
+
+    public void testRemoveScenesAtOnce()
+    {
+        Adventure batch = new AdventureGenerator(7).generate(2000);
+        Adventure oneByOne = new AdventureGenerator(7).generate(2000);
+
+        batch.remove(scenesToRemove(batch));
+        for (Scene s : scenesToRemove(oneByOne)) {
+            oneByOne.remove(s);
+        }
+
+        assertEquals(oneByOne.getNumberOfScenes(), batch.getNumberOfScenes());
+        for (Scene s : batch.getScenes()) {
+            Scene other = oneByOne.getScene(s.getId());
+            assertEquals(other.getScenesFrom().size(), s.getScenesFrom().size());
+            assertEquals(oneByOne.getFirstDepthOfScene(other), batch.getFirstDepthOfScene(s));
+            for (IPath p : s.getPaths()) {
+                assertTrue(p.getTo() == null || batch.getScene(p.getTo().getId()) == p.getTo());
+            }
+            for (Scene from : s.getScenesFrom()) {
+                assertSame(from, batch.getScene(from.getId()));
+            }
+        }
+    }
+
+    public void testTheStartSceneStays()
+    {
+        Adventure a = new AdventureGenerator(3).generate(10);
+        try {
+            a.remove(Collections.singletonList(a.getStart()));
+            fail();
+        } catch (AdventureException e) {
+            assertEquals(10, a.getNumberOfScenes());
+        }
+    }
+
+    private List<Scene> scenesToRemove(Adventure a)
+    {
+        List<Scene> toRemove = new ArrayList<Scene>();
+        for (Scene s : a.getScenes()) {
+            if (s.getId() % 3 == 1) {
+                toRemove.add(s);
+            }
+        }
+        return toRemove;
+    }
+}
@@ -0,0 +1,63 @@
+package net.bpfurtado.tas;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class SceneStorageTest extends TestCase
+{
+    public void testPathsKeptByOrder()
+    {
+        Scene scene = new Adventure().createScene();
+        IPath first = scene.createPath("first");
+        IPath second = scene.createPath("second");
+        IPath third = scene.createPath("third");
+
+        List<IPath> paths = scene.getPaths();
+        assertSame(first, paths.get(0));
+        assertSame(third, paths.get(2));
+
+        third.setOrder(-1);
+        assertSame(third, paths.get(0));
+        assertSame(first, paths.get(1));
+
+        scene.remove(first);
+        assertEquals(2, scene.getPathsSize());
+        assertSame(second, paths.get(1));
+
+        try {
+            paths.remove(0);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testScenesById()
+    {
+        Adventure adventure = new Adventure();
+        Scene far = adventure.createScene(500, false);
+        Scene near = adventure.createScene();
+
+        assertSame(far, adventure.getScene(500));
+        assertEquals(501, near.getId());
+        assertNull(adventure.getScene(499));
+        assertNull(adventure.getScene(-1));
+        assertNull(adventure.getScene(100000));
+        assertEquals(3, adventure.getNumberOfScenes());
+
+        List<Scene> scenes = adventure.getScenes();
+        assertSame(adventure.getStart(), scenes.get(0));
+        assertSame(near, scenes.get(2));
+
+        adventure.remove(far);
+        assertNull(adventure.getScene(500));
+        assertEquals(2, adventure.getScenes().size());
+    }
+}
@@ -0,0 +1,82 @@
+package net.bpfurtado.tas;
+
+import java.io.File;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.persistence.XMLAdventureWriter;
+
+public class WorkspaceManifestTest extends TestCase
+{
+    private File home;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        home = File.createTempFile("workspaces", "");
+        home.delete();
+        home.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File folder : home.listFiles()) {
+            for (File f : folder.listFiles()) {
+                f.delete();
+            }
+            folder.delete();
+        }
+        home.delete();
+    }
+
+    public void testListedFromTheManifestsOrTheAdventures() throws Exception
+    {
+        File manifested = workspace("w1", "Manifested", 120);
+        writeManifest(manifested, "Manifested", 120);
+
+        File stale = workspace("w2", "Renamed by hand", 10);
+        writeManifest(stale, "Before the rename", 10);
+        new File(stale, Workspace.ADVENTURE_FILE_NAME).setLastModified(System.currentTimeMillis() + 60000);
+
+        workspace("w3", "apples", 5);
+        new File(home, "exported").mkdirs();
+
+        List<WorkspaceManifest> all = WorkspaceManifest.listAll(home);
+        assertEquals(3, all.size());
+
+        assertEquals("apples", all.get(0).getName());
+        assertEquals("w3", all.get(0).getId());
+        assertEquals(WorkspaceManifest.UNKNOWN, all.get(0).getNumberOfScenes());
+
+        assertEquals("Manifested", all.get(1).getName());
+        assertEquals(120, all.get(1).getNumberOfScenes());
+
+        assertEquals("Renamed by hand", all.get(2).getName());
+        assertEquals(WorkspaceManifest.UNKNOWN, all.get(2).getNumberOfScenes());
+    }
+
+    public void testNothingToList()
+    {
+        assertTrue(WorkspaceManifest.listAll(home).isEmpty());
+    }
+
+    private File workspace(String id, String name, int numberOfScenes)
+    {
+        File folder = new File(home, id);
+        folder.mkdirs();
+        Adventure a = new Adventure();
+        a.setName(name);
+        for (int i = 1; i < numberOfScenes; i++) {
+            a.createScene();
+        }
+        new XMLAdventureWriter(a, new File(folder, Workspace.ADVENTURE_FILE_NAME)).write();
+        return folder;
+    }
+
+    private void writeManifest(File folder, String name, int numberOfScenes)
+    {
+        new WorkspaceManifest(folder.getName(), name, numberOfScenes, new File(folder, Workspace.ADVENTURE_FILE_NAME), new File(folder, Workspace.JOURNAL_FILE_NAME)).write(folder);
+    }
+}
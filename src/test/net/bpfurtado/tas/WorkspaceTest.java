@@ -0,0 +1,73 @@
+package net.bpfurtado.tas;
+
+import java.io.File;
+import java.io.FilenameFilter;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+
+public class WorkspaceTest extends TestCase
+{
+    private String userHome;
+    private File home;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        userHome = System.getProperty("user.home");
+        home = File.createTempFile("home", "");
+        home.delete();
+        home.mkdirs();
+        System.setProperty("user.home", home.getAbsolutePath());
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        System.setProperty("user.home", userHome);
+        delete(home);
+    }
+
+    public void testEachSaveWritesANewBinary() throws Exception
+    {
+        Adventure a = new AdventureGenerator(5).generate(100);
+        a.setName("Binaries");
+        Workspace w = Workspace.createWith(a);
+        w.save();
+        File first = binaries(w)[0];
+
+        Workspace playing = Workspace.loadToPlay(w.getId());
+        assertEquals(100, playing.getAdventure().getNumberOfScenes());
+
+        a.createScene();
+        w.save();
+        File[] binaries = binaries(w);
+        assertEquals(1, binaries.length);
+        assertFalse(first.equals(binaries[0]));
+        assertEquals(101, Workspace.loadToPlay(w.getId()).getAdventure().getNumberOfScenes());
+        assertEquals(101, Workspace.loadFrom(w.getId()).getAdventure().getNumberOfScenes());
+        assertNotNull(playing.getAdventure().getScene(1).getText());
+    }
+
+    private static File[] binaries(Workspace w)
+    {
+        File folder = new File(Workspace.getWorkspacesHome(), w.getId());
+        return folder.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name)
+            {
+                return name.endsWith(".adv.bin");
+            }
+        });
+    }
+
+    private static void delete(File f)
+    {
+        File[] files = f.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        f.delete();
+    }
+}
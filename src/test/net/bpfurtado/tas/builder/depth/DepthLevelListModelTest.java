@@ -0,0 +1,63 @@
+package net.bpfurtado.tas.builder.depth;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+
+public class DepthLevelListModelTest extends TestCase
+{
+    private int events;
+
+    public void testNewLinksAreShownAfterARefresh()
+    {
+        Adventure adventure = new Adventure();
+        Scene hall = adventure.createScene();
+        adventure.getStart().createPath("hall").setTo(hall);
+
+        DepthLevelListModel model = new DepthLevelListModel(adventure, 1);
+        model.addListDataListener(new ListDataListener() {
+            public void intervalAdded(ListDataEvent e)
+            {
+                events++;
+            }
+
+            public void intervalRemoved(ListDataEvent e)
+            {
+                events++;
+            }
+
+            public void contentsChanged(ListDataEvent e)
+            {
+                events++;
+            }
+        });
+        assertEquals(1, model.getSize());
+        assertEquals(hall, model.getElementAt(0));
+
+        Scene cellar = adventure.createScene();
+        adventure.getStart().createPath("cellar").setTo(cellar);
+        assertEquals(1, model.getSize());
+
+        model.refresh();
+        assertEquals(2, model.getSize());
+        assertEquals(2, events);
+        assertTrue(model.getElementAt(0) == cellar || model.getElementAt(1) == cellar);
+    }
+
+    public void testALevelGoneIsEmpty()
+    {
+        Adventure adventure = new Adventure();
+        Scene hall = adventure.createScene();
+        adventure.getStart().createPath("hall").setTo(hall);
+
+        DepthLevelListModel model = new DepthLevelListModel(adventure, 1);
+        assertEquals(1, model.getSize());
+
+        adventure.getStart().getPaths().get(0).setTo(null);
+        model.refresh();
+        assertEquals(0, model.getSize());
+    }
+}
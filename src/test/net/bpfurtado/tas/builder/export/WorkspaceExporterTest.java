@@ -0,0 +1,154 @@
+package net.bpfurtado.tas.builder.export;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.Workspace;
+import net.bpfurtado.tas.model.Adventure;
+
+public class WorkspaceExporterTest extends TestCase
+{
+    private String userHome;
+    private File home;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        userHome = System.getProperty("user.home");
+        home = File.createTempFile("home", "");
+        home.delete();
+        home.mkdirs();
+        System.setProperty("user.home", home.getAbsolutePath());
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        System.setProperty("user.home", userHome);
+        delete(home);
+    }
+
+    public void testExportAndImportBack() throws Exception
+    {
+        Workspace first = workspace("First", 200);
+        Workspace second = workspace("Second", 50);
+        byte[] image = new byte[300 * 1024];
+        new Random(7).nextBytes(image);
+        write(new File(first.imagePathFrom("dragon_1.jpg")), image);
+        write(new File(first.imagePathFrom("notes.txt")), "notes".getBytes("US-ASCII"));
+        write(new File(first.imagePathFrom("unused.png")), image);
+        first.getAdventure().getScene(1).setImageId("dragon_1.jpg");
+        first.getAdventure().getScene(2).setImageId("notes.txt");
+        first.getAdventure().getScene(3).setImageId("dragon_1.jpg");
+        first.save();
+
+        File toFolder = WorkspaceExporter.getExportedFolder();
+        List<File> zips = WorkspaceExporter.exportAll(Arrays.asList(first.getId(), second.getId()), toFolder);
+        assertEquals(2, zips.size());
+        assertTrue(zips.get(0).getName().startsWith("First_Exported_"));
+
+        ZipFile zip = new ZipFile(zips.get(0));
+        assertEquals(ZipEntry.DEFLATED, zip.getEntry("adventure.adv.xml").getMethod());
+        assertEquals(ZipEntry.STORED, zip.getEntry("images/dragon_1.jpg").getMethod());
+        assertEquals(ZipEntry.DEFLATED, zip.getEntry("images/notes.txt").getMethod());
+        assertNull(zip.getEntry("images/unused.png"));
+        zip.close();
+
+        Workspace imported = WorkspaceExporter.importFrom(zips.get(0));
+        assertFalse(imported.getId().equals(first.getId()));
+        assertTrue(imported.getAdventure().getName().startsWith("First {Exported at "));
+        assertEquals(200, imported.getAdventure().getNumberOfScenes());
+        assertEquals("First", first.getAdventure().getName());
+        assertEquals(image.length, new File(imported.imagePathFrom("dragon_1.jpg")).length());
+    }
+
+    public void testSameNamesExportedAtOnce() throws Exception
+    {
+        Workspace first = workspace("Twin", 20);
+        Workspace second = workspace("Twin", 30);
+
+        List<File> zips = WorkspaceExporter.exportAll(Arrays.asList(first.getId(), second.getId(), first.getId()), WorkspaceExporter.getExportedFolder());
+        assertEquals(3, zips.size());
+        assertEquals(3, new HashSet<File>(zips).size());
+        assertEquals(30, WorkspaceExporter.importFrom(zips.get(1)).getAdventure().getNumberOfScenes());
+    }
+
+    public void testTheSameImageIsStoredOnce() throws Exception
+    {
+        Workspace w = workspace("Images", 10);
+        byte[] image = new byte[100 * 1024];
+        new Random(3).nextBytes(image);
+        File dragon = new File(home, "dragon.JPG");
+        File copy = new File(home, "copy of dragon.jpg");
+        write(dragon, image);
+        write(copy, image);
+        File other = new File(home, "other.jpg");
+        image[0]++;
+        write(other, image);
+
+        String id = w.copy(dragon);
+        assertEquals(id, w.copy(copy));
+        assertEquals(id, w.copy(dragon));
+        assertTrue(id.endsWith(".jpg"));
+        assertFalse(id.equals(w.copy(other)));
+        assertEquals(image.length, new File(w.imagePathFrom(id)).length());
+        assertEquals(2, new File(w.imagePathFrom(id)).getParentFile().listFiles().length);
+    }
+
+    public void testTheImagesNoSceneShowsAreSwept() throws Exception
+    {
+        Workspace w = workspace("Sweep", 10);
+        write(new File(home, "shown.png"), "shown".getBytes("US-ASCII"));
+        write(new File(home, "replaced.png"), "replaced".getBytes("US-ASCII"));
+        write(new File(home, "just added.png"), "just added".getBytes("US-ASCII"));
+        String shown = w.copy(new File(home, "shown.png"));
+        String replaced = w.copy(new File(home, "replaced.png"));
+        w.getAdventure().getScene(1).setImageId(shown);
+        long anHourAgo = System.currentTimeMillis() - 60 * 60 * 1000;
+        new File(w.imagePathFrom(shown)).setLastModified(anHourAgo);
+        new File(w.imagePathFrom(replaced)).setLastModified(anHourAgo);
+        String justAdded = w.copy(new File(home, "just added.png"));
+
+        List<File> swept = w.sweepImages(w.snapshot());
+        assertEquals(1, swept.size());
+        assertFalse(new File(w.imagePathFrom(replaced)).exists());
+        assertTrue(new File(w.imagePathFrom(shown)).exists());
+        assertTrue(new File(w.imagePathFrom(justAdded)).exists());
+    }
+
+    private static Workspace workspace(String name, int numberOfScenes)
+    {
+        Adventure a = new AdventureGenerator(numberOfScenes).generate(numberOfScenes);
+        a.setName(name);
+        Workspace w = Workspace.createWith(a);
+        w.save();
+        return w;
+    }
+
+    private static void write(File f, byte[] data) throws Exception
+    {
+        OutputStream out = new FileOutputStream(f);
+        out.write(data);
+        out.close();
+    }
+
+    private static void delete(File f)
+    {
+        File[] files = f.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        f.delete();
+    }
+}
@@ -0,0 +1,160 @@
+package net.bpfurtado.tas.builder.scenespanel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class SceneSearchIndexTest extends TestCase
+{
+    private static final String[] FILTERS = { "room 1", "dungeon", "WET", "gold", "go to 3", "torches", "12", "n.", "  ", "turn back", "xyz" };
+
+    private Adventure adventure;
+    private SceneSearchIndex index;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        adventure = new AdventureGenerator(3).generate(500);
+        index = new SceneSearchIndex();
+    }
+
+    public void testSameRanksAsScanningEveryScene()
+    {
+        for (String filter : FILTERS) {
+            assertSameRanks(filter);
+        }
+    }
+
+    public void testIndexFollowsTheEdits()
+    {
+        assertSameRanks("dragon");
+
+        Scene scene = adventure.getScenes().get(42);
+        scene.setText("A red dragon sleeps here.");
+        adventure.getScenes().get(7).setTags("dragon");
+        IPath path = adventure.getScenes().get(9).createPath("Wake the dragon");
+        assertSameRanks("dragon");
+
+        path.setText("Leave quietly");
+        adventure.remove(scene);
+        assertSameRanks("dragon");
+        assertSameRanks("quietly");
+    }
+
+    public void testSearchesTheScenesAsRead()
+    {
+        List<SceneSearchIndex.SceneFields> read = index.read(adventure.getScenes());
+        Scene scene = adventure.getScenes().get(42);
+        scene.setText("A basilisk sleeps here.");
+        adventure.getScenes().get(9).createPath("Wake the basilisk");
+
+        assertTrue(index.search(read, null, "basilisk", 10).isEmpty());
+        assertEquals(2, index.search(index.read(adventure.getScenes()), null, "basilisk", 10).size());
+        assertSameRanks("basilisk");
+    }
+
+    public void testOnlyTheBestOnes()
+    {
+        List<SceneRank> all = scan(adventure.getScenes(), "o");
+        List<SceneRank> best = index.search(adventure.getScenes(), "o", 10);
+
+        assertEquals(10, best.size());
+        for (int i = 0; i < best.size(); i++) {
+            assertSame(all.get(i).getScene(), best.get(i).getScene());
+            assertEquals(all.get(i).getRank(), best.get(i).getRank());
+        }
+    }
+
+    public void testInterrupted()
+    {
+        Thread.currentThread().interrupt();
+        try {
+            assertNull(index.search(adventure.getScenes(), "room", 10));
+        } finally {
+            Thread.interrupted();
+        }
+        assertSameRanks("room");
+    }
+
+    public void testTags()
+    {
+        Scene cave = adventure.getScenes().get(10);
+        Scene darkCave = adventure.getScenes().get(20);
+        cave.setTags("cave");
+        darkCave.setTags("dark, cave");
+        darkCave.setText("A dragon sleeps here.");
+
+        List<SceneRank> caves = index.search(adventure.getScenes(), adventure.getSymbols(), "#cave", 10);
+        assertEquals(2, caves.size());
+        assertSame(cave, caves.get(0).getScene());
+        assertSame(darkCave, caves.get(1).getScene());
+
+        List<SceneRank> dragons = index.search(adventure.getScenes(), adventure.getSymbols(), "dragon #CAVE", 10);
+        assertEquals(1, dragons.size());
+        assertSame(darkCave, dragons.get(0).getScene());
+        assertEquals(3, dragons.get(0).getRank().intValue());
+
+        assertEquals(1, index.search(adventure.getScenes(), adventure.getSymbols(), "#cave #dark", 10).size());
+        assertTrue(index.search(adventure.getScenes(), adventure.getSymbols(), "#castle", 10).isEmpty());
+    }
+
+    public void testLongestWord()
+    {
+        assertEquals("dragon", SceneSearchIndex.longestWord("a dragon, 1"));
+        assertEquals("", SceneSearchIndex.longestWord(" .,"));
+    }
+
+    private void assertSameRanks(String filter)
+    {
+        List<SceneRank> expected = scan(adventure.getScenes(), filter);
+        List<SceneRank> ranked = index.search(adventure.getScenes(), filter, Integer.MAX_VALUE - 1);
+
+        assertEquals(filter, expected.size(), ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            assertSame(filter, expected.get(i).getScene(), ranked.get(i).getScene());
+            assertEquals(filter, expected.get(i).getRank(), ranked.get(i).getRank());
+        }
+    }
+
+    /**
+     * The ScenesFilter ranking before the index.
+     */
+    private static List<SceneRank> scan(List<Scene> scenes, String filter)
+    {
+        List<SceneRank> ranked = new LinkedList<SceneRank>();
+        for (Scene scene : scenes) {
+            SceneRank sceneRank = new SceneRank();
+            rankRule(filter, sceneRank, scene.getId() + "", 11);
+            rankRule(filter, sceneRank, scene.getTags(), 8);
+            rankRule(filter, sceneRank, scene.getName(), 5);
+            rankRule(filter, sceneRank, scene.getText(), 3);
+            rankRule(filter, sceneRank, scene.getCode(), 3);
+            for (IPath p : scene.getPaths()) {
+                rankRule(filter, sceneRank, p.getText(), 1);
+            }
+            if (sceneRank.getRank() > 0) {
+                sceneRank.setScene(scene);
+                ranked.add(sceneRank);
+            }
+        }
+        Collections.sort(ranked);
+        return new ArrayList<SceneRank>(ranked);
+    }
+
+    private static void rankRule(String filter, SceneRank sceneRank, String text, int rankPoints)
+    {
+        if (text != null && text.trim().toLowerCase().indexOf(filter.toLowerCase()) != -1) {
+            sceneRank.setRank(sceneRank.getRank() + rankPoints);
+        }
+    }
+}
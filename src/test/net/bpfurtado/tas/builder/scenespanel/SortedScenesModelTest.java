@@ -0,0 +1,149 @@
+package net.bpfurtado.tas.builder.scenespanel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.builder.scenespanel.ScenesListController.SortBy;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+
+public class SortedScenesModelTest extends TestCase
+{
+    private Adventure adventure;
+    private SortedScenesModel model;
+    private int events;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        adventure = new AdventureGenerator(9).generate(1000);
+        model = new SortedScenesModel(SortBy.Name);
+        model.update(adventure.getScenes());
+        model.addListDataListener(new ListDataListener() {
+            public void intervalAdded(ListDataEvent e)
+            {
+                events++;
+            }
+
+            public void intervalRemoved(ListDataEvent e)
+            {
+                events++;
+            }
+
+            public void contentsChanged(ListDataEvent e)
+            {
+                events++;
+            }
+        });
+    }
+
+    public void testRenamedSceneMoves()
+    {
+        assertSorted(SortBy.Name);
+
+        Scene s = adventure.getScene(500);
+        s.setName("0");
+        model.update(adventure.getScenes());
+        assertEquals(2, events);
+        assertSorted(SortBy.Name);
+        assertEquals(s, model.getElementAt(model.indexOf(s)));
+
+        model.update(adventure.getScenes());
+        assertEquals(2, events);
+    }
+
+    public void testAddedAndRemovedScenes()
+    {
+        Scene created = adventure.createScene();
+        created.setName("99999999999999999999");
+        adventure.remove(adventure.getScene(10));
+        adventure.remove(adventure.getScene(20));
+        model.update(adventure.getScenes());
+
+        assertEquals(3, events);
+        assertEquals(-1, model.indexOf(adventure.getScene(10)));
+        assertSorted(SortBy.Name);
+
+        List<Scene> many = new ArrayList<Scene>(adventure.getScenes());
+        for (Scene s : many.subList(1, 300)) {
+            s.setName("Room " + s.getId());
+        }
+        model.update(adventure.getScenes());
+        assertSorted(SortBy.Name);
+
+        model.sort(SortBy.Number);
+        assertSorted(SortBy.Number);
+    }
+
+    public void testNumericNames()
+    {
+        Scene a = adventure.getScene(1);
+        Scene b = adventure.getScene(2);
+        a.setName("9");
+        b.setName("10");
+        assertTrue(a.compareTo(b) < 0);
+
+        b.setName("123456789012345678901234567890");
+        assertTrue(a.compareTo(b) < 0);
+
+        b.setName("");
+        assertTrue(a.compareTo(b) < 0);
+
+        b.setName("Ten");
+        assertTrue(a.compareTo(b) < 0);
+
+        b.setName(null);
+        assertTrue(a.compareTo(b) < 0);
+        assertTrue(b.compareTo(a) > 0);
+    }
+
+    public void testMixedNamesHaveATotalOrder()
+    {
+        Random random = new Random(11);
+        String[] names = { "2", "10", "1a", "007", "", "Hall", "99999999999999999999", "b", null };
+        for (Scene s : adventure.getScenes()) {
+            s.setName(names[random.nextInt(names.length)] + (random.nextBoolean() ? "" : "" + random.nextInt(30)));
+        }
+        adventure.getScene(3).setName(null);
+        adventure.getScene(4).setName("1a");
+        model.update(adventure.getScenes());
+        assertSorted(SortBy.Name);
+
+        List<Scene> scenes = adventure.getScenes();
+        for (Scene x : scenes.subList(0, 60)) {
+            for (Scene y : scenes.subList(0, 60)) {
+                assertEquals(Integer.signum(x.compareTo(y)), -Integer.signum(y.compareTo(x)));
+                for (Scene z : scenes.subList(0, 60)) {
+                    if (x.compareTo(y) < 0 && y.compareTo(z) < 0) {
+                        assertTrue(x.compareTo(z) < 0);
+                    }
+                }
+            }
+        }
+    }
+
+    private void assertSorted(SortBy sortBy)
+    {
+        List<Scene> expected = adventure.getScenes();
+        final Comparator<Scene> criterion = sortBy.getComparator();
+        Collections.sort(expected, new Comparator<Scene>() {
+            public int compare(Scene o1, Scene o2)
+            {
+                int c = criterion.compare(o1, o2);
+                return c != 0 ? c : o1.getId() - o2.getId();
+            }
+        });
+        assertEquals(expected.size(), model.getSize());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), model.getElementAt(i));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package net.bpfurtado.tas.model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+
+public class AdventureAnalysisTest extends TestCase
+{
+    public void testWhatIsWrong()
+    {
+        Adventure a = new Adventure();
+        Scene start = a.getStart();
+        Scene hall = a.createSceneFrom(start.createPath("To the hall"));
+        Scene end = a.createSceneFrom(hall.createPath("Leave"));
+        end.markAsEndScene();
+        hall.createPath("Nowhere");
+
+        Scene stuck = a.createSceneFrom(hall.createPath("Down the stairs"));
+
+        Scene corridor = a.createSceneFrom(start.createPath("To the maze"));
+        Scene maze = a.createSceneFrom(corridor.createPath("Into the maze"));
+        maze.createPath("Back").setTo(corridor);
+
+        Scene mirror = a.createSceneFrom(hall.createPath("The mirror"));
+        mirror.createPath("Again").setTo(mirror);
+
+        Scene lost = a.createScene();
+        lost.createPath("To the hall").setTo(hall);
+
+        AdventureAnalysis analysis = AdventureAnalysis.of(a);
+        assertEquals(1, analysis.getUnreachable().size());
+        assertSame(lost, analysis.getUnreachable().get(0));
+        assertEquals(1, analysis.getOrphans().size());
+        assertSame(lost, analysis.getOrphans().get(0));
+        assertEquals(1, analysis.getPathsToNowhere().size());
+        assertEquals("Nowhere", analysis.getPathsToNowhere().get(0).getText());
+        assertEquals(1, analysis.getDeadEnds().size());
+        assertSame(stuck, analysis.getDeadEnds().get(0));
+
+        List<List<Scene>> traps = analysis.getTraps();
+        assertEquals(2, traps.size());
+        HashSet<Scene> trapped = new HashSet<Scene>();
+        for (List<Scene> trap : traps) {
+            trapped.addAll(trap);
+        }
+        assertEquals(new HashSet<Scene>(Arrays.asList(corridor, maze, mirror)), trapped);
+        assertFalse(analysis.isClean());
+
+        maze.createPath("Out").setTo(end);
+        assertEquals(1, AdventureAnalysis.of(a).getTraps().size());
+    }
+
+    public void testCleanAdventure()
+    {
+        Adventure a = new Adventure();
+        Scene end = a.createSceneFrom(a.getStart().createPath("The end"));
+        end.markAsEndScene();
+        AdventureAnalysis analysis = AdventureAnalysis.of(a);
+        assertTrue(analysis.toString(), analysis.isClean());
+        assertEquals(2, analysis.getNumberOfComponents());
+    }
+
+    public void testSameReachAsTheDepthIndex()
+    {
+        Adventure a = new AdventureGenerator(11).generate(3000);
+        a.remove(a.getScene(1));
+        a.getScene(7).removeAllPaths();
+
+        AdventureAnalysis analysis = AdventureAnalysis.of(a);
+        int unreachable = 0;
+        for (Scene s : a.getScenes()) {
+            if (a.getFirstDepthOfScene(s) == DepthIndex.UNREACHABLE) {
+                assertTrue(analysis.getUnreachable().contains(s));
+                unreachable++;
+            }
+        }
+        assertEquals(unreachable, analysis.getUnreachable().size());
+        assertTrue(analysis.getDeadEnds().contains(a.getScene(7)));
+    }
+}
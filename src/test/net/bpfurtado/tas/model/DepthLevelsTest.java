@@ -0,0 +1,53 @@
+package net.bpfurtado.tas.model;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+
+public class DepthLevelsTest extends TestCase
+{
+    public void testEachSceneOnceAtItsFirstDepth()
+    {
+        Adventure a = new AdventureGenerator(5).generate(3000);
+        a.getScene(10).removeAllPaths();
+        DepthLevels levels = a.getDepthLevels();
+
+        int reached = 0;
+        for (int level = 0; level < levels.getNumberOfLevels(); level++) {
+            for (int i = 0; i < levels.getNumberOfScenes(level); i++) {
+                Scene s = levels.getScene(level, i);
+                assertEquals(level, a.getFirstDepthOfScene(s));
+                assertEquals(i, levels.indexOf(level, s));
+                if (i > 0) {
+                    assertTrue(levels.getScene(level, i - 1).compareTo(s) <= 0);
+                }
+                reached++;
+            }
+        }
+        int expected = 0;
+        for (Scene s : a.getScenes()) {
+            if (a.getFirstDepthOfScene(s) != DepthIndex.UNREACHABLE) {
+                expected++;
+            }
+        }
+        assertEquals(expected, reached);
+    }
+
+    public void testKeptUntilThePathsChange()
+    {
+        Adventure a = new Adventure();
+        Scene b = a.createSceneFrom(a.getStart().createPath("b"));
+        Scene c = a.createSceneFrom(a.getStart().createPath("c"));
+        DepthLevels levels = a.getDepthLevels();
+        assertSame(b, levels.getScene(1, 0));
+
+        b.setName("z");
+        assertSame(levels, a.getDepthLevels());
+        assertSame(c, levels.getScene(1, 0));
+
+        Scene d = a.createSceneFrom(c.createPath("d"));
+        levels = a.getDepthLevels();
+        assertEquals(3, levels.getNumberOfLevels());
+        assertSame(d, levels.getScene(2, 0));
+        assertEquals(-1, levels.indexOf(1, d));
+    }
+}
@@ -0,0 +1,98 @@
+package net.bpfurtado.tas.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.bpfurtado.tas.AdventureGenerator;
+
+/**
+ * Times the graph model on big adventures, each step warmed up and then measured a few times:
+ *
+ * <pre>
+ * java -cp ... net.bpfurtado.tas.model.GraphModelBenchmark [scenes]
+ * </pre>
+ *
+ * <ul>
+ * <li>link: {@link AdventureGenerator}, every path linked with the depth index up to date.</li>
+ * <li>unlink: all the paths of all the scenes removed, the reverse edges go with them.</li>
+ * <li>depths: the depths lists rebuilt and asked if they contain each scene. The depths lists hold every
+ * route, on a generated adventure they are exponential, so this one runs on a tree of the same size.</li>
+ * </ul>
+ */
+public class GraphModelBenchmark
+{
+    private static final int WARMUP_RUNS = 5;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args)
+    {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+
+        System.out.println("link\tunlink\tdepths\t(ms, " + size + " scenes)");
+        for (int run = 0; run < WARMUP_RUNS + RUNS; run++) {
+            long start = System.nanoTime();
+            Adventure a = new AdventureGenerator(size).generate(size);
+            long link = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            unlinkAll(a);
+            long unlink = System.nanoTime() - start;
+
+            Adventure tree = tree(size);
+            start = System.nanoTime();
+            depths(tree);
+            long depths = System.nanoTime() - start;
+
+            if (run >= WARMUP_RUNS) {
+                System.out.println(link / 1000000 + "\t" + unlink / 1000000 + "\t" + depths / 1000000);
+            }
+        }
+    }
+
+    private static void unlinkAll(Adventure a)
+    {
+        List<Scene> scenes = a.getScenes();
+        for (Scene s : scenes) {
+            s.removeAllPaths();
+        }
+        for (Scene s : scenes) {
+            if (!s.isOrphan()) {
+                throw new IllegalStateException(s + " still has scenes from");
+            }
+        }
+    }
+
+    private static Adventure tree(int size)
+    {
+        Random random = new Random(size);
+        Adventure a = new Adventure();
+        List<Scene> scenes = new ArrayList<Scene>(size);
+        scenes.add(a.getStart());
+        a.startBulkLinking();
+        for (int i = 1; i < size; i++) {
+            Scene parent = scenes.get(i - 1 - random.nextInt(Math.min(i, 5)));
+            scenes.add(a.createSceneFrom(parent.createPath("Go to " + i)));
+        }
+        a.endBulkLinking();
+        return a;
+    }
+
+    private static void depths(Adventure a)
+    {
+        int entries = 0;
+        for (int i = 0; i < a.getNumberOfDepths(); i++) {
+            entries += a.getNumberOfScenesFromDepth(i);
+        }
+        if (entries != a.getNumberOfScenes()) {
+            throw new IllegalStateException(entries + " entries in the depths of a tree of " + a.getNumberOfScenes());
+        }
+
+        for (Scene s : a.getScenes()) {
+            IDepth depth = s.getDepthManager().getOrCreateDepth(a.getFirstDepthOfScene(s));
+            if (!depth.contains(s)) {
+                throw new IllegalStateException(s + " not found at " + depth);
+            }
+        }
+    }
+}
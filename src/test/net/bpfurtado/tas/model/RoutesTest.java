@@ -0,0 +1,172 @@
+package net.bpfurtado.tas.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class RoutesTest extends TestCase
+{
+    private Adventure a;
+    private Scene start, hall, cellar, garden, tower, win, die;
+
+    @Override
+    protected void setUp()
+    {
+        a = new Adventure();
+        start = a.getStart();
+        hall = a.createSceneFrom(start.createPath("Hall"));
+        cellar = a.createSceneFrom(start.createPath("Cellar"));
+        garden = a.createSceneFrom(hall.createPath("Garden"));
+        tower = a.createSceneFrom(garden.createPath("Tower"));
+        win = a.createSceneFrom(tower.createPath("Win"));
+        win.markAsEndScene();
+        die = a.createSceneFrom(cellar.createPath("Die"));
+        die.markAsEndScene();
+        cellar.createPath("Up").setTo(garden);
+        garden.createPath("Back").setTo(hall);
+    }
+
+    public void testShortestRoutes()
+    {
+        Routes routes = Routes.of(a);
+        assertEquals(Arrays.asList(start, cellar, die), routes.shortestFromStart(die));
+        assertEquals(Arrays.asList(garden, tower, win), routes.shortestToEnd(garden));
+        assertEquals(Arrays.asList(hall, garden, tower), routes.shortest(hall, tower));
+        assertNull(routes.shortest(win, start));
+
+        Map<Scene, List<Scene>> toEachEnd = routes.shortestToEachEnd();
+        assertEquals(2, toEachEnd.size());
+        assertEquals(4, toEachEnd.get(win).size() - 1);
+    }
+
+    public void testTheTablesFollowTheChanges()
+    {
+        assertEquals(3, a.getDistanceToEnd(hall));
+        IPath shortcut = hall.createPath("Shortcut");
+        shortcut.setTo(win);
+        assertEquals(1, a.getDistanceToEnd(hall));
+        assertEquals(2, a.getDistanceToEnd(garden));
+
+        shortcut.goToNowhere();
+        assertEquals(3, a.getDistanceToEnd(hall));
+
+        win.setType(SceneType.regular);
+        assertEquals(DepthIndex.UNREACHABLE, a.getDistanceToEnd(tower));
+        assertEquals(1, a.getDistanceToEnd(cellar));
+        tower.markAsEndScene();
+        assertEquals(0, a.getDistanceToEnd(tower));
+        assertEquals(2, a.getDistanceToEnd(hall));
+    }
+
+    public void testKShortest()
+    {
+        List<List<Scene>> routes = Routes.of(a).shortest(start, win, 5);
+        assertEquals(2, routes.size());
+        assertEquals(Arrays.asList(start, hall, garden, tower, win), routes.get(0));
+        assertEquals(Arrays.asList(start, cellar, garden, tower, win), routes.get(1));
+
+        assertEquals(1, Routes.of(a).shortest(start, win, 1).size());
+        assertTrue(Routes.of(a).shortest(win, start, 3).isEmpty());
+    }
+
+    /**
+     * The estimates through the long way don't fit in the 15 bits a signed key would leave them.
+     */
+    public void testKShortestBesideAVeryLongWay()
+    {
+        Adventure adventure = new Adventure();
+        Scene from = adventure.getStart();
+        Scene to = adventure.createScene();
+        from.createPath("Shortest").setTo(to);
+
+        Scene s = adventure.createSceneFrom(from.createPath("Long"));
+        for (int i = 0; i < 40000; i++) {
+            s = adventure.createSceneFrom(s.createPath("On"));
+        }
+        s.createPath("To").setTo(to);
+
+        Scene hall = adventure.createSceneFrom(from.createPath("Hall"));
+        Scene garden = adventure.createSceneFrom(hall.createPath("Garden"));
+        garden.createPath("To").setTo(to);
+
+        List<List<Scene>> routes = Routes.of(adventure).shortest(from, to, 2);
+        assertEquals(Arrays.asList(from, to), routes.get(0));
+        assertEquals(Arrays.asList(from, hall, garden, to), routes.get(1));
+    }
+
+    public void testLongest()
+    {
+        List<Scene> longest = Routes.of(a).longestToEnd();
+        assertEquals(Arrays.asList(start, hall, garden, tower, win), longest);
+        assertEquals(longest.size(), new HashSet<Scene>(longest).size());
+    }
+
+    /**
+     * Random links, unlinks and end scenes, after each one the distances must match a BFS made from scratch.
+     */
+    public void testRandomEditsMatchFullBFS()
+    {
+        Random random = new Random(17);
+        Adventure adventure = new Adventure();
+        List<Scene> scenes = new ArrayList<Scene>();
+        scenes.add(adventure.getStart());
+        for (int i = 0; i < 50; i++) {
+            scenes.add(adventure.createScene());
+        }
+
+        List<IPath> paths = new ArrayList<IPath>();
+        for (int i = 0; i < 500; i++) {
+            int action = random.nextInt(10);
+            if (action == 0) {
+                Scene s = scenes.get(1 + random.nextInt(scenes.size() - 1));
+                s.setType(s.isEnd() ? SceneType.regular : SceneType.end);
+                for (int j = paths.size() - 1; j >= 0; j--) {
+                    if (paths.get(j).getFrom() == s && !s.getPaths().contains(paths.get(j))) {
+                        paths.remove(j);
+                    }
+                }
+            } else if (paths.isEmpty() || action < 7) {
+                Scene from = scenes.get(random.nextInt(scenes.size()));
+                if (from.isEnd()) {
+                    continue;
+                }
+                IPath p = from.createPath("p" + i);
+                p.setTo(scenes.get(1 + random.nextInt(scenes.size() - 1)));
+                paths.add(p);
+            } else {
+                IPath p = paths.remove(random.nextInt(paths.size()));
+                p.getFrom().remove(p);
+            }
+            assertDistancesAreTheShortestOnes(adventure, scenes);
+        }
+    }
+
+    private void assertDistancesAreTheShortestOnes(Adventure adventure, List<Scene> scenes)
+    {
+        for (Scene s : scenes) {
+            int expected = DepthIndex.UNREACHABLE;
+            List<Scene> level = Arrays.asList(s);
+            HashSet<Scene> seen = new HashSet<Scene>(level);
+            for (int d = 0; expected == DepthIndex.UNREACHABLE && !level.isEmpty(); d++) {
+                List<Scene> nextLevel = new ArrayList<Scene>();
+                for (Scene l : level) {
+                    if (l.isEnd()) {
+                        expected = d;
+                    }
+                    for (IPath p : l.getPaths()) {
+                        if (p.getTo() != null && seen.add(p.getTo())) {
+                            nextLevel.add(p.getTo());
+                        }
+                    }
+                }
+                level = nextLevel;
+            }
+            assertEquals("Distance of " + s, expected, adventure.getDistanceToEnd(s));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package net.bpfurtado.tas.model;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.model.combat.Fighter;
+import net.bpfurtado.tas.model.persistence.XMLAdventureReader;
+import net.bpfurtado.tas.model.persistence.XMLAdventureWriter;
+
+public class SymbolTableTest extends TestCase
+{
+    public void testTagSets()
+    {
+        SymbolTable symbols = new SymbolTable();
+        int[] set = symbols.tagSet(" Forest, dark  forest cave");
+        assertEquals(3, set.length);
+        assertSame(set, symbols.tagSet(" Forest, dark  forest cave"));
+        assertSame(SymbolTable.NO_TAGS, symbols.tagSet(" , "));
+        assertSame(SymbolTable.NO_TAGS, symbols.tagSet(null));
+
+        int[] wanted = symbols.findTags("cave FOREST");
+        Arrays.sort(wanted);
+        assertTrue(SymbolTable.containsAll(set, wanted));
+        assertEquals(-1, symbols.findTags("castle")[0]);
+        assertTrue(SymbolTable.contains(set, symbols.find("dark")));
+    }
+
+    public void testScenesFollowTheirTags()
+    {
+        Adventure a = new Adventure();
+        Scene s = a.createScene();
+        s.setTags("forest, night");
+        int[] forest = a.getSymbols().findTags("forest");
+        assertTrue(s.hasTags(forest));
+
+        s.setTags("cave");
+        assertFalse(s.hasTags(forest));
+
+        Scene alone = new Scene(99, false);
+        alone.setTags("forest");
+        assertFalse(alone.hasTags(forest));
+        a.addScene(alone);
+        assertTrue(alone.hasTags(forest));
+    }
+
+    public void testTheLoadersKeepTheRepeatedStringsOnce() throws Exception
+    {
+        File f = File.createTempFile("symbols", ".adv.xml");
+        f.deleteOnExit();
+        new XMLAdventureWriter(new AdventureGenerator(5).generate(300), f).write();
+        Adventure a = new XMLAdventureReader().read(f);
+
+        Map<String, String> first = new HashMap<String, String>();
+        int repeated = 0;
+        for (Scene s : a.getScenes()) {
+            for (IPath p : s.getPaths()) {
+                repeated += assertKeptOnce(first, p.getText());
+            }
+            if (s.getCombat() != null) {
+                for (Fighter enemy : s.getCombat().getEnemies()) {
+                    repeated += assertKeptOnce(first, enemy.getName());
+                }
+            }
+            assertSame(a.getSymbols().intern(s.getTags()), s.getTags());
+        }
+        assertTrue(repeated > 100);
+    }
+
+    private static int assertKeptOnce(Map<String, String> first, String s)
+    {
+        if (!first.containsKey(s)) {
+            first.put(s, s);
+            return 0;
+        }
+        assertSame(first.get(s), s);
+        return 1;
+    }
+}
@@ -0,0 +1,83 @@
+package net.bpfurtado.tas.model.combat;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import net.bpfurtado.tas.model.Player;
+
+/**
+ * Rounds per second of {@link Fighter#fightWith(Fighter, Random)} on copies of the enemies, as fights were
+ * resolved before, against {@link CombatKernel}. Each is warmed up and then measured a few times:
+ * 
+ * <pre>
+ * java -cp ... net.bpfurtado.tas.model.combat.CombatBenchmark [combats per run]
+ * </pre>
+ */
+public class CombatBenchmark
+{
+    private static final int WARMUP_RUNS = 3;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args)
+    {
+        int combats = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        Combat combat = new Combat();
+        combat.setType(CombatType.allAtTheSameTime);
+        combat.add(new Fighter("Orc", 7, 6));
+        combat.add(new Fighter("Goblin", 5, 5));
+        combat.add(new Fighter("Troll", 9, 10));
+
+        System.out.println("fighter\tkernel\t(million rounds/s)");
+        for (int run = 0; run < WARMUP_RUNS + RUNS; run++) {
+            double fighter = fighters(combat, combats);
+            double kernel = kernel(combat, combats);
+            if (run >= WARMUP_RUNS) {
+                System.out.printf("%.2f\t%.2f%n", fighter, kernel);
+            }
+        }
+    }
+
+    private static double fighters(Combat combat, int combats)
+    {
+        Random rnd = new Random(1);
+        long rounds = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < combats; i++) {
+            Player player = new Player("P", 10, 20);
+            LinkedList<Fighter> enemies = new LinkedList<Fighter>();
+            for (Fighter f : combat.getEnemies()) {
+                enemies.add(f.createCopy());
+            }
+            int current = 0;
+            while (!player.isDead() && !enemies.isEmpty()) {
+                Fighter enemy = enemies.get(current);
+                player.fightWith(enemy, rnd);
+                rounds++;
+                if (enemy.isDead()) {
+                    enemies.remove(current);
+                } else {
+                    current++;
+                }
+                if (current >= enemies.size()) {
+                    current = 0;
+                }
+            }
+        }
+        return rounds / ((System.nanoTime() - start) / 1000.0);
+    }
+
+    private static double kernel(Combat combat, int combats)
+    {
+        CombatKernel kernel = new CombatKernel(new RandomDice(new Random(1)));
+        long rounds = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < combats; i++) {
+            kernel.load(combat);
+            kernel.setPlayer(10, 20, 2);
+            kernel.resolve();
+            rounds += kernel.getRounds();
+        }
+        return rounds / ((System.nanoTime() - start) / 1000.0);
+    }
+}
@@ -0,0 +1,136 @@
+package net.bpfurtado.tas.model.combat;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Player;
+import net.bpfurtado.tas.model.PlayerEvent;
+import net.bpfurtado.tas.model.PlayerEventListener;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class CombatKernelTest extends TestCase
+{
+    public void testSameAsFighterOneAtATime()
+    {
+        assertSameAsFighter(CombatType.oneAtATime);
+    }
+
+    public void testSameAsFighterAllAtTheSameTime()
+    {
+        assertSameAsFighter(CombatType.allAtTheSameTime);
+    }
+
+    private void assertSameAsFighter(CombatType type)
+    {
+        Combat combat = new Combat();
+        combat.setType(type);
+        combat.add(new Fighter("Orc", 7, 6));
+        combat.add(new Fighter("Goblin", 5, 5));
+        combat.add(new Fighter("Troll", 9, 10));
+
+        for (int seed = 0; seed < 500; seed++) {
+            Player player = new Player("P", 10, 20);
+            Random rnd = new Random(seed);
+            int rounds = fightWithFighters(player, combat, rnd);
+
+            CombatKernel kernel = new CombatKernel(new RandomDice(new Random(seed)));
+            kernel.load(combat);
+            kernel.setPlayer(10, 20, 2);
+
+            assertEquals(!player.isDead(), kernel.resolve());
+            assertEquals(rounds, kernel.getRounds());
+            assertEquals(player.getStamina().intValue(), kernel.getPlayerStamina());
+        }
+        assertEquals(6, combat.getEnemies().get(0).getStamina().intValue());
+    }
+
+    /**
+     * The old Fight, round by round with Fighter.fightWith on copies of the enemies.
+     */
+    private static int fightWithFighters(Player player, Combat combat, Random rnd)
+    {
+        LinkedList<Fighter> enemies = new LinkedList<Fighter>();
+        for (Fighter f : combat.getEnemies()) {
+            enemies.add(f.createCopy());
+        }
+        boolean allAtTheSameTime = combat.getType() == CombatType.allAtTheSameTime;
+
+        int rounds = 0;
+        Fighter current = allAtTheSameTime ? enemies.getFirst() : enemies.removeFirst();
+        while (!player.isDead() && !(enemies.isEmpty() && current.isDead())) {
+            player.fightWith(current, rnd);
+            rounds++;
+            if (allAtTheSameTime) {
+                Fighter last = current;
+                int idx = enemies.indexOf(current);
+                current = idx + 1 == enemies.size() ? enemies.getFirst() : enemies.get(idx + 1);
+                if (last.isDead()) {
+                    enemies.remove(last);
+                }
+            } else if (current.isDead() && !enemies.isEmpty()) {
+                current = enemies.removeFirst();
+            }
+        }
+        return rounds;
+    }
+
+    public void testInstantKillAndPluggableDice()
+    {
+        Combat combat = new Combat();
+        combat.add(new Fighter("Dragon", 20, 50));
+
+        // 1 + 1 kills the dragon, even though its force wins the round
+        final int[] rolls = { 1, 1, 6, 6 };
+        CombatKernel kernel = new CombatKernel(new Dice() {
+            int next = 0;
+
+            public int roll()
+            {
+                return rolls[next++ % rolls.length];
+            }
+        });
+        kernel.load(combat);
+        kernel.setPlayer(5, 10, 2);
+
+        assertTrue(kernel.resolve());
+        assertEquals(1, kernel.getRounds());
+        assertEquals(8, kernel.getPlayerStamina());
+    }
+
+    public void testKernelReusedForBiggerCombats()
+    {
+        CombatKernel kernel = new CombatKernel(new RandomDice(new Random(1)));
+        for (int size = 1; size < 10; size++) {
+            Combat combat = new Combat();
+            combat.setType(CombatType.allAtTheSameTime);
+            for (int i = 0; i < size; i++) {
+                combat.add(new Fighter("Rat " + i, 0, 1));
+            }
+            kernel.load(combat);
+            kernel.setPlayer(12, 100, 2);
+            assertTrue(kernel.resolve());
+            assertEquals(size, kernel.getRounds());
+        }
+    }
+
+    public void testFightUpdatesThePlayerOnce()
+    {
+        Player player = new Player("P", 0, 1);
+        final int[] events = { 0 };
+        player.add(new PlayerEventListener() {
+            public void receive(PlayerEvent event)
+            {
+                events[0]++;
+            }
+        });
+        Combat combat = new Combat();
+        combat.add(new Fighter("Troll", 12, 30));
+
+        assertFalse(new Fight(player, combat, new Random(3)).toTheDeath());
+        assertTrue(player.isDead());
+        assertEquals(1, events[0]);
+    }
+}
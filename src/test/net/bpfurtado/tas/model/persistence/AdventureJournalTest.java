@@ -0,0 +1,150 @@
+package net.bpfurtado.tas.model.persistence;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.Skill;
+import net.bpfurtado.tas.model.combat.Combat;
+import net.bpfurtado.tas.model.combat.CombatType;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+public class AdventureJournalTest extends TestCase
+{
+    private File base;
+    private AdventureJournal journal;
+    private Adventure a;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        base = File.createTempFile("journal", ".adv.xml");
+        base.deleteOnExit();
+        journal = new AdventureJournal(base);
+        journal.getFile().deleteOnExit();
+
+        a = new AdventureGenerator(11).generate(300);
+        new XMLAdventureWriter(a, base).write();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        journal.delete();
+    }
+
+    public void testReplayOverTheBase() throws Exception
+    {
+        AdventureSnapshot first = AdventureSnapshot.of(a);
+        firstChanges();
+        AdventureSnapshot second = AdventureSnapshot.of(a, first);
+        assertTrue(journal.append(first, second) > 0);
+
+        secondChanges();
+        AdventureSnapshot third = AdventureSnapshot.of(a, second);
+        journal.append(second, third);
+        assertEquals(0, journal.append(third, AdventureSnapshot.of(a, third)));
+        assertTrue(journal.length() < base.length() / 10);
+
+        Adventure replayed = new XMLAdventureReader().read(base);
+        assertEquals(2, journal.replay(replayed));
+        XMLAdventureReaderTest.assertSameAdventure(writtenInFull(a), writtenInFull(replayed));
+    }
+
+    public void testAHalfWrittenBatchIsLost() throws Exception
+    {
+        AdventureSnapshot first = AdventureSnapshot.of(a);
+        firstChanges();
+        AdventureSnapshot second = AdventureSnapshot.of(a, first);
+        journal.append(first, second);
+        Adventure afterFirst = writtenInFull(a);
+
+        secondChanges();
+        journal.append(second, AdventureSnapshot.of(a, second));
+        RandomAccessFile f = new RandomAccessFile(journal.getFile(), "rw");
+        f.setLength(f.length() - 3);
+        f.close();
+
+        Adventure replayed = new XMLAdventureReader().read(base);
+        assertEquals(1, journal.replay(replayed));
+        XMLAdventureReaderTest.assertSameAdventure(afterFirst, writtenInFull(replayed));
+    }
+
+    public void testAJournalOfAnotherBaseIsIgnored() throws Exception
+    {
+        AdventureSnapshot first = AdventureSnapshot.of(a);
+        firstChanges();
+        journal.append(first, AdventureSnapshot.of(a, first));
+
+        // The base written again with a crash before the journal was deleted.
+        Adventure old = new XMLAdventureReader().read(base);
+        old.setName("Written again");
+        new XMLAdventureWriter(old, base).write();
+
+        Adventure replayed = new XMLAdventureReader().read(base);
+        assertEquals(0, journal.replay(replayed));
+        XMLAdventureReaderTest.assertSameAdventure(old, replayed);
+    }
+
+    public void testAJournalOfAnotherBaseIsStartedAgain() throws Exception
+    {
+        AdventureSnapshot first = AdventureSnapshot.of(a);
+        firstChanges();
+        journal.append(first, AdventureSnapshot.of(a, first));
+
+        // The base written again and the journal not deleted.
+        new XMLAdventureWriter(a, base).write();
+        AdventureSnapshot second = AdventureSnapshot.of(a);
+        secondChanges();
+        assertTrue(journal.append(second, AdventureSnapshot.of(a, second)) > 0);
+
+        Adventure replayed = new XMLAdventureReader().read(base);
+        assertEquals(1, journal.replay(replayed));
+        XMLAdventureReaderTest.assertSameAdventure(writtenInFull(a), writtenInFull(replayed));
+    }
+
+    public void testCombatTypeByName() throws Exception
+    {
+        AdventureSnapshot first = AdventureSnapshot.of(a);
+        Combat combat = new Combat();
+        combat.setType(CombatType.allAtTheSameTime);
+        combat.add(new Fighter("Troll", 8, 12));
+        a.getScene(30).setType(SceneType.combat);
+        a.getScene(30).setCombat(combat);
+        journal.append(first, AdventureSnapshot.of(a, first));
+
+        Adventure replayed = new XMLAdventureReader().read(base);
+        assertEquals(1, journal.replay(replayed));
+        assertEquals(CombatType.allAtTheSameTime, replayed.getScene(30).getCombat().getType());
+    }
+
+    private void firstChanges()
+    {
+        a.setName("Changed");
+        a.getScene(12).setText("Changed text");
+        a.getScene(40).setType(SceneType.skillTest);
+        a.getScene(40).setSkillToTest(new Skill("Luck"));
+        a.remove(a.getScene(77));
+        Scene created = a.createSceneFrom(a.getStart().createPath("To a new one"));
+        created.createPath("Back").setTo(a.getScene(12));
+    }
+
+    private void secondChanges()
+    {
+        a.getScene(12).removeAllPaths();
+        a.getScene(40).setType(SceneType.end);
+        a.remove(a.getScene(150));
+        a.createSceneFrom(a.getScene(200).createPath("Further"));
+    }
+
+    private static Adventure writtenInFull(Adventure a) throws Exception
+    {
+        File f = File.createTempFile("full", ".adv.xml");
+        f.deleteOnExit();
+        return new XMLAdventureReader().read(new XMLAdventureWriter(a, f).write());
+    }
+}
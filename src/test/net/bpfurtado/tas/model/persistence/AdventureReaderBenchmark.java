@@ -0,0 +1,151 @@
+package net.bpfurtado.tas.model.persistence;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.model.Adventure;
+
+/**
+ * Load time and peak heap of {@link XMLAdventureReader} against {@link DOM4JAdventureReader} and
+ * {@link BinaryAdventureReader} on generated adventures. Run it alone, with a fixed heap, so the peaks aren't mixed with other work:
+ * 
+ * <pre>
+ * java -Xmx2g -cp ... net.bpfurtado.tas.model.persistence.AdventureReaderBenchmark 1000 10000 100000
+ * </pre>
+ * 
+ * The DOM4J reader is quadratic, it is skipped above -Dbenchmark.dom4j.max scenes (10000 by default). Its
+ * recursive linking also overflows the stack on long chains of scenes, such runs are reported as failed.
+ */
+public class AdventureReaderBenchmark
+{
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws Exception
+    {
+        int[] sizes = { 1000, 10000, 100000 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        int dom4jMax = Integer.getInteger("benchmark.dom4j.max", 10000);
+
+        System.out.println("scenes\tfile KB\treader\tms\tpeak heap MB");
+        for (int size : sizes) {
+            File f = File.createTempFile("benchmark" + size, ".adv.xml");
+            f.deleteOnExit();
+            Adventure generated = new AdventureGenerator(size).generate(size);
+            new XMLAdventureWriter(generated, f).write();
+            File bin = new BinaryAdventureWriter(generated, File.createTempFile("benchmark" + size, ".adv.bin")).write();
+            bin.deleteOnExit();
+            generated = null;
+
+            measure(size, f, "StAX", new Reader() {
+                public Adventure read(File file)
+                {
+                    return new XMLAdventureReader().read(file);
+                }
+            });
+
+            measure(size, bin, "binary", new Reader() {
+                public Adventure read(File file)
+                {
+                    return new BinaryAdventureReader().read(file);
+                }
+            });
+
+            if (size <= dom4jMax) {
+                measure(size, f, "DOM4J", new Reader() {
+                    public Adventure read(File file)
+                    {
+                        return new DOM4JAdventureReader().read(file);
+                    }
+                });
+            } else {
+                System.out.println(size + "\t" + f.length() / 1024 + "\tDOM4J\tskipped");
+            }
+            f.delete();
+            bin.delete();
+        }
+    }
+
+    private static void measure(int size, File f, String name, Reader reader)
+    {
+        long bestMillis = Long.MAX_VALUE;
+        long peakBytes = 0;
+        for (int run = 0; run < RUNS; run++) {
+            System.gc();
+            long before = heapUsed();
+            resetHeapPeaks();
+
+            long start = System.nanoTime();
+            Adventure a;
+            try {
+                a = reader.read(f);
+            } catch (Throwable e) {
+                System.out.println(size + "\t" + f.length() / 1024 + "\t" + name + "\tfailed: " + rootCause(e));
+                return;
+            }
+            long millis = (System.nanoTime() - start) / 1000000;
+
+            bestMillis = Math.min(bestMillis, millis);
+            peakBytes = Math.max(peakBytes, heapPeak() - before);
+
+            if (a.getScenes().size() != size) {
+                throw new IllegalStateException("Read " + a.getScenes().size() + " scenes, expected " + size);
+            }
+        }
+        System.out.println(size + "\t" + f.length() / 1024 + "\t" + name + "\t" + bestMillis + "\t" + peakBytes / (1024 * 1024));
+    }
+
+    private static Throwable rootCause(Throwable e)
+    {
+        while (e.getCause() != null && e.getCause() != e) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static long heapUsed()
+    {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static void resetHeapPeaks()
+    {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the peaks of each pool, an upper bound of the real peak.
+     */
+    private static long heapPeak()
+    {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private interface Reader
+    {
+        Adventure read(File file);
+    }
+}
@@ -0,0 +1,123 @@
+package net.bpfurtado.tas.model.persistence;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+
+public class AdventureSnapshotTest extends TestCase
+{
+    public void testOnlyTheChangedScenesAreCopied()
+    {
+        Adventure a = new AdventureGenerator(5).generate(200);
+        AdventureSnapshot first = AdventureSnapshot.of(a);
+        AdventureSnapshot second = AdventureSnapshot.of(a, first);
+        assertEquals(regularScenes(a), second.getReused());
+        assertTrue(second.getSequence() > first.getSequence());
+
+        Scene changed = a.getScene(42);
+        changed.setType(SceneType.regular);
+        String before = changed.getText();
+        changed.setText("Changed");
+        AdventureSnapshot third = AdventureSnapshot.of(a, second);
+
+        assertEquals(regularScenes(a) - 1, third.getReused());
+        assertEquals("Changed", find(third, 42).getText());
+        assertEquals(before, find(second, 42).getText());
+    }
+
+    public void testLinkingChangesBothEnds()
+    {
+        Adventure a = new Adventure();
+        Scene hall = a.createScene();
+        AdventureSnapshot first = AdventureSnapshot.of(a);
+
+        a.getStart().createPath("To the hall").setTo(hall);
+        AdventureSnapshot second = AdventureSnapshot.of(a, first);
+
+        assertEquals(0, second.getReused());
+        assertEquals(hall.getId(), find(second, 0).getPathTo(0));
+        assertEquals(0, find(second, hall.getId()).getSceneFromId(0));
+    }
+
+    public void testNotCommittedLeavesTheOldFile() throws Exception
+    {
+        File f = File.createTempFile("atomic", ".txt");
+        f.deleteOnExit();
+        OutputStream old = new FileOutputStream(f);
+        old.write("old".getBytes("US-ASCII"));
+        old.close();
+
+        AtomicFileOutputStream out = new AtomicFileOutputStream(f);
+        out.write("half of the new one".getBytes("US-ASCII"));
+        out.close();
+        assertEquals(3, f.length());
+        assertFalse(new File(f.getParentFile(), f.getName() + ".tmp").exists());
+
+        out = new AtomicFileOutputStream(f);
+        out.write("new".getBytes("US-ASCII"));
+        out.write('!');
+        out.commit();
+        out.close();
+        assertEquals(4, f.length());
+    }
+
+    public void testAccentsSurviveTheXML() throws Exception
+    {
+        Adventure a = new Adventure();
+        a.setName("Aventura");
+        a.getStart().setText("Voc est na ao");
+        a.getStart().createPath("Prxima").setTo(a.createScene());
+
+        File f = File.createTempFile("accents", ".adv.xml");
+        f.deleteOnExit();
+        Adventure read = new XMLAdventureReader().read(new XMLAdventureWriter(a, f).write());
+
+        assertEquals("Voc est na ao", read.getStart().getText());
+        assertEquals("Prxima", read.getStart().getPaths().get(0).getText());
+
+    }
+
+    public void testCharsBeyondLatin1SurviveTheXML() throws Exception
+    {
+        String text = "\u201cHi\u201d \u2014 \u20ac caf\u00e9";
+        Adventure a = new Adventure();
+        a.setName(text);
+        a.getStart().setText(text);
+
+        File f = File.createTempFile("unicode", ".adv.xml");
+        f.deleteOnExit();
+        new XMLAdventureWriter(a, f).write();
+
+        assertEquals(text, new XMLAdventureReader().read(f).getStart().getText());
+        assertEquals(text, new DOM4JAdventureReader().read(f).getName());
+    }
+
+    private static int regularScenes(Adventure a)
+    {
+        int regular = 0;
+        for (Scene s : a.getScenes()) {
+            if (s.getType() == SceneType.regular || s.getType() == SceneType.end) {
+                regular++;
+            }
+        }
+        return regular;
+    }
+
+    private static SceneSnapshot find(AdventureSnapshot snapshot, int id)
+    {
+        List<SceneSnapshot> scenes = snapshot.getScenes();
+        for (SceneSnapshot s : scenes) {
+            if (s.getId() == id) {
+                return s;
+            }
+        }
+        throw new AssertionError("No scene " + id);
+    }
+}
@@ -0,0 +1,155 @@
+package net.bpfurtado.tas.model.persistence;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.combat.Combat;
+import net.bpfurtado.tas.model.combat.CombatType;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class BinaryAdventureFormatTest extends TestCase
+{
+    public void testSameAdventureAsTheXMLOne() throws Exception
+    {
+        File sample = new File("src/main/samples/ColossalCave.adv.xml");
+        Adventure expected = new XMLAdventureReader().read(sample);
+
+        File f = File.createTempFile("sample", BinaryAdventureFormat.EXTENSION);
+        f.deleteOnExit();
+        new BinaryAdventureWriter(expected, f).write();
+        Adventure actual = new BinaryAdventureReader().read(f);
+
+        XMLAdventureReaderTest.assertSameAdventure(expected, actual);
+        XMLAdventureReaderTest.assertSameDepths(expected, actual);
+    }
+
+    public void testConvertBothWays() throws Exception
+    {
+        File xml = File.createTempFile("generated", ".adv.xml");
+        xml.deleteOnExit();
+        new XMLAdventureWriter(new AdventureGenerator(7).generate(300), xml).write();
+        Adventure expected = new XMLAdventureReader().read(xml);
+
+        File bin = AdventureConverter.toBinary(xml);
+        bin.deleteOnExit();
+        assertTrue(bin.getName().endsWith(".adv.bin"));
+        assertTrue(bin.length() < xml.length());
+        XMLAdventureReaderTest.assertSameAdventure(expected, AdventureConverter.readerFor(bin).read(bin));
+
+        assertTrue(xml.delete());
+        assertEquals(xml, AdventureConverter.toXML(bin));
+        XMLAdventureReaderTest.assertSameAdventure(expected, new XMLAdventureReader().read(xml));
+    }
+
+    public void testNullsAndNegativesSurvive() throws Exception
+    {
+        Adventure a = new Adventure();
+        a.setName("Nulls");
+        a.getStart().createPath("nowhere").setOrder(-5);
+        a.createScene().setTags(null);
+
+        File f = File.createTempFile("nulls", BinaryAdventureFormat.EXTENSION);
+        f.deleteOnExit();
+        Adventure read = new BinaryAdventureReader().read(new BinaryAdventureWriter(a, f).write());
+
+        assertNull(read.getAssertions());
+        assertNull(read.getScene(1).getTags());
+        assertNull(read.getStart().getPaths().get(0).getTo());
+        assertEquals(-5, read.getStart().getPaths().get(0).getOrder());
+    }
+
+    public void testCombatTypeByName() throws Exception
+    {
+        Adventure a = new Adventure();
+        a.setName("Combat");
+        Combat combat = new Combat();
+        combat.setType(CombatType.allAtTheSameTime);
+        combat.add(new Fighter("Orc", 7, 9));
+        Scene s = a.createScene();
+        s.setType(SceneType.combat);
+        s.setCombat(combat);
+
+        File f = File.createTempFile("combat", BinaryAdventureFormat.EXTENSION);
+        f.deleteOnExit();
+        Adventure read = new BinaryAdventureReader().read(new BinaryAdventureWriter(a, f).write());
+        assertEquals(CombatType.allAtTheSameTime, read.getScene(s.getId()).getCombat().getType());
+        assertEquals("Orc", read.getScene(s.getId()).getCombat().getEnemies().get(0).getName());
+    }
+
+    public void testLazyBodies() throws Exception
+    {
+        File sample = new File("src/main/samples/ColossalCave.adv.xml");
+        Adventure expected = new XMLAdventureReader().read(sample);
+
+        File f = File.createTempFile("lazy", BinaryAdventureFormat.EXTENSION);
+        f.deleteOnExit();
+        new BinaryAdventureWriter(expected, f).write();
+
+        // Smaller than most texts, they are read from the file every time.
+        Adventure lazy = new BinaryAdventureReader(100).read(f);
+        XMLAdventureReaderTest.assertSameAdventure(expected, lazy);
+        XMLAdventureReaderTest.assertSameAdventure(expected, new BinaryAdventureReader(BinaryAdventureReader.DEFAULT_BODIES_CAPACITY).read(f));
+
+        Scene s = lazy.getScene(3);
+        s.setText("Set");
+        s.setCode(null);
+        assertEquals("Set", s.getText());
+        assertNull(s.getCode());
+        assertEquals(expected.getScene(4).getText(), lazy.getScene(4).getText());
+    }
+
+    public void testBodiesCacheIsBounded()
+    {
+        byte[] table = { 3, 'o', 'n', 'e', 3, 't', 'w', 'o', 5, 't', 'h', 'r', 'e', 'e' };
+        MappedSceneBodies bodies = new MappedSceneBodies(ByteBuffer.wrap(table), new int[] { 0, 0, 4, 8 }, 7);
+
+        assertNull(bodies.get(0));
+        assertEquals("one", bodies.get(1));
+        assertEquals("two", bodies.get(2));
+        assertEquals("one", bodies.get(1));
+        assertEquals(1, bodies.getHits());
+        assertEquals(6, bodies.getCachedChars());
+
+        assertEquals("three", bodies.get(3));
+        assertEquals(5, bodies.getCachedChars());
+        assertEquals("one", bodies.get(1));
+        assertEquals(1, bodies.getHits());
+        assertEquals(4, bodies.getMisses());
+    }
+
+    public void testRejectsOtherFiles() throws Exception
+    {
+        File f = File.createTempFile("other", BinaryAdventureFormat.EXTENSION);
+        f.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(f);
+        out.write("<adventure/>".getBytes("UTF-8"));
+        out.close();
+        try {
+            new BinaryAdventureReader().read(f);
+            fail();
+        } catch (AdventureReaderException e) {
+            // expected
+        }
+
+        new BinaryAdventureWriter(new AdventureGenerator(7).generate(10), f).write();
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        raf.setLength(f.length() / 2);
+        raf.close();
+        try {
+            new BinaryAdventureReader().read(f);
+            fail();
+        } catch (AdventureReaderException e) {
+            // expected
+        }
+    }
+}
@@ -3,8 +3,16 @@
  */
 package net.bpfurtado.tas.model.persistence;
 
-import net.bpfurtado.tas.model.Adventure;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
 import junit.framework.TestCase;
+import net.bpfurtado.tas.AdventureGenerator;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.combat.Fighter;
 
 /**
  * @author Bruno Patini Furtado
@@ -16,4 +24,90 @@ public class XMLAdventureReaderTest extends TestCase
         Adventure a = new XMLAdventureReader().read("conf/adventure.xml");
         assertTrue(a.getStart().getText().startsWith("Voce acorda de manh"));
     }
+
+    public void testSameAdventureAsTheDOM4JReader()
+    {
+        File sample = new File("src/main/samples/ColossalCave.adv.xml");
+        Adventure expected = new DOM4JAdventureReader().read(sample);
+        Adventure actual = new XMLAdventureReader().read(sample);
+        assertSameAdventure(expected, actual);
+        assertSameDepths(expected, actual);
+    }
+
+    public void testSameAdventureAsTheDOM4JReaderOnAGeneratedOne() throws Exception
+    {
+        File f = File.createTempFile("generated", ".adv.xml");
+        f.deleteOnExit();
+        new XMLAdventureWriter(new AdventureGenerator(7).generate(300), f).write();
+
+        assertSameAdventure(new DOM4JAdventureReader().read(f), new XMLAdventureReader().read(f));
+    }
+
+    public void testRejectsUnreasonableSceneIds() throws Exception
+    {
+        File f = File.createTempFile("ids", ".adv.xml");
+        f.deleteOnExit();
+        for (String id : new String[] { "-2", "2147483647" }) {
+            FileOutputStream out = new FileOutputStream(f);
+            out.write(("<adventure startScene=\"0\"><scenes><scene id=\"" + id + "\" isEnd=\"false\" name=\"\" tags=\"\">"
+                    + "<text></text><code></code></scene></scenes></adventure>").getBytes("UTF-8"));
+            out.close();
+            try {
+                new XMLAdventureReader().read(f);
+                fail(id);
+            } catch (AdventureReaderException e) {
+                // expected
+            }
+        }
+    }
+
+    static void assertSameAdventure(Adventure expected, Adventure actual)
+    {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getAssertions(), actual.getAssertions());
+        assertEquals(expected.getScenes().size(), actual.getScenes().size());
+
+        for (Scene e : expected.getScenes()) {
+            Scene a = actual.getScene(e.getId());
+            assertNotNull("Scene " + e.getId(), a);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getTags(), a.getTags());
+            assertEquals(e.getText(), a.getText());
+            assertEquals(e.getCode(), a.getCode());
+            assertEquals(e.getImageId(), a.getImageId());
+            assertEquals(e.getType(), a.getType());
+            if (e.getSkillToTest() != null) {
+                assertEquals(e.getSkillToTest().getName(), a.getSkillToTest().getName());
+            }
+            if (e.getCombat() != null) {
+                assertEquals(e.getCombat().getType(), a.getCombat().getType());
+                List<Fighter> enemies = a.getCombat().getEnemies();
+                assertEquals(e.getCombat().getEnemies().size(), enemies.size());
+                for (int i = 0; i < enemies.size(); i++) {
+                    assertEquals(e.getCombat().getEnemies().get(i).toString(), enemies.get(i).toString());
+                }
+            }
+
+            List<IPath> paths = a.getPaths();
+            assertEquals(e.getPaths().size(), paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                IPath ep = e.getPaths().get(i);
+                assertEquals(ep.getText(), paths.get(i).getText());
+                assertEquals(ep.getOrder(), paths.get(i).getOrder());
+                assertEquals(ep.getTo() == null ? -1 : ep.getTo().getId(), paths.get(i).getTo() == null ? -1 : paths.get(i).getTo().getId());
+            }
+        }
+
+    }
+
+    /**
+     * The depths lists depend on the order the paths were linked.
+     */
+    static void assertSameDepths(Adventure expected, Adventure actual)
+    {
+        assertEquals(expected.getNumberOfDepths(), actual.getNumberOfDepths());
+        for (int i = 0; i < expected.getNumberOfDepths(); i++) {
+            assertEquals(expected.getNumberOfScenesFromDepth(i), actual.getNumberOfScenesFromDepth(i));
+        }
+    }
 }
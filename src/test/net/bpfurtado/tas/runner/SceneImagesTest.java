@@ -0,0 +1,97 @@
+package net.bpfurtado.tas.runner;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+import junit.framework.TestCase;
+
+public class SceneImagesTest extends TestCase
+{
+    public void testDecodedOnce() throws Exception
+    {
+        File f = image(100, 50);
+        SceneImages images = new SceneImages(1024 * 1024);
+
+        ImageIcon first = images.get(f);
+        assertEquals(100, first.getIconWidth());
+        assertSame(first, images.get(f));
+        assertEquals(1, images.getHits());
+        assertEquals(4 * 100 * 50, images.getSize());
+    }
+
+    public void testOversizedImagesAreScaledDown() throws Exception
+    {
+        ImageIcon image = new SceneImages(64 * 1024 * 1024).get(image(2000, 1000));
+        assertEquals(SceneImages.MAX_WIDTH, image.getIconWidth());
+        assertEquals(SceneImages.MAX_WIDTH / 2, image.getIconHeight());
+    }
+
+    public void testTheLeastRecentlyShownGo() throws Exception
+    {
+        File a = image(100, 100);
+        File b = image(100, 100);
+        File c = image(100, 100);
+        SceneImages images = new SceneImages(2 * 4 * 100 * 100);
+
+        ImageIcon first = images.get(a);
+        images.get(b);
+        images.get(a);
+        images.get(c);
+        assertEquals(2 * 4 * 100 * 100, images.getSize());
+        assertSame(first, images.get(a));
+        assertEquals(2, images.getHits());
+        images.get(b);
+        assertEquals(2, images.getHits());
+    }
+
+    public void testPrefetched() throws Exception
+    {
+        File a = image(300, 200);
+        File b = image(200, 300);
+        SceneImages images = new SceneImages(1024 * 1024);
+        images.prefetch(Arrays.asList(a, b));
+
+        ImageIcon image = images.get(b);
+        assertEquals(300, image.getIconHeight());
+        assertSame(image, images.get(b));
+        assertEquals(300, images.get(a).getIconWidth());
+    }
+
+    public void testGIFsByTheToolkit() throws Exception
+    {
+        File f = File.createTempFile("scene", ".gif");
+        f.deleteOnExit();
+        ImageIO.write(new BufferedImage(1000, 900, BufferedImage.TYPE_INT_RGB), "gif", f);
+
+        ImageIcon image = new SceneImages(64 * 1024 * 1024).get(f);
+        assertFalse(image.getImage() instanceof BufferedImage);
+        assertEquals(SceneImages.MAX_HEIGHT, image.getIconHeight());
+        assertEquals(667, image.getIconWidth());
+    }
+
+    public void testNotAnImage() throws Exception
+    {
+        File f = File.createTempFile("notes", ".jpg");
+        f.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(f);
+        out.write("not an image".getBytes("US-ASCII"));
+        out.close();
+
+        SceneImages images = new SceneImages(1024);
+        assertNull(images.get(f));
+        assertNull(images.get(new File(f.getPath() + ".missing")));
+    }
+
+    private static File image(int width, int height) throws Exception
+    {
+        File f = File.createTempFile("scene", ".png");
+        f.deleteOnExit();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", f);
+        return f;
+    }
+}
@@ -0,0 +1,99 @@
+package net.bpfurtado.tas.runner;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.GameImpl;
+import net.bpfurtado.tas.model.Scene;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class SceneScriptsTest extends TestCase
+{
+    private Adventure adventure;
+    private GameImpl game;
+    private Scene scene;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        adventure = new Adventure();
+        game = new GameImpl(adventure);
+        scene = adventure.createScene();
+        game.setCurrentScene(scene);
+    }
+
+    public void testSceneCodeResults() throws Exception
+    {
+        scene.setCode("go = 7; pathsToHide.add(1); text = text + \" and \" + originalText;");
+        scene.setText("Changed");
+
+        List<PostCodeExecutionAction> actions = scene.executeActions(game);
+
+        assertEquals(2, actions.size());
+        assertEquals(7, ((SwitchSceneAction) actions.get(0)).getSceneId());
+        assertTrue(actions.get(1) instanceof HidePaths);
+        assertEquals("Changed and Changed", game.getText(scene));
+        assertEquals("Changed", scene.getText());
+    }
+
+    public void testCompiledOnceAndEvictedWhenTheCodeChanges() throws Exception
+    {
+        scene.setCode("go = 1;");
+        CompiledScript compiled = adventure.getScripts().of(scene);
+        scene.executeActions(game);
+        assertSame(compiled, adventure.getScripts().of(scene));
+
+        scene.setCode("go = 2;");
+        assertNotSame(compiled, adventure.getScripts().of(scene));
+        assertEquals(2, ((SwitchSceneAction) scene.executeActions(game).get(0)).getSceneId());
+    }
+
+    public void testFreshNamespaceForEachExecution() throws Exception
+    {
+        scene.setCode("if (counter == void) { counter = 0; } counter++; text = \"\" + counter;");
+
+        scene.executeActions(game);
+        scene.executeActions(game);
+
+        assertEquals("1", game.getText(scene));
+    }
+
+    public void testReturnInTheMiddleOfTheCode() throws Exception
+    {
+        scene.setCode("go = 3;\nif (true) return;\ngo = 4;");
+
+        assertEquals(3, ((SwitchSceneAction) scene.executeActions(game).get(0)).getSceneId());
+    }
+
+    public void testAssertions() throws Exception
+    {
+        adventure.setAssertions("if (player.has(\"dead\")) { go = 9; }");
+        CompiledScript compiled = adventure.getScripts().ofAssertions(adventure.getAssertions());
+
+        game.execAssertions();
+        assertEquals(-1, game.getSceneIdToOpen());
+
+        game.getPlayer().addAttribute("dead");
+        game.execAssertions();
+        assertEquals(9, game.getSceneIdToOpen());
+        assertSame(compiled, adventure.getScripts().ofAssertions(adventure.getAssertions()));
+
+        adventure.setAssertions("go = 10;");
+        game.execAssertions();
+        assertEquals(10, game.getSceneIdToOpen());
+    }
+
+    public void testBadCode()
+    {
+        scene.setCode("go = ;");
+        try {
+            scene.executeActions(game);
+            fail();
+        } catch (BadSceneCodeException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package net.bpfurtado.tas.server;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.Skill;
+import net.bpfurtado.tas.model.combat.Combat;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class GameServerTest extends TestCase
+{
+    private Adventure adventure;
+    private Scene combat;
+    private Scene won;
+    private Scene lost;
+
+    private GameServer server;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        adventure = new Adventure();
+
+        combat = adventure.createScene();
+        Combat c = new Combat();
+        c.add(new Fighter("Rat", 0, 1));
+        combat.setType(SceneType.combat);
+        combat.setCombat(c);
+        adventure.getStart().createPath("Fight the rat").setTo(combat);
+
+        Scene test = adventure.createScene();
+        test.setType(SceneType.skillTest);
+        test.setSkillToTest(new Skill("Combat"));
+        combat.createPath("After the fight").setTo(test);
+
+        won = adventure.createScene(10, true);
+        lost = adventure.createScene(11, true);
+        test.createPath("Skillful").setTo(won);
+        test.createPath("Not skillful").setTo(lost);
+
+        server = new GameServer(adventure, 4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        server.shutdown(10, TimeUnit.SECONDS);
+    }
+
+    public void testManySessionsOnOneAdventure() throws Exception
+    {
+        List<Future<SceneView>> ends = new ArrayList<Future<SceneView>>();
+        for (int i = 0; i < 500; i++) {
+            String id = server.createSession("Player " + i);
+            // Not waiting between them, each session runs its actions in order.
+            server.start(id);
+            server.openPath(id, 0);
+            server.fight(id);
+            ends.add(server.testSkill(id));
+        }
+        assertEquals(500, server.getNumberOfSessions());
+
+        for (Future<SceneView> end : ends) {
+            SceneView view = end.get(10, TimeUnit.SECONDS);
+            assertTrue(view.isGameOver());
+            assertTrue(view.getSceneId() == won.getId() || view.getSceneId() == lost.getId());
+        }
+    }
+
+    public void testViewsAndWrongActions() throws Exception
+    {
+        String id = server.createSession("Bob");
+
+        SceneView start = server.start(id).get();
+        assertEquals(0, start.getSceneId());
+        assertEquals(1, start.getPaths().size());
+        assertEquals("Fight the rat", start.getPaths().get(0));
+
+        assertWrongAction(server.openPath(id, 1));
+        assertWrongAction(server.fight(id));
+
+        SceneView atCombat = server.openPath(id, 0).get();
+        assertEquals(SceneType.combat, atCombat.getType());
+        assertTrue(atCombat.getPaths().isEmpty());
+        assertWrongAction(server.openPath(id, 0));
+
+        SceneView afterFight = server.fight(id).get();
+        assertEquals(SceneType.skillTest, afterFight.getType());
+        assertTrue(afterFight.getMessage().startsWith("You won!"));
+
+        try {
+            server.look("no such session");
+            fail();
+        } catch (GameServerException e) {
+            // expected
+        }
+    }
+
+    public void testStartAgainWithANewPlayer()
+    {
+        Adventure a = new Adventure();
+        Scene dragon = a.createScene();
+        Combat c = new Combat();
+        c.add(new Fighter("Dragon", 100, 1000));
+        dragon.setType(SceneType.combat);
+        dragon.setCombat(c);
+        a.getStart().createPath("Fight the dragon").setTo(dragon);
+
+        GameSession session = new GameSession("s", a, "Bob", new Random(5));
+        session.start();
+        session.openPath(0);
+        SceneView died = session.fight();
+        assertTrue(died.isGameOver());
+        assertTrue(session.getGame().getPlayer().getStamina() <= 0);
+
+        assertFalse(session.start().isGameOver());
+        assertTrue(session.getGame().getPlayer().getStamina() > 0);
+        session.openPath(0);
+        assertTrue(session.fight().getMessage().startsWith("You died!"));
+    }
+
+    public void testOutcomeWithoutAPath()
+    {
+        Adventure a = new Adventure();
+        Scene test = a.createScene();
+        test.setType(SceneType.skillTest);
+        test.setSkillToTest(new Skill("Combat"));
+        a.getStart().createPath("To the test").setTo(test);
+
+        GameSession session = new GameSession("s", a, "Bob", new Random(5));
+        session.start();
+        session.openPath(0);
+        try {
+            session.testSkill();
+            fail();
+        } catch (GameServerException e) {
+            // expected
+        }
+    }
+
+    private void assertWrongAction(Future<SceneView> action) throws Exception
+    {
+        try {
+            action.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof GameServerException);
+        }
+    }
+
+    public void testLineProtocol() throws Exception
+    {
+        LineProtocolServer lines = new LineProtocolServer(server, 0);
+        lines.start();
+        Socket socket = new Socket("localhost", lines.getPort());
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+            List<String> answer = send(in, out, "new Bob");
+            assertTrue(answer.get(0).startsWith("session "));
+            assertEquals("scene 0 regular", answer.get(1));
+            assertTrue(answer.contains("path 0 Fight the rat"));
+
+            assertEquals("scene " + combat.getId() + " combat", send(in, out, "open 0").get(0));
+            assertTrue(send(in, out, "open 7").get(0).startsWith("error "));
+            assertTrue(send(in, out, "dance").get(0).startsWith("error "));
+            assertTrue(send(in, out, "fight").get(1).startsWith("message You won!"));
+
+            List<String> end = send(in, out, "test");
+            assertEquals("game over", end.get(end.size() - 1));
+        } finally {
+            socket.close();
+            lines.stop();
+        }
+    }
+
+    private static List<String> send(BufferedReader in, PrintWriter out, String command) throws Exception
+    {
+        out.println(command);
+        List<String> answer = new ArrayList<String>();
+        String line;
+        while (!(line = in.readLine()).equals(".")) {
+            answer.add(line);
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,120 @@
+package net.bpfurtado.tas.simulator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.bpfurtado.tas.model.Adventure;
+import net.bpfurtado.tas.model.Game;
+import net.bpfurtado.tas.model.IPath;
+import net.bpfurtado.tas.model.Scene;
+import net.bpfurtado.tas.model.SceneType;
+import net.bpfurtado.tas.model.Skill;
+import net.bpfurtado.tas.model.combat.Combat;
+import net.bpfurtado.tas.model.combat.Fighter;
+
+/**
+ * @author Bruno Patini Furtado
+ */
+public class SimulatorTest extends TestCase
+{
+    private Adventure adventure;
+    private Scene hall;
+    private Scene pit;
+
+    private Simulator simulator;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        adventure = new Adventure();
+
+        hall = adventure.createScene();
+        adventure.getStart().createPath("Enter").setTo(hall);
+
+        Scene combat = adventure.createScene();
+        Combat c = new Combat();
+        c.add(new Fighter("Rat", 0, 1));
+        combat.setType(SceneType.combat);
+        combat.setCombat(c);
+        hall.createPath("Fight the rat").setTo(combat);
+
+        Scene test = adventure.createScene();
+        test.setType(SceneType.skillTest);
+        test.setSkillToTest(new Skill("Combat"));
+        combat.createPath("After the fight").setTo(test);
+
+        test.createPath("Skillful").setTo(adventure.createScene(10, true));
+        test.createPath("Not skillful").setTo(adventure.createScene(11, true));
+
+        pit = adventure.createScene(12, true);
+        hall.createPath("Jump").setTo(pit);
+
+        simulator = new Simulator(adventure);
+        simulator.setSeed(7);
+        simulator.setPlayerStats(12, 20);
+        simulator.setWinningScenes(Arrays.asList(10));
+    }
+
+    public void testWinRateAndDeaths()
+    {
+        SimulationResult result = simulator.run(20000, 4);
+
+        assertEquals(20000, result.getRuns());
+        assertEquals(result.getRuns(), result.getWins() + result.getDeaths());
+        assertEquals(0.5, result.getWinRate(), 0.02);
+
+        Map<Integer, Long> deaths = result.getDeathsByScene();
+        assertEquals(1, deaths.size());
+        assertEquals(result.getDeaths(), deaths.get(pit.getId()).longValue());
+
+        assertEquals(4.0, result.getAverageWinningPathLength(), 0.0);
+        assertEquals(20000, result.getVisits(hall.getId()));
+        assertEquals(20000, result.getHotScenes(2).get(hall.getId()).longValue());
+    }
+
+    public void testSameSeedSameResultWhateverTheThreads()
+    {
+        assertEquals(simulator.run(10000, 1).toString(), simulator.run(10000, 3).toString());
+    }
+
+    public void testSceneCodeHidesThePit()
+    {
+        hall.setCode("pathsToHide.add(2);");
+
+        assertEquals(1.0, simulator.run(5000, 2).getWinRate(), 0.0);
+    }
+
+    public void testDiesInTheCombat()
+    {
+        simulator.setPlayerStats(0, 1);
+        hall.setCode("pathsToHide.add(2);");
+
+        SimulationResult result = simulator.run(1000, 2);
+
+        // Even the ones who kill the rat fail the skill test and end at 11
+        assertEquals(1000, result.getDeaths());
+        assertTrue(result.getDeathsByScene().get(hall.getPaths().get(0).getTo().getId()) > 0);
+        assertTrue(result.getDeathsByScene().get(11) > 0);
+    }
+
+    public void testPolicyLoopsAndFailures()
+    {
+        hall.createPath("Back").setTo(adventure.getStart());
+        simulator.setPolicy(new PathPolicy() {
+            public IPath choose(Game game, List<IPath> paths, Random rnd)
+            {
+                return paths.get(paths.size() - 1);
+            }
+        });
+        simulator.setMaxPathLength(50);
+        assertEquals(1000, simulator.run(1000, 2).getGaveUp());
+
+        hall.setCode("go = 999;");
+        SimulationResult result = simulator.run(1000, 2);
+        assertEquals(1000, result.getFailed());
+        assertEquals(1000, result.getFailuresByScene().get(adventure.getStart().getId()).longValue());
+    }
+}